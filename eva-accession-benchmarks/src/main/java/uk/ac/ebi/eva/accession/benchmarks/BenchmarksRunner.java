@@ -0,0 +1,44 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the benchmarks with the same command line options as {@link Main}, but writes the results as JSON by default
+ * (to jmh-result.json unless "-rff" is provided), so that the results of different releases can be compared, e.g.:
+ *
+ * java -jar benchmarks.jar ContigMappingBenchmark -rff contig-mapping-0.3.0.json
+ */
+public class BenchmarksRunner {
+
+    private static final String RESULT_FORMAT_OPTION = "-rf";
+
+    private static final String JSON_FORMAT = "json";
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        if (!arguments.contains(RESULT_FORMAT_OPTION)) {
+            arguments.add(0, RESULT_FORMAT_OPTION);
+            arguments.add(1, JSON_FORMAT);
+        }
+        Main.main(arguments.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.ac.ebi.eva.accession.core.contig.ContigMapping;
+import uk.ac.ebi.eva.accession.core.contig.ContigSynonyms;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ContigMapping#getContigSynonyms(String)} with a synthetic assembly report shaped like GRCh38's:
+ * chromosomes 1-22, X, Y and MT followed by unlocalized and unplaced scaffolds, which only have GenBank, RefSeq and
+ * UCSC names. The queried names are a shuffled mix of all the naming conventions, as found in submitted VCFs, and a
+ * fraction of names that are not in the report.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ContigMappingBenchmark {
+
+    private static final int NUM_QUERIES = 10_000;
+
+    private static final String[] CHROMOSOMES = {"1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13",
+            "14", "15", "16", "17", "18", "19", "20", "21", "22", "X", "Y", "MT"};
+
+    @Param({"600", "5000"})
+    private int numContigs;
+
+    @Param({"0.0", "0.1"})
+    private double missingFraction;
+
+    private ContigMapping contigMapping;
+
+    private String[] queries;
+
+    @Setup
+    public void setUp() {
+        List<ContigSynonyms> rows = new ArrayList<>(numContigs);
+        for (int i = 0; i < numContigs; i++) {
+            rows.add(createRow(i));
+        }
+        contigMapping = new ContigMapping(rows);
+
+        List<String> names = new ArrayList<>(NUM_QUERIES);
+        Random random = new Random(42);
+        for (int i = 0; i < NUM_QUERIES; i++) {
+            if (random.nextDouble() < missingFraction) {
+                names.add("scaffold_" + random.nextInt(numContigs));
+            } else {
+                names.add(getAnyName(createRow(random.nextInt(numContigs)), random));
+            }
+        }
+        Collections.shuffle(names, random);
+        queries = names.toArray(new String[0]);
+    }
+
+    private static ContigSynonyms createRow(int i) {
+        if (i < CHROMOSOMES.length) {
+            String chromosome = CHROMOSOMES[i];
+            String ucsc = chromosome.equals("MT") ? "chrM" : "chr" + chromosome;
+            return new ContigSynonyms(chromosome, "assembled-molecule", chromosome, String.format("CM%06d.2", 663 + i),
+                                      String.format("NC_%06d.%d", 1 + i, 10 + i % 3), ucsc, true);
+        }
+        String genBank = String.format("KI%06d.1", 270000 + i);
+        String sequenceName = "HSCHR" + CHROMOSOMES[i % CHROMOSOMES.length] + "_UNLOCALIZED_" + i;
+        return new ContigSynonyms(sequenceName, "unlocalized-scaffold", null, genBank,
+                                  String.format("NT_%06d.1", 187000 + i),
+                                  "chrUn_" + genBank.replace(".", "v"), i % 10 != 0);
+    }
+
+    private static String getAnyName(ContigSynonyms row, Random random) {
+        String[] names = {row.getSequenceName(), row.getAssignedMolecule(), row.getGenBank(), row.getRefSeq(),
+                row.getUcsc()};
+        String name;
+        do {
+            name = names[random.nextInt(names.length)];
+        } while (name == null);
+        return name;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_QUERIES)
+    public void getContigSynonyms(Blackhole blackhole) {
+        for (String query : queries) {
+            blackhole.consume(contigMapping.getContigSynonyms(query));
+        }
+    }
+}
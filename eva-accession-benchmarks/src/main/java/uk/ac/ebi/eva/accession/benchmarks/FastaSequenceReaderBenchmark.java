@@ -0,0 +1,137 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.benchmarks;
+
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.ac.ebi.eva.accession.core.io.FastaSequenceReader;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the time to read the context base of a variant from an uncompressed FASTA through htsjdk, from a
+ * memory-mapped FASTA, and from a block-gzipped FASTA. The reference is a randomly generated contig, and the
+ * positions are either increasing (like a sorted VCF) or random.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FastaSequenceReaderBenchmark {
+
+    private static final String CONTIG = "1";
+
+    private static final int CONTIG_LENGTH = 20_000_000;
+
+    private static final int BASES_PER_LINE = 60;
+
+    private static final int NUM_POSITIONS = 100_000;
+
+    @Param({"htsjdk", "mapped", "bgzip"})
+    private String backend;
+
+    @Param({"sorted", "random"})
+    private String positionOrder;
+
+    private Path directory;
+
+    private FastaSequenceReader reader;
+
+    private long[] positions;
+
+    private int nextPosition;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("fasta-benchmark");
+        Path fasta = directory.resolve("reference.fa");
+        writeFasta(fasta);
+        String index = CONTIG + "\t" + CONTIG_LENGTH + "\t" + (CONTIG.length() + 2) + "\t" + BASES_PER_LINE + "\t" +
+                (BASES_PER_LINE + 1) + "\n";
+        Files.write(directory.resolve("reference.fa.fai"), index.getBytes());
+
+        if (backend.equals("bgzip")) {
+            Path compressedFasta = directory.resolve("reference.fa.gz");
+            try (OutputStream output = new BlockCompressedOutputStream(compressedFasta.toFile())) {
+                Files.copy(fasta, output);
+            }
+            Files.write(directory.resolve("reference.fa.gz.fai"), index.getBytes());
+            reader = new FastaSequenceReader(compressedFasta);
+        } else {
+            reader = new FastaSequenceReader(fasta, backend.equals("mapped"));
+        }
+
+        Random random = new Random(42);
+        positions = new long[NUM_POSITIONS];
+        long position = 1;
+        for (int i = 0; i < NUM_POSITIONS; i++) {
+            if (positionOrder.equals("sorted")) {
+                position = Math.min(CONTIG_LENGTH, position + 1 + random.nextInt(2 * CONTIG_LENGTH / NUM_POSITIONS));
+            } else {
+                position = 1 + random.nextInt(CONTIG_LENGTH);
+            }
+            positions[i] = position;
+        }
+    }
+
+    private void writeFasta(Path fasta) throws IOException {
+        char[] bases = {'A', 'C', 'G', 'T', 'a', 'c', 'g', 't'};
+        Random random = new Random(42);
+        try (BufferedWriter writer = Files.newBufferedWriter(fasta)) {
+            writer.write(">" + CONTIG + "\n");
+            for (int i = 1; i <= CONTIG_LENGTH; i++) {
+                writer.write(bases[random.nextInt(bases.length)]);
+                if (i % BASES_PER_LINE == 0 || i == CONTIG_LENGTH) {
+                    writer.write('\n');
+                }
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        reader.close();
+        Files.walk(directory).sorted((path1, path2) -> path2.compareTo(path1)).forEach(path -> path.toFile().delete());
+    }
+
+    @Benchmark
+    public String getContextBase() {
+        long position = positions[nextPosition];
+        nextPosition = (nextPosition + 1) % NUM_POSITIONS;
+        return reader.getSequenceToUpperCase(CONTIG, position, position);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.ac.ebi.eva.accession.core.io.FastaSequenceReader;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how the throughput of a single {@link FastaSequenceReader} shared by several threads grows with the number
+ * of threads, like when the variants of a chunk are processed in parallel. Every invocation reads the same regions,
+ * split evenly among the threads. The htsjdk mode borrows readers from a pool, and the memory-mapped mode reads
+ * without locks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FastaSequenceReaderScalingBenchmark {
+
+    private static final int NUM_CONTIGS = 24;
+
+    private static final int CONTIG_LENGTH = 500_000;
+
+    private static final int BASES_PER_LINE = 60;
+
+    private static final int NUM_REGIONS = 100_000;
+
+    private static final int MAX_REGION_LENGTH = 10;
+
+    @Param({"1", "2", "4", "8", "16", "32"})
+    private int threads;
+
+    @Param({"false", "true"})
+    private boolean memoryMapped;
+
+    private Path directory;
+
+    private FastaSequenceReader reader;
+
+    private ExecutorService executor;
+
+    private String[] contigs;
+
+    private long[] starts;
+
+    private long[] ends;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("fasta-scaling-benchmark");
+        Path fasta = directory.resolve("reference.fa");
+        writeFasta(fasta);
+        reader = new FastaSequenceReader(fasta, memoryMapped);
+        executor = Executors.newFixedThreadPool(threads);
+
+        Random random = new Random(42);
+        contigs = new String[NUM_REGIONS];
+        starts = new long[NUM_REGIONS];
+        ends = new long[NUM_REGIONS];
+        for (int i = 0; i < NUM_REGIONS; i++) {
+            contigs[i] = "chr" + (1 + random.nextInt(NUM_CONTIGS));
+            starts[i] = 1 + random.nextInt(CONTIG_LENGTH - MAX_REGION_LENGTH);
+            ends[i] = starts[i] + random.nextInt(MAX_REGION_LENGTH);
+        }
+    }
+
+    private void writeFasta(Path fasta) throws IOException {
+        char[] bases = {'A', 'C', 'G', 'T'};
+        Random random = new Random(42);
+        try (BufferedWriter writer = Files.newBufferedWriter(fasta)) {
+            for (int contig = 1; contig <= NUM_CONTIGS; contig++) {
+                writer.write(">chr" + contig + "\n");
+                for (int i = 1; i <= CONTIG_LENGTH; i++) {
+                    writer.write(bases[random.nextInt(bases.length)]);
+                    if (i % BASES_PER_LINE == 0 || i == CONTIG_LENGTH) {
+                        writer.write('\n');
+                    }
+                }
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        executor.shutdown();
+        reader.close();
+        Files.walk(directory).sorted((path1, path2) -> path2.compareTo(path1)).forEach(path -> path.toFile().delete());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_REGIONS)
+    public long getSequence() throws Exception {
+        List<Future<Long>> results = new ArrayList<>(threads);
+        for (int thread = 0; thread < threads; thread++) {
+            int firstRegion = thread;
+            results.add(executor.submit(() -> {
+                long bases = 0;
+                for (int i = firstRegion; i < NUM_REGIONS; i += threads) {
+                    bases += reader.getSequence(contigs[i], starts[i], ends[i]).length();
+                }
+                return bases;
+            }));
+        }
+        long bases = 0;
+        for (Future<Long> result : results) {
+            bases += result.get();
+        }
+        return bases;
+    }
+}
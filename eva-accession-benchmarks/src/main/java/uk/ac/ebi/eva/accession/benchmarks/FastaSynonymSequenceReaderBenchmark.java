@@ -0,0 +1,155 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.ac.ebi.eva.accession.core.contig.ContigMapping;
+import uk.ac.ebi.eva.accession.core.contig.ContigSynonyms;
+import uk.ac.ebi.eva.accession.core.io.FastaSynonymSequenceReader;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link FastaSynonymSequenceReader#getSequence(String, long, long)} when the FASTA names the sequences with
+ * GenBank accessions (as ENA does) and the variants use RefSeq, UCSC or chromosome names. The FASTA has a few large
+ * chromosomes and many small scaffolds, and the regions are short (a context base, or the reference of a short indel)
+ * at random positions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FastaSynonymSequenceReaderBenchmark {
+
+    private static final int NUM_CHROMOSOMES = 24;
+
+    private static final int CHROMOSOME_LENGTH = 500_000;
+
+    private static final int NUM_SCAFFOLDS = 300;
+
+    private static final int SCAFFOLD_LENGTH = 5_000;
+
+    private static final int BASES_PER_LINE = 60;
+
+    private static final int NUM_REGIONS = 100_000;
+
+    private static final int MAX_REGION_LENGTH = 10;
+
+    @Param({"false", "true"})
+    private boolean memoryMapped;
+
+    private Path directory;
+
+    private FastaSynonymSequenceReader reader;
+
+    private String[] contigs;
+
+    private long[] starts;
+
+    private long[] ends;
+
+    private int nextRegion;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("fasta-synonym-benchmark");
+        Path fasta = directory.resolve("reference.fa");
+
+        List<ContigSynonyms> rows = new ArrayList<>();
+        List<String[]> queryNames = new ArrayList<>();
+        List<Integer> lengths = new ArrayList<>();
+        for (int i = 0; i < NUM_CHROMOSOMES + NUM_SCAFFOLDS; i++) {
+            boolean isChromosome = i < NUM_CHROMOSOMES;
+            String chromosome = Integer.toString(i + 1);
+            String genBank = isChromosome ? String.format("CM%06d.2", 663 + i) : String.format("KI%06d.1", 270000 + i);
+            String refSeq = isChromosome ? String.format("NC_%06d.11", i + 1) : String.format("NT_%06d.1", 187000 + i);
+            String ucsc = isChromosome ? "chr" + chromosome : "chrUn_" + genBank.replace(".", "v");
+            rows.add(new ContigSynonyms(isChromosome ? chromosome : "HSCHRUN_" + i,
+                                        isChromosome ? "assembled-molecule" : "unplaced-scaffold",
+                                        isChromosome ? chromosome : null, genBank, refSeq, ucsc, true));
+            queryNames.add(isChromosome ? new String[]{chromosome, refSeq, ucsc} : new String[]{refSeq, ucsc});
+            lengths.add(isChromosome ? CHROMOSOME_LENGTH : SCAFFOLD_LENGTH);
+        }
+        writeFasta(fasta, rows, lengths);
+        reader = new FastaSynonymSequenceReader(new ContigMapping(rows), fasta, memoryMapped);
+
+        Random random = new Random(42);
+        contigs = new String[NUM_REGIONS];
+        starts = new long[NUM_REGIONS];
+        ends = new long[NUM_REGIONS];
+        for (int i = 0; i < NUM_REGIONS; i++) {
+            // most variants are in chromosomes, like in a real assembly
+            int row = random.nextInt(10) == 0 ? NUM_CHROMOSOMES + random.nextInt(NUM_SCAFFOLDS) : random.nextInt(
+                    NUM_CHROMOSOMES);
+            String[] names = queryNames.get(row);
+            contigs[i] = names[random.nextInt(names.length)];
+            starts[i] = 1 + random.nextInt(lengths.get(row) - MAX_REGION_LENGTH);
+            ends[i] = starts[i] + random.nextInt(MAX_REGION_LENGTH);
+        }
+    }
+
+    private void writeFasta(Path fasta, List<ContigSynonyms> rows, List<Integer> lengths) throws IOException {
+        char[] bases = {'A', 'C', 'G', 'T', 'a', 'c', 'g', 't'};
+        Random random = new Random(42);
+        try (BufferedWriter writer = Files.newBufferedWriter(fasta)) {
+            for (int row = 0; row < rows.size(); row++) {
+                writer.write(">" + rows.get(row).getGenBank() + "\n");
+                int length = lengths.get(row);
+                for (int i = 1; i <= length; i++) {
+                    writer.write(bases[random.nextInt(bases.length)]);
+                    if (i % BASES_PER_LINE == 0 || i == length) {
+                        writer.write('\n');
+                    }
+                }
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        reader.close();
+        Files.walk(directory).sorted((path1, path2) -> path2.compareTo(path1)).forEach(path -> path.toFile().delete());
+    }
+
+    @Benchmark
+    public String getSequence() {
+        int region = nextRegion;
+        nextRegion = (nextRegion + 1) % NUM_REGIONS;
+        return reader.getSequence(contigs[region], starts[region], ends[region]);
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ebi.ampt2d.commons.accession.core.exceptions.AccessionCouldNotBeGeneratedException;
+import uk.ac.ebi.ampt2d.commons.accession.core.models.AccessionWrapper;
+import uk.ac.ebi.ampt2d.commons.accession.hashing.SHA1HashingFunction;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariantAccessioningService;
+import uk.ac.ebi.eva.accession.core.service.DbsnpSubmittedVariantMonotonicAccessioningService;
+import uk.ac.ebi.eva.accession.core.service.SubmittedVariantMonotonicAccessioningService;
+import uk.ac.ebi.eva.accession.core.summary.SubmittedVariantSummaryFunction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Measures how {@link SubmittedVariantAccessioningService#getOrCreate(List)} scales with the chunk size when it has to
+ * split a chunk between the dbSNP and EVA collections. The accessioning services are replaced by in-memory stubs so
+ * only the partitioning and merging of results is measured, not the database round trips.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SubmittedVariantAccessioningServiceBenchmark {
+
+    private static final long ACCESSIONING_MONOTONIC_INIT_SS = 5000000000L;
+
+    @Param({"1000", "10000", "100000"})
+    private int chunkSize;
+
+    @Param({"0.1", "0.5", "0.9"})
+    private double dbsnpFraction;
+
+    private List<SubmittedVariant> variants;
+
+    private SubmittedVariantAccessioningService service;
+
+    @Setup
+    public void setUp() {
+        Function<ISubmittedVariant, String> hashingFunction =
+                new SubmittedVariantSummaryFunction().andThen(new SHA1HashingFunction());
+
+        variants = new ArrayList<>(chunkSize);
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> dbsnpAccessions = new ArrayList<>();
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> evaAccessions = new ArrayList<>();
+        int dbsnpVariants = (int) (chunkSize * dbsnpFraction);
+        for (int i = 0; i < chunkSize; i++) {
+            SubmittedVariant variant = new SubmittedVariant("GCA_000001405.27", 9606, "PRJEB" + (i % 50), "chr1",
+                                                            1000L + i, "A", "T", null);
+            variants.add(variant);
+            String hash = hashingFunction.apply(variant);
+            if (i < dbsnpVariants) {
+                dbsnpAccessions.add(new AccessionWrapper<>((long) i, hash, variant));
+            } else {
+                evaAccessions.add(new AccessionWrapper<>(ACCESSIONING_MONOTONIC_INIT_SS + i, hash, variant));
+            }
+        }
+
+        service = new SubmittedVariantAccessioningService(new StubAccessioningService(evaAccessions),
+                                                          new StubDbsnpAccessioningService(dbsnpAccessions),
+                                                          ACCESSIONING_MONOTONIC_INIT_SS);
+    }
+
+    @Benchmark
+    public List<AccessionWrapper<ISubmittedVariant, String, Long>> getOrCreate()
+            throws AccessionCouldNotBeGeneratedException {
+        return service.getOrCreate(variants);
+    }
+
+    private static class StubAccessioningService extends SubmittedVariantMonotonicAccessioningService {
+
+        private final List<AccessionWrapper<ISubmittedVariant, String, Long>> accessions;
+
+        StubAccessioningService(List<AccessionWrapper<ISubmittedVariant, String, Long>> accessions) {
+            super(null, null, new SubmittedVariantSummaryFunction(), new SHA1HashingFunction());
+            this.accessions = accessions;
+        }
+
+        @Override
+        public List<AccessionWrapper<ISubmittedVariant, String, Long>> getOrCreate(
+                List<? extends ISubmittedVariant> variants) {
+            return new ArrayList<>(accessions);
+        }
+
+        @Override
+        public List<AccessionWrapper<ISubmittedVariant, String, Long>> get(
+                List<? extends ISubmittedVariant> variants) {
+            return new ArrayList<>(accessions);
+        }
+    }
+
+    private static class StubDbsnpAccessioningService extends DbsnpSubmittedVariantMonotonicAccessioningService {
+
+        private final List<AccessionWrapper<ISubmittedVariant, String, Long>> accessions;
+
+        StubDbsnpAccessioningService(List<AccessionWrapper<ISubmittedVariant, String, Long>> accessions) {
+            super(null, null, new SubmittedVariantSummaryFunction(), new SHA1HashingFunction());
+            this.accessions = accessions;
+        }
+
+        @Override
+        public List<AccessionWrapper<ISubmittedVariant, String, Long>> get(
+                List<? extends ISubmittedVariant> variants) {
+            return new ArrayList<>(accessions);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.ac.ebi.ampt2d.commons.accession.hashing.SHA1HashingFunction;
+
+import uk.ac.ebi.eva.accession.core.ClusteredVariant;
+import uk.ac.ebi.eva.accession.core.IClusteredVariant;
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariant;
+import uk.ac.ebi.eva.accession.core.summary.ClusteredVariantHashingFunction;
+import uk.ac.ebi.eva.accession.core.summary.ClusteredVariantSummaryFunction;
+import uk.ac.ebi.eva.accession.core.summary.SubmittedVariantHashingFunction;
+import uk.ac.ebi.eva.accession.core.summary.SubmittedVariantSummaryFunction;
+import uk.ac.ebi.eva.commons.core.models.VariantType;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Compares the throughput of hashing variants by building the summary string and then applying SHA1HashingFunction,
+ * against the streaming {@link SubmittedVariantHashingFunction} and {@link ClusteredVariantHashingFunction}.
+ *
+ * Run with "-prof gc" to also compare the allocation rate (gc.alloc.rate.norm is the number of bytes allocated per
+ * variant).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VariantHashingBenchmark {
+
+    private static final int NUM_VARIANTS = 1000;
+
+    private ISubmittedVariant[] submittedVariants;
+
+    private IClusteredVariant[] clusteredVariants;
+
+    private Function<ISubmittedVariant, String> submittedVariantSummaryHashingFunction;
+
+    private Function<ISubmittedVariant, String> submittedVariantHashingFunction;
+
+    private Function<IClusteredVariant, String> clusteredVariantSummaryHashingFunction;
+
+    private Function<IClusteredVariant, String> clusteredVariantHashingFunction;
+
+    @Setup
+    public void setUp() {
+        submittedVariants = new ISubmittedVariant[NUM_VARIANTS];
+        clusteredVariants = new IClusteredVariant[NUM_VARIANTS];
+        String[] alleles = {"A", "C", "G", "T", "", "ACGT"};
+        for (int i = 0; i < NUM_VARIANTS; i++) {
+            submittedVariants[i] = new SubmittedVariant("GCA_000001405.27", 9606, "PRJEB" + (i % 50), "chr" + (i % 22),
+                                                        10000000L + i * 37, alleles[i % alleles.length],
+                                                        alleles[(i + 1) % alleles.length], null);
+            clusteredVariants[i] = new ClusteredVariant("GCA_000001405.27", 9606, "chr" + (i % 22), 10000000L + i * 37,
+                                                        VariantType.SNV, null, null);
+        }
+
+        submittedVariantSummaryHashingFunction = new SubmittedVariantSummaryFunction().andThen(
+                new SHA1HashingFunction());
+        submittedVariantHashingFunction = new SubmittedVariantHashingFunction();
+        clusteredVariantSummaryHashingFunction = new ClusteredVariantSummaryFunction().andThen(
+                new SHA1HashingFunction());
+        clusteredVariantHashingFunction = new ClusteredVariantHashingFunction();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_VARIANTS)
+    public void submittedVariantSummaryAndSha1(Blackhole blackhole) {
+        hashAll(submittedVariants, submittedVariantSummaryHashingFunction, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_VARIANTS)
+    public void submittedVariantStreaming(Blackhole blackhole) {
+        hashAll(submittedVariants, submittedVariantHashingFunction, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_VARIANTS)
+    public void clusteredVariantSummaryAndSha1(Blackhole blackhole) {
+        hashAll(clusteredVariants, clusteredVariantSummaryHashingFunction, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_VARIANTS)
+    public void clusteredVariantStreaming(Blackhole blackhole) {
+        hashAll(clusteredVariants, clusteredVariantHashingFunction, blackhole);
+    }
+
+    private static <T> void hashAll(T[] variants, Function<T, String> hashingFunction, Blackhole blackhole) {
+        for (T variant : variants) {
+            blackhole.consume(hashingFunction.apply(variant));
+        }
+    }
+}
@@ -26,11 +26,24 @@ import uk.ac.ebi.ampt2d.commons.accession.core.exceptions.HashAlreadyExistsExcep
 import uk.ac.ebi.ampt2d.commons.accession.core.models.AccessionVersionsWrapper;
 import uk.ac.ebi.ampt2d.commons.accession.core.models.AccessionWrapper;
 
+import uk.ac.ebi.eva.accession.core.bloomfilter.HashBloomFilter;
+import uk.ac.ebi.eva.accession.core.cache.AccessionCache;
 import uk.ac.ebi.eva.accession.core.service.DbsnpSubmittedVariantMonotonicAccessioningService;
 import uk.ac.ebi.eva.accession.core.service.SubmittedVariantMonotonicAccessioningService;
+import uk.ac.ebi.eva.accession.core.summary.SubmittedVariantHashingFunction;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public class SubmittedVariantAccessioningService implements AccessioningService<ISubmittedVariant, String, Long> {
 
@@ -40,36 +53,142 @@ public class SubmittedVariantAccessioningService implements AccessioningService<
 
     private Long accessioningMonotonicInitSs;
 
+    private Function<ISubmittedVariant, String> hashingFunction;
+
+    private Executor lookupExecutor;
+
+    private AccessionCache<ISubmittedVariant> cache;
+
+    private Map<String, HashBloomFilter> dbsnpBloomFilters;
+
     public SubmittedVariantAccessioningService(SubmittedVariantMonotonicAccessioningService accessioningService,
                                                DbsnpSubmittedVariantMonotonicAccessioningService accessioningServiceDbsnp,
                                                Long accessioningMonotonicInitSs) {
+        this(accessioningService, accessioningServiceDbsnp, accessioningMonotonicInitSs, null, null,
+             Collections.emptyMap());
+    }
+
+    /**
+     * @param lookupExecutor If not null, read operations that need to query both the EVA and dbSNP collections will
+     *                       send the dbSNP query through this executor, so both queries run at the same time.
+     * @param cache If not null, {@link #get} and {@link #getOrCreate} will look up the variants in this cache before
+     *              querying the database, and will add to it the accessions retrieved or issued.
+     * @param dbsnpBloomFilters Filters of the hashes present in the dbSNP collection, indexed by assembly accession.
+     *                          {@link #getOrCreate} will only query the dbSNP collection for the variants that might
+     *                          be in their assembly filter. Variants from assemblies without filter are always queried.
+     */
+    public SubmittedVariantAccessioningService(SubmittedVariantMonotonicAccessioningService accessioningService,
+                                               DbsnpSubmittedVariantMonotonicAccessioningService accessioningServiceDbsnp,
+                                               Long accessioningMonotonicInitSs, Executor lookupExecutor,
+                                               AccessionCache<ISubmittedVariant> cache,
+                                               Map<String, HashBloomFilter> dbsnpBloomFilters) {
         this.accessioningService = accessioningService;
         this.accessioningServiceDbsnp = accessioningServiceDbsnp;
         this.accessioningMonotonicInitSs = accessioningMonotonicInitSs;
+        this.hashingFunction = new SubmittedVariantHashingFunction();
+        this.lookupExecutor = lookupExecutor;
+        this.cache = cache;
+        this.dbsnpBloomFilters = dbsnpBloomFilters;
     }
 
     @Override
     public List<AccessionWrapper<ISubmittedVariant, String, Long>> getOrCreate(
             List<? extends ISubmittedVariant> variants)
             throws AccessionCouldNotBeGeneratedException {
-        List<AccessionWrapper<ISubmittedVariant, String, Long>> dbsnpVariants = accessioningServiceDbsnp.get(variants);
+        if (cache == null) {
+            return getOrCreateInRepositories(variants);
+        }
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> cachedAccessions = new ArrayList<>();
+        List<ISubmittedVariant> uncachedVariants = getUncachedVariants(variants, cachedAccessions);
+        if (uncachedVariants.isEmpty()) {
+            return cachedAccessions;
+        }
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> accessions = getOrCreateInRepositories(
+                uncachedVariants);
+        cache.putAll(accessions);
+        return joinLists(accessions, cachedAccessions);
+    }
+
+    /**
+     * Looks up the variants in the cache. Every variant is either added to the returned list, if it's not cached, or
+     * its accession is added to the cachedAccessions argument (only once for repeated variants).
+     */
+    private List<ISubmittedVariant> getUncachedVariants(
+            List<? extends ISubmittedVariant> variants,
+            List<AccessionWrapper<ISubmittedVariant, String, Long>> cachedAccessions) {
+        List<ISubmittedVariant> uncachedVariants = new ArrayList<>();
+        Set<String> cachedHashes = new HashSet<>();
+        for (ISubmittedVariant variant : variants) {
+            String hash = hashingFunction.apply(variant);
+            AccessionWrapper<ISubmittedVariant, String, Long> cachedAccession = cache.get(hash);
+            if (cachedAccession == null) {
+                uncachedVariants.add(variant);
+            } else if (cachedHashes.add(hash)) {
+                cachedAccessions.add(cachedAccession);
+            }
+        }
+        return uncachedVariants;
+    }
+
+    private List<AccessionWrapper<ISubmittedVariant, String, Long>> getOrCreateInRepositories(
+            List<? extends ISubmittedVariant> variants) throws AccessionCouldNotBeGeneratedException {
+        List<? extends ISubmittedVariant> variantsMaybeInDbsnp = getVariantsMaybeInDbsnp(variants);
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> dbsnpVariants;
+        if (variantsMaybeInDbsnp.isEmpty()) {
+            dbsnpVariants = new ArrayList<>();
+        } else {
+            dbsnpVariants = accessioningServiceDbsnp.get(variantsMaybeInDbsnp);
+        }
         List<ISubmittedVariant> variantsNotInDbsnp = removeFromList(variants, dbsnpVariants);
+        if (variantsNotInDbsnp.isEmpty()) {
+            return dbsnpVariants;
+        }
         List<AccessionWrapper<ISubmittedVariant, String, Long>> submittedVariants = accessioningService.getOrCreate(
                 variantsNotInDbsnp);
         return joinLists(submittedVariants, dbsnpVariants);
     }
 
+    /**
+     * Removes the variants that are definitely not in the dbSNP collection according to the bloom filter of their
+     * assembly.
+     */
+    private List<? extends ISubmittedVariant> getVariantsMaybeInDbsnp(List<? extends ISubmittedVariant> variants) {
+        if (dbsnpBloomFilters.isEmpty()) {
+            return variants;
+        }
+        List<ISubmittedVariant> variantsMaybeInDbsnp = new ArrayList<>();
+        for (ISubmittedVariant variant : variants) {
+            HashBloomFilter filter = dbsnpBloomFilters.get(variant.getReferenceSequenceAccession());
+            if (filter == null || filter.mightContain(hashingFunction.apply(variant))) {
+                variantsMaybeInDbsnp.add(variant);
+            }
+        }
+        return variantsMaybeInDbsnp;
+    }
+
+    /**
+     * Returns the variants whose hash is not present in the given accessions. The hashes are indexed in a set first,
+     * so the cost is linear in the number of variants plus the number of accessions, instead of comparing every
+     * variant against every accession.
+     */
     private List<ISubmittedVariant> removeFromList(List<? extends ISubmittedVariant> allVariants,
                                                    List<AccessionWrapper<ISubmittedVariant, String, Long>>
-                                                           vatiantsToDelete) {
-        return allVariants.stream().filter(variant -> !contains(vatiantsToDelete, variant))
-                          .collect(Collectors.toList());
-    }
+                                                           variantsToDelete) {
+        if (variantsToDelete.isEmpty()) {
+            return Collections.unmodifiableList(allVariants);
+        }
+        Set<String> hashesToDelete = new HashSet<>(variantsToDelete.size() * 2);
+        for (AccessionWrapper<ISubmittedVariant, String, Long> accessionWrapper : variantsToDelete) {
+            hashesToDelete.add(accessionWrapper.getHash());
+        }
 
-    private Boolean contains(List<AccessionWrapper<ISubmittedVariant, String, Long>> accessionWrappers,
-                             ISubmittedVariant iSubmittedVariant) {
-        return accessionWrappers.stream().anyMatch(
-                accessionWrapper -> accessionWrapper.getData().equals(iSubmittedVariant));
+        List<ISubmittedVariant> remainingVariants = new ArrayList<>(allVariants.size());
+        for (ISubmittedVariant variant : allVariants) {
+            if (!hashesToDelete.contains(hashingFunction.apply(variant))) {
+                remainingVariants.add(variant);
+            }
+        }
+        return remainingVariants;
     }
 
     private List<AccessionWrapper<ISubmittedVariant, String, Long>> joinLists(
@@ -79,15 +198,106 @@ public class SubmittedVariantAccessioningService implements AccessioningService<
         return l1;
     }
 
+    /**
+     * Joins the accessions found in the EVA and dbSNP collections for the same variants. A hash should only be in one
+     * of them, but if it is in both, only the dbSNP accession is kept, the same one that {@link #getOrCreate} would
+     * return. The dbSNP hashes are indexed in a set, so the cost is linear in the size of both lists.
+     */
+    private List<AccessionWrapper<ISubmittedVariant, String, Long>> joinByHash(
+            List<AccessionWrapper<ISubmittedVariant, String, Long>> accessions,
+            List<AccessionWrapper<ISubmittedVariant, String, Long>> dbsnpAccessions) {
+        if (dbsnpAccessions.isEmpty()) {
+            return accessions;
+        }
+        Set<String> dbsnpHashes = new HashSet<>(dbsnpAccessions.size() * 2);
+        for (AccessionWrapper<ISubmittedVariant, String, Long> accessionWrapper : dbsnpAccessions) {
+            dbsnpHashes.add(accessionWrapper.getHash());
+        }
+
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> joinedAccessions = new ArrayList<>(
+                accessions.size() + dbsnpAccessions.size());
+        for (AccessionWrapper<ISubmittedVariant, String, Long> accessionWrapper : accessions) {
+            if (!dbsnpHashes.contains(accessionWrapper.getHash())) {
+                joinedAccessions.add(accessionWrapper);
+            }
+        }
+        joinedAccessions.addAll(dbsnpAccessions);
+        return joinedAccessions;
+    }
+
+    private List<AccessionWrapper<ISubmittedVariant, String, Long>> getFromBothRepositories(
+            Supplier<List<AccessionWrapper<ISubmittedVariant, String, Long>>> query,
+            Supplier<List<AccessionWrapper<ISubmittedVariant, String, Long>>> dbsnpQuery) {
+        return getFromBothRepositories(query, dbsnpQuery, this::joinLists);
+    }
+
+    private List<AccessionWrapper<ISubmittedVariant, String, Long>> getFromBothRepositories(
+            Supplier<List<AccessionWrapper<ISubmittedVariant, String, Long>>> query,
+            Supplier<List<AccessionWrapper<ISubmittedVariant, String, Long>>> dbsnpQuery,
+            BinaryOperator<List<AccessionWrapper<ISubmittedVariant, String, Long>>> join) {
+        if (lookupExecutor == null) {
+            return join.apply(query.get(), dbsnpQuery.get());
+        }
+
+        CompletableFuture<List<AccessionWrapper<ISubmittedVariant, String, Long>>> dbsnpResults =
+                CompletableFuture.supplyAsync(dbsnpQuery, lookupExecutor);
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> results = query.get();
+        try {
+            return join.apply(results, dbsnpResults.join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
     @Override
     public List<AccessionWrapper<ISubmittedVariant, String, Long>> get(List<? extends ISubmittedVariant> variants) {
-        return joinLists(accessioningService.get(variants), accessioningServiceDbsnp.get(variants));
+        if (cache == null) {
+            return getFromRepositories(variants);
+        }
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> cachedAccessions = new ArrayList<>();
+        List<ISubmittedVariant> uncachedVariants = getUncachedVariants(variants, cachedAccessions);
+        if (uncachedVariants.isEmpty()) {
+            return cachedAccessions;
+        }
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> accessions = getFromRepositories(uncachedVariants);
+        cache.putAll(accessions);
+        return joinLists(accessions, cachedAccessions);
     }
 
+    private List<AccessionWrapper<ISubmittedVariant, String, Long>> getFromRepositories(
+            List<? extends ISubmittedVariant> variants) {
+        return getFromBothRepositories(() -> accessioningService.get(variants),
+                                       () -> accessioningServiceDbsnp.get(variants), this::joinByHash);
+    }
+
+    /**
+     * Accessions are split by {@link #accessioningMonotonicInitSs}, the same way {@link #getByAccessionAndVersion} does
+     * for a single accession, so each collection is only queried for the accessions it can contain, and not at all if
+     * none of the accessions belong to it.
+     */
     @Override
     public List<AccessionWrapper<ISubmittedVariant, String, Long>> getByAccessions(List<Long> accessions) {
-        return joinLists(accessioningService.getByAccessions(accessions),
-                         accessioningServiceDbsnp.getByAccessions(accessions));
+        List<Long> accessionsInEva = new ArrayList<>();
+        List<Long> accessionsInDbsnp = new ArrayList<>();
+        for (Long accession : accessions) {
+            if (accession >= accessioningMonotonicInitSs) {
+                accessionsInEva.add(accession);
+            } else {
+                accessionsInDbsnp.add(accession);
+            }
+        }
+
+        if (accessionsInDbsnp.isEmpty()) {
+            return accessioningService.getByAccessions(accessionsInEva);
+        } else if (accessionsInEva.isEmpty()) {
+            return accessioningServiceDbsnp.getByAccessions(accessionsInDbsnp);
+        } else {
+            return getFromBothRepositories(() -> accessioningService.getByAccessions(accessionsInEva),
+                                           () -> accessioningServiceDbsnp.getByAccessions(accessionsInDbsnp));
+        }
     }
 
     @Override
@@ -102,8 +312,9 @@ public class SubmittedVariantAccessioningService implements AccessioningService<
 
     public List<AccessionWrapper<ISubmittedVariant, String, Long>> getByClusteredVariantAccessionIn(
             List<Long> clusteredVariantAccessions) {
-        return joinLists(accessioningService.getByClusteredVariantAccessions(clusteredVariantAccessions),
-                         accessioningServiceDbsnp.getByClusteredVariantAccessions(clusteredVariantAccessions));
+        return getFromBothRepositories(
+                () -> accessioningService.getByClusteredVariantAccessions(clusteredVariantAccessions),
+                () -> accessioningServiceDbsnp.getByClusteredVariantAccessions(clusteredVariantAccessions));
     }
 
     @Override
@@ -111,22 +322,28 @@ public class SubmittedVariantAccessioningService implements AccessioningService<
                                                                             ISubmittedVariant iSubmittedVariant)
             throws AccessionDoesNotExistException, HashAlreadyExistsException, AccessionDeprecatedException,
             AccessionMergedException {
+        AccessionVersionsWrapper<ISubmittedVariant, String, Long> updatedVariant;
         if (accession >= accessioningMonotonicInitSs) {
-            return accessioningService.update(accession, version, iSubmittedVariant);
+            updatedVariant = accessioningService.update(accession, version, iSubmittedVariant);
         } else {
-            return accessioningServiceDbsnp.update(accession, version, iSubmittedVariant);
+            updatedVariant = accessioningServiceDbsnp.update(accession, version, iSubmittedVariant);
         }
+        invalidateCache();
+        return updatedVariant;
     }
 
     @Override
     public AccessionVersionsWrapper<ISubmittedVariant, String, Long> patch(Long accession, ISubmittedVariant variant)
             throws AccessionDoesNotExistException, HashAlreadyExistsException, AccessionDeprecatedException,
             AccessionMergedException {
+        AccessionVersionsWrapper<ISubmittedVariant, String, Long> patchedVariant;
         if (accession >= accessioningMonotonicInitSs) {
-            return accessioningService.patch(accession, variant);
+            patchedVariant = accessioningService.patch(accession, variant);
         } else {
-            return accessioningServiceDbsnp.patch(accession, variant);
+            patchedVariant = accessioningServiceDbsnp.patch(accession, variant);
         }
+        invalidateCache();
+        return patchedVariant;
     }
 
     @Override
@@ -137,6 +354,7 @@ public class SubmittedVariantAccessioningService implements AccessioningService<
         } else {
             accessioningServiceDbsnp.deprecate(accession, reason);
         }
+        invalidateCache();
     }
 
     @Override
@@ -149,5 +367,16 @@ public class SubmittedVariantAccessioningService implements AccessioningService<
         } else {
             throw new UnsupportedOperationException("Can't merge a submitted variant with a dbsnp submitted variant");
         }
+        invalidateCache();
+    }
+
+    /**
+     * The cache is indexed by hash, so it's not possible to find the entries of a given accession. Operations that
+     * modify accessions are rare, so the whole cache is discarded instead.
+     */
+    private void invalidateCache() {
+        if (cache != null) {
+            cache.clear();
+        }
     }
 }
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.core.bloomfilter;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import uk.ac.ebi.eva.accession.core.persistence.DbsnpSubmittedVariantEntity;
+
+/**
+ * Builds a {@link HashBloomFilter} with the hashes of all the dbSNP submitted variants of an assembly.
+ *
+ * Only the "_id" field (the hash) of each document is retrieved.
+ */
+public class DbsnpSubmittedVariantBloomFilterBuilder {
+
+    private static final Logger logger = LoggerFactory.getLogger(DbsnpSubmittedVariantBloomFilterBuilder.class);
+
+    private static final String ID_FIELD = "_id";
+
+    private static final String ASSEMBLY_FIELD = "seq";
+
+    private static final int LOG_INTERVAL = 10_000_000;
+
+    private MongoTemplate mongoTemplate;
+
+    public DbsnpSubmittedVariantBloomFilterBuilder(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public HashBloomFilter build(String assemblyAccession, double falsePositiveRate) {
+        DBCollection collection = getCollection();
+        DBObject query = new BasicDBObject(ASSEMBLY_FIELD, assemblyAccession);
+
+        long expectedHashes = collection.count(query);
+        logger.info("Building bloom filter for {} dbSNP submitted variants in assembly {}", expectedHashes,
+                    assemblyAccession);
+        HashBloomFilter filter = HashBloomFilter.create(assemblyAccession, expectedHashes, falsePositiveRate);
+
+        try (DBCursor cursor = collection.find(query, new BasicDBObject(ID_FIELD, 1))) {
+            while (cursor.hasNext()) {
+                filter.put((String) cursor.next().get(ID_FIELD));
+                if (filter.getNumHashes() % LOG_INTERVAL == 0) {
+                    logger.info("{} hashes added to the bloom filter", filter.getNumHashes());
+                }
+            }
+        }
+        logger.info("Bloom filter built: {}, expected false positive rate = {}", filter,
+                    filter.getExpectedFalsePositiveRate());
+        return filter;
+    }
+
+    /**
+     * @return Number of dbSNP submitted variants currently stored for the assembly, which is the number of hashes a
+     * filter built now would contain
+     */
+    public long countHashes(String assemblyAccession) {
+        return getCollection().count(new BasicDBObject(ASSEMBLY_FIELD, assemblyAccession));
+    }
+
+    private DBCollection getCollection() {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(DbsnpSubmittedVariantEntity.class));
+    }
+}
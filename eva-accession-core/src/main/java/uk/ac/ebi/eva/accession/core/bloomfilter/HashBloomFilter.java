@@ -0,0 +1,246 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.core.bloomfilter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bloom filter of the variant hashes stored for an assembly. If {@link #mightContain(String)} returns false, the hash
+ * is definitely not in the set the filter was built from, so the database doesn't need to be queried for it.
+ *
+ * The hashes are expected to be SHA1 hex strings like the ones generated by the accessioning services. As they are
+ * uniformly distributed already, the bit positions are derived directly from their first 32 hex digits using double
+ * hashing, without rehashing the string.
+ *
+ * Filters can be written to and read from a local file, so they can be built once after an import and loaded when an
+ * application starts.
+ */
+public class HashBloomFilter {
+
+    public static final String FILE_EXTENSION = ".bloom";
+
+    private static final int MAGIC_NUMBER = 0x45564142;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int HEX_DIGITS_PER_LONG = 16;
+
+    private final String assemblyAccession;
+
+    private final long numBits;
+
+    private final int numHashFunctions;
+
+    private final long[] bits;
+
+    private long numHashes;
+
+    private HashBloomFilter(String assemblyAccession, long numBits, int numHashFunctions, long[] bits,
+                            long numHashes) {
+        this.assemblyAccession = assemblyAccession;
+        this.numBits = numBits;
+        this.numHashFunctions = numHashFunctions;
+        this.bits = bits;
+        this.numHashes = numHashes;
+    }
+
+    /**
+     * Creates an empty filter sized so that, once expectedHashes hashes have been added, the probability of
+     * {@link #mightContain(String)} returning true for a hash not added is falsePositiveRate.
+     */
+    public static HashBloomFilter create(String assemblyAccession, long expectedHashes, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("The false positive rate must be between 0 and 1 (exclusive)");
+        }
+        long hashes = Math.max(expectedHashes, 1);
+        long numBits = (long) Math.ceil(-hashes * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        long numWords = (numBits + Long.SIZE - 1) / Long.SIZE;
+        if (numWords > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException(
+                    "A filter for " + expectedHashes + " hashes with a false positive rate of " + falsePositiveRate +
+                            " is too large");
+        }
+        int numHashFunctions = Math.max(1, (int) Math.round((double) numBits / hashes * Math.log(2)));
+        return new HashBloomFilter(assemblyAccession, numWords * Long.SIZE, numHashFunctions, new long[(int) numWords],
+                                   0);
+    }
+
+    public void put(String hash) {
+        long hash1 = getFirstHalf(hash);
+        long hash2 = getSecondHalf(hash);
+        for (int i = 0; i < numHashFunctions; i++) {
+            long bit = ((hash1 + i * hash2) & Long.MAX_VALUE) % numBits;
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+        numHashes++;
+    }
+
+    public boolean mightContain(String hash) {
+        long hash1 = getFirstHalf(hash);
+        long hash2 = getSecondHalf(hash);
+        for (int i = 0; i < numHashFunctions; i++) {
+            long bit = ((hash1 + i * hash2) & Long.MAX_VALUE) % numBits;
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long getFirstHalf(String hash) {
+        return parseHexDigits(hash, 0);
+    }
+
+    private static long getSecondHalf(String hash) {
+        return parseHexDigits(hash, HEX_DIGITS_PER_LONG);
+    }
+
+    /**
+     * Reads 16 hex digits as a long. If the hash is not long enough or contains other characters, the digits can't be
+     * used directly, and the String hash code is mixed instead.
+     */
+    private static long parseHexDigits(String hash, int offset) {
+        if (hash.length() >= offset + HEX_DIGITS_PER_LONG) {
+            long value = 0;
+            for (int i = offset; i < offset + HEX_DIGITS_PER_LONG; i++) {
+                int digit = Character.digit(hash.charAt(i), 16);
+                if (digit < 0) {
+                    return mix(hash.hashCode() + offset);
+                }
+                value = (value << 4) | digit;
+            }
+            return value;
+        }
+        return mix(hash.hashCode() + offset);
+    }
+
+    /**
+     * Finalization step of MurmurHash3, which spreads the bits of an int across a long.
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    public String getAssemblyAccession() {
+        return assemblyAccession;
+    }
+
+    public long getNumBits() {
+        return numBits;
+    }
+
+    public int getNumHashFunctions() {
+        return numHashFunctions;
+    }
+
+    public long getNumHashes() {
+        return numHashes;
+    }
+
+    /**
+     * @return The false positive rate expected with the number of hashes added so far
+     */
+    public double getExpectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-numHashFunctions * (double) numHashes / numBits), numHashFunctions);
+    }
+
+    public static Path getFilePath(Path directory, String assemblyAccession) {
+        return directory.resolve(assemblyAccession + FILE_EXTENSION);
+    }
+
+    /**
+     * Writes the filter to a temporary file that is then moved to the final path, so that an application starting
+     * while the filter is being rebuilt doesn't read an incomplete file.
+     */
+    public void writeTo(Path path) throws IOException {
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temporaryPath)))) {
+            output.writeInt(MAGIC_NUMBER);
+            output.writeInt(FORMAT_VERSION);
+            output.writeUTF(assemblyAccession);
+            output.writeLong(numBits);
+            output.writeInt(numHashFunctions);
+            output.writeLong(numHashes);
+            for (long word : bits) {
+                output.writeLong(word);
+            }
+        }
+        Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static HashBloomFilter readFrom(Path path) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (input.readInt() != MAGIC_NUMBER) {
+                throw new IOException("File " + path + " is not a hash bloom filter");
+            }
+            int formatVersion = input.readInt();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException("Unsupported version " + formatVersion + " of hash bloom filter in " + path);
+            }
+            String assemblyAccession = input.readUTF();
+            long numBits = input.readLong();
+            int numHashFunctions = input.readInt();
+            long numHashes = input.readLong();
+            long[] bits = new long[(int) (numBits / Long.SIZE)];
+            for (int i = 0; i < bits.length; i++) {
+                bits[i] = input.readLong();
+            }
+            return new HashBloomFilter(assemblyAccession, numBits, numHashFunctions, bits, numHashes);
+        }
+    }
+
+    /**
+     * Reads all the filters found in a directory
+     *
+     * @return The filters indexed by assembly accession
+     */
+    public static Map<String, HashBloomFilter> readAll(Path directory) throws IOException {
+        Map<String, HashBloomFilter> filters = new HashMap<>();
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, "*" + FILE_EXTENSION)) {
+            for (Path path : paths) {
+                HashBloomFilter filter = readFrom(path);
+                filters.put(filter.getAssemblyAccession(), filter);
+            }
+        }
+        return filters;
+    }
+
+    @Override
+    public String toString() {
+        return "HashBloomFilter{" +
+                "assemblyAccession='" + assemblyAccession + '\'' +
+                ", numBits=" + numBits +
+                ", numHashFunctions=" + numHashFunctions +
+                ", numHashes=" + numHashes +
+                '}';
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.core.cache;
+
+import uk.ac.ebi.ampt2d.commons.accession.core.models.AccessionWrapper;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-bounded cache of accessioned objects indexed by their hash. When the maximum size is reached, the least
+ * recently used entry is evicted.
+ *
+ * The whole {@link AccessionWrapper} is kept (and not only the accession and version) because the callers of the
+ * accessioning services read the object as stored in the database.
+ *
+ * All operations are synchronized, so a single instance can be shared by several threads.
+ */
+public class AccessionCache<MODEL> {
+
+    private final int maxSize;
+
+    private final Map<String, AccessionWrapper<MODEL, String, Long>> accessionsByHash;
+
+    private final AtomicLong hits;
+
+    private final AtomicLong misses;
+
+    private final AtomicLong evictions;
+
+    public AccessionCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("The maximum size of the cache must be a positive number");
+        }
+        this.maxSize = maxSize;
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+        this.evictions = new AtomicLong();
+        this.accessionsByHash = new LinkedHashMap<String, AccessionWrapper<MODEL, String, Long>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, AccessionWrapper<MODEL, String, Long>> eldest) {
+                if (size() > AccessionCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return The cached object with the given hash, or null if it is not cached
+     */
+    public synchronized AccessionWrapper<MODEL, String, Long> get(String hash) {
+        AccessionWrapper<MODEL, String, Long> accessionWrapper = accessionsByHash.get(hash);
+        if (accessionWrapper == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return accessionWrapper;
+    }
+
+    public synchronized void putAll(Collection<AccessionWrapper<MODEL, String, Long>> accessionWrappers) {
+        for (AccessionWrapper<MODEL, String, Long> accessionWrapper : accessionWrappers) {
+            accessionsByHash.put(accessionWrapper.getHash(), accessionWrapper);
+        }
+    }
+
+    public synchronized void clear() {
+        accessionsByHash.clear();
+    }
+
+    public synchronized int size() {
+        return accessionsByHash.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return "AccessionCache{" +
+                "size=" + size() +
+                ", maxSize=" + maxSize +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                '}';
+    }
+}
@@ -22,6 +22,7 @@ import com.mongodb.ReadPreference;
 import com.mongodb.WriteConcern;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.data.mongo.MongoDataAutoConfiguration;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.autoconfigure.mongo.MongoProperties;
@@ -36,6 +37,8 @@ import org.springframework.data.mongodb.core.convert.DefaultMongoTypeMapper;
 import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
 
+import uk.ac.ebi.eva.accession.core.metrics.MongoCommandMetrics;
+
 import java.net.UnknownHostException;
 
 @Configuration
@@ -48,6 +51,21 @@ public class MongoConfiguration {
     @Value("${mongodb.read-preference}")
     private String readPreference;
 
+    @Value("${mongodb.metrics.enabled:false}")
+    private boolean metricsEnabled;
+
+    @Value("${mongodb.metrics.slow-command-millis:1000}")
+    private long slowCommandMillis;
+
+    @Value("${mongodb.metrics.summary-interval-seconds:600}")
+    private long metricsSummaryIntervalSeconds;
+
+    @Bean(destroyMethod = "logSummary")
+    @ConditionalOnProperty(name = "mongodb.metrics.enabled", havingValue = "true")
+    public MongoCommandMetrics mongoCommandMetrics() {
+        return new MongoCommandMetrics(slowCommandMillis, metricsSummaryIntervalSeconds);
+    }
+
     @Bean
     public MongoClient mongoClient(MongoProperties properties, ObjectProvider<MongoClientOptions> options,
                                    Environment environment) throws UnknownHostException {
@@ -58,9 +76,12 @@ public class MongoConfiguration {
         } else {
             mongoClientOptionsBuilder = new MongoClientOptions.Builder();
         }
-        mongoClientOptions = mongoClientOptionsBuilder.readPreference(ReadPreference.valueOf(readPreference))
-                                                      .writeConcern(WriteConcern.MAJORITY)
-                                                      .build();
+        mongoClientOptionsBuilder.readPreference(ReadPreference.valueOf(readPreference))
+                                 .writeConcern(WriteConcern.MAJORITY);
+        if (metricsEnabled) {
+            mongoClientOptionsBuilder.addCommandListener(mongoCommandMetrics());
+        }
+        mongoClientOptions = mongoClientOptionsBuilder.build();
         return properties.createMongoClient(mongoClientOptions, environment);
     }
 
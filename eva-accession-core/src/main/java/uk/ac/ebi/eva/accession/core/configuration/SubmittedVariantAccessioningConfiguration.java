@@ -21,9 +21,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.util.CustomizableThreadFactory;
 import uk.ac.ebi.ampt2d.commons.accession.autoconfigure.EnableSpringDataContiguousIdService;
 import uk.ac.ebi.ampt2d.commons.accession.generators.monotonic.MonotonicAccessionGenerator;
 import uk.ac.ebi.ampt2d.commons.accession.hashing.SHA1HashingFunction;
@@ -31,6 +34,9 @@ import uk.ac.ebi.ampt2d.commons.accession.persistence.jpa.monotonic.service.Cont
 
 import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
 import uk.ac.ebi.eva.accession.core.SubmittedVariantAccessioningService;
+import uk.ac.ebi.eva.accession.core.bloomfilter.DbsnpSubmittedVariantBloomFilterBuilder;
+import uk.ac.ebi.eva.accession.core.bloomfilter.HashBloomFilter;
+import uk.ac.ebi.eva.accession.core.cache.AccessionCache;
 import uk.ac.ebi.eva.accession.core.persistence.DbsnpMonotonicAccessionGenerator;
 import uk.ac.ebi.eva.accession.core.persistence.DbsnpSubmittedVariantAccessioningDatabaseService;
 import uk.ac.ebi.eva.accession.core.persistence.DbsnpSubmittedVariantAccessioningRepository;
@@ -48,6 +54,15 @@ import uk.ac.ebi.eva.accession.core.service.SubmittedVariantInactiveService;
 import uk.ac.ebi.eva.accession.core.service.SubmittedVariantMonotonicAccessioningService;
 import uk.ac.ebi.eva.accession.core.summary.SubmittedVariantSummaryFunction;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 @Configuration
 @EnableSpringDataContiguousIdService
 @Import({ApplicationPropertiesConfiguration.class, MongoConfiguration.class})
@@ -79,16 +94,40 @@ public class SubmittedVariantAccessioningConfiguration {
     @Autowired
     private ApplicationProperties applicationProperties;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     @Value("${accessioning.submitted.categoryId}")
     private String categoryId;
 
+    /**
+     * Number of threads used to query the dbSNP collection while the EVA collection is being queried. If zero, both
+     * collections are queried one after the other in the calling thread.
+     */
+    @Value("${accessioning.submitted.lookupThreads:0}")
+    private int lookupThreads;
+
+    /**
+     * Maximum number of submitted variant accessions kept in memory, indexed by hash. If zero, no cache is used.
+     */
+    @Value("${accessioning.submitted.cacheSize:0}")
+    private int cacheSize;
+
+    /**
+     * Directory with the bloom filters of the dbSNP submitted variant hashes, one file per assembly. If empty, the
+     * dbSNP collection is always queried. The filters must be rebuilt after every dbSNP import, see
+     * {@link #loadDbsnpBloomFilters()} for how stale filters are detected.
+     */
+    @Value("${accessioning.submitted.dbsnpBloomFilterDirectory:}")
+    private String dbsnpBloomFilterDirectory;
+
     @Bean
     public Long accessioningMonotonicInitSs() {
         return service.getBlockParameters(categoryId).getBlockStartValue();
     }
 
     @Bean
-    public SubmittedVariantAccessioningService submittedVariantAccessioningService() {
+    public SubmittedVariantAccessioningService submittedVariantAccessioningService() throws IOException {
         SubmittedVariantMonotonicAccessioningService submittedVariantMonotonicAccessioningService =
                 new SubmittedVariantMonotonicAccessioningService(submittedVariantAccessionGenerator(),
                                                                  submittedVariantAccessioningDatabaseService(),
@@ -101,7 +140,59 @@ public class SubmittedVariantAccessioningConfiguration {
                                                                       new SHA1HashingFunction());
         return new SubmittedVariantAccessioningService(submittedVariantMonotonicAccessioningService,
                                                        dbsnpSubmittedVariantMonotonicAccessioningService,
-                                                       accessioningMonotonicInitSs());
+                                                       accessioningMonotonicInitSs(),
+                                                       lookupThreads > 0 ? submittedVariantLookupExecutor() : null,
+                                                       cacheSize > 0 ? submittedVariantAccessionCache() : null,
+                                                       loadDbsnpBloomFilters());
+    }
+
+    /**
+     * A filter is stale if its assembly has more dbSNP submitted variants in the database than the filter has hashes,
+     * because it would report the variants imported after it was built as missing. Stale filters are ignored, and
+     * the dbSNP collection is always queried for their assemblies. If the assembly has fewer variants than the
+     * filter, it is still used, because it can only answer "maybe" more often than needed.
+     *
+     * Only the number of variants is compared, so a filter built before an import that removed as many variants as
+     * it added is not detected as stale.
+     */
+    private Map<String, HashBloomFilter> loadDbsnpBloomFilters() throws IOException {
+        if (dbsnpBloomFilterDirectory.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Path directory = Paths.get(dbsnpBloomFilterDirectory);
+        Map<String, HashBloomFilter> filters = HashBloomFilter.readAll(directory);
+        DbsnpSubmittedVariantBloomFilterBuilder builder = new DbsnpSubmittedVariantBloomFilterBuilder(mongoTemplate);
+        Iterator<HashBloomFilter> iterator = filters.values().iterator();
+        while (iterator.hasNext()) {
+            HashBloomFilter filter = iterator.next();
+            long variantsInDatabase = builder.countHashes(filter.getAssemblyAccession());
+            if (variantsInDatabase > filter.getNumHashes()) {
+                logger.warn("Ignoring stale dbSNP submitted variants bloom filter {}, the database has {} variants " +
+                                    "for its assembly", filter, variantsInDatabase);
+                iterator.remove();
+            } else {
+                if (variantsInDatabase < filter.getNumHashes()) {
+                    logger.warn("dbSNP submitted variants bloom filter {} has more hashes than the {} variants in " +
+                                        "the database for its assembly", filter, variantsInDatabase);
+                }
+                logger.info("Loaded dbSNP submitted variants bloom filter: {}", filter);
+            }
+        }
+        return filters;
+    }
+
+    @Bean
+    @ConditionalOnExpression("${accessioning.submitted.cacheSize:0} > 0")
+    public AccessionCache<ISubmittedVariant> submittedVariantAccessionCache() {
+        return new AccessionCache<>(cacheSize);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnExpression("${accessioning.submitted.lookupThreads:0} > 0")
+    public ExecutorService submittedVariantLookupExecutor() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("submitted-variant-lookup-");
+        threadFactory.setDaemon(true);
+        return Executors.newFixedThreadPool(lookupThreads, threadFactory);
     }
 
     @Bean
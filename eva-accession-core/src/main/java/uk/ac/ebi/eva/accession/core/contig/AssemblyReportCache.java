@@ -0,0 +1,319 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.contig;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.UrlResource;
+import org.springframework.util.StreamUtils;
+
+import uk.ac.ebi.eva.accession.core.io.AssemblyReportReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps the contig synonyms parsed from assembly reports in a local directory, so that jobs using the same report
+ * don't need to download and parse it again.
+ *
+ * Every report is stored in a binary file named after the SHA1 of its URL, which also contains the SHA1 of the report
+ * contents, the size and last modification date of the remote file when it was downloaded, and a checksum of the
+ * whole cache file. A cached report is used when:
+ * - the cache works offline, so the remote file is never checked, or
+ * - the size and modification date of the remote file match the ones stored, or can't be retrieved (FTP servers
+ * usually don't provide them, and the reports of versioned assembly accessions don't change), or
+ * - the remote file can't be reached.
+ *
+ * Cache files that are corrupted or have a different format version are ignored and, if not working offline, rebuilt.
+ */
+public class AssemblyReportCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(AssemblyReportCache.class);
+
+    public static final String FILE_EXTENSION = ".contigs";
+
+    private static final int MAGIC_NUMBER = 0x45564143;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int CHECKSUM_BYTES = Long.BYTES;
+
+    private static final long UNKNOWN = -1;
+
+    private final Path cacheDirectory;
+
+    private final boolean offline;
+
+    public AssemblyReportCache(Path cacheDirectory, boolean offline) {
+        this.cacheDirectory = cacheDirectory;
+        this.offline = offline;
+    }
+
+    public ContigMapping getContigMapping(String assemblyReportUrl) throws Exception {
+        return new ContigMapping(getContigSynonyms(assemblyReportUrl));
+    }
+
+    /**
+     * @return All the rows of the assembly report, as returned by {@link AssemblyReportReader}
+     * @throws IllegalStateException if the cache is offline and doesn't contain a valid copy of the report
+     */
+    public List<ContigSynonyms> getContigSynonyms(String assemblyReportUrl) throws Exception {
+        Path cachePath = getFilePath(assemblyReportUrl);
+        CachedReport cachedReport = readFrom(cachePath, assemblyReportUrl);
+        if (offline) {
+            if (cachedReport == null) {
+                throw new IllegalStateException(
+                        "Assembly report " + assemblyReportUrl + " is not available in the cache " + cacheDirectory +
+                                " and the cache is offline");
+            }
+            logger.info("Assembly report {} loaded from cache {}", assemblyReportUrl, cachePath);
+            return cachedReport.contigSynonyms;
+        }
+
+        UrlResource resource = AssemblyReportReader.createResource(assemblyReportUrl);
+        if (cachedReport != null) {
+            try {
+                if (isUpToDate(cachedReport, resource)) {
+                    logger.info("Assembly report {} loaded from cache {}", assemblyReportUrl, cachePath);
+                    return cachedReport.contigSynonyms;
+                }
+                logger.info("Assembly report {} was modified after being cached, downloading it again",
+                            assemblyReportUrl);
+            } catch (IOException e) {
+                logger.warn("Assembly report {} could not be checked, using the copy in cache {}: {}",
+                            assemblyReportUrl, cachePath, e.getMessage());
+                return cachedReport.contigSynonyms;
+            }
+        }
+
+        CachedReport downloadedReport = download(assemblyReportUrl, resource);
+        writeTo(cachePath, downloadedReport);
+        logger.info("Assembly report {} (SHA1 {}) stored in cache {}", assemblyReportUrl,
+                    downloadedReport.contentSha1, cachePath);
+        return downloadedReport.contigSynonyms;
+    }
+
+    public Path getFilePath(String assemblyReportUrl) {
+        return cacheDirectory.resolve(sha1(assemblyReportUrl.getBytes(StandardCharsets.UTF_8)) + FILE_EXTENSION);
+    }
+
+    private boolean isUpToDate(CachedReport cachedReport, UrlResource resource) throws IOException {
+        long lastModified = getLastModified(resource);
+        long contentLength = getContentLength(resource);
+        return (lastModified == UNKNOWN || cachedReport.lastModified == UNKNOWN
+                || lastModified == cachedReport.lastModified)
+                && (contentLength == UNKNOWN || cachedReport.contentLength == UNKNOWN
+                || contentLength == cachedReport.contentLength);
+    }
+
+    private static long getLastModified(UrlResource resource) throws IOException {
+        long lastModified = resource.lastModified();
+        return lastModified > 0 ? lastModified : UNKNOWN;
+    }
+
+    private static long getContentLength(UrlResource resource) throws IOException {
+        long contentLength = resource.contentLength();
+        return contentLength >= 0 ? contentLength : UNKNOWN;
+    }
+
+    /**
+     * The metadata is retrieved before the contents so that, if the remote file changes while it's being downloaded,
+     * the copy in cache is considered out of date next time
+     */
+    private CachedReport download(String assemblyReportUrl, UrlResource resource) throws Exception {
+        long lastModified = getLastModifiedIfAvailable(resource);
+        long contentLength = getContentLengthIfAvailable(resource);
+        byte[] content;
+        try (InputStream input = resource.getInputStream()) {
+            content = StreamUtils.copyToByteArray(input);
+        }
+
+        AssemblyReportReader reader = new AssemblyReportReader(new ByteArrayResource(content));
+        List<ContigSynonyms> contigSynonyms = new ArrayList<>();
+        ContigSynonyms row;
+        while ((row = reader.read()) != null) {
+            contigSynonyms.add(row);
+        }
+        return new CachedReport(assemblyReportUrl, lastModified, contentLength, sha1(content), contigSynonyms);
+    }
+
+    private static long getLastModifiedIfAvailable(UrlResource resource) {
+        try {
+            return getLastModified(resource);
+        } catch (IOException e) {
+            return UNKNOWN;
+        }
+    }
+
+    private static long getContentLengthIfAvailable(UrlResource resource) {
+        try {
+            return getContentLength(resource);
+        } catch (IOException e) {
+            return UNKNOWN;
+        }
+    }
+
+    private static String sha1(byte[] bytes) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-1").digest(bytes)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Writes the report to a temporary file that is then moved to the final path, so that a job starting while
+     * another one is writing the same report doesn't read an incomplete file.
+     */
+    private void writeTo(Path path, CachedReport report) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeInt(MAGIC_NUMBER);
+            output.writeInt(FORMAT_VERSION);
+            output.writeUTF(report.url);
+            output.writeLong(report.lastModified);
+            output.writeLong(report.contentLength);
+            output.writeUTF(report.contentSha1);
+            output.writeInt(report.contigSynonyms.size());
+            for (ContigSynonyms contigSynonyms : report.contigSynonyms) {
+                writeNullableString(output, contigSynonyms.getSequenceName());
+                writeNullableString(output, contigSynonyms.getSequenceRole());
+                writeNullableString(output, contigSynonyms.getAssignedMolecule());
+                writeNullableString(output, contigSynonyms.getGenBank());
+                writeNullableString(output, contigSynonyms.getRefSeq());
+                writeNullableString(output, contigSynonyms.getUcsc());
+                output.writeBoolean(contigSynonyms.isIdenticalGenBankAndRefSeq());
+            }
+            CRC32 checksum = new CRC32();
+            checksum.update(bytes.toByteArray());
+            output.writeLong(checksum.getValue());
+        }
+
+        Files.createDirectories(cacheDirectory);
+        Path temporaryPath = Files.createTempFile(cacheDirectory, path.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporaryPath, bytes.toByteArray());
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+    }
+
+    private static void writeNullableString(DataOutputStream output, String value) throws IOException {
+        output.writeBoolean(value != null);
+        if (value != null) {
+            output.writeUTF(value);
+        }
+    }
+
+    /**
+     * @return The cached report, or null if there is no valid copy of the report in the cache
+     */
+    private CachedReport readFrom(Path path, String assemblyReportUrl) {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            byte[] bytes = Files.readAllBytes(path);
+            if (bytes.length < CHECKSUM_BYTES) {
+                throw new IOException("File is too short");
+            }
+            CRC32 checksum = new CRC32();
+            checksum.update(bytes, 0, bytes.length - CHECKSUM_BYTES);
+            try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes))) {
+                if (input.readInt() != MAGIC_NUMBER) {
+                    throw new IOException("File is not an assembly report cache");
+                }
+                int formatVersion = input.readInt();
+                if (formatVersion != FORMAT_VERSION) {
+                    throw new IOException("Unsupported version " + formatVersion);
+                }
+                input.skipBytes(bytes.length - CHECKSUM_BYTES - 2 * Integer.BYTES);
+                if (input.readLong() != checksum.getValue()) {
+                    throw new IOException("Checksum doesn't match");
+                }
+            }
+            try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes))) {
+                input.skipBytes(2 * Integer.BYTES);
+                String url = input.readUTF();
+                if (!url.equals(assemblyReportUrl)) {
+                    throw new IOException("File contains the report " + url);
+                }
+                long lastModified = input.readLong();
+                long contentLength = input.readLong();
+                String contentSha1 = input.readUTF();
+                int numContigs = input.readInt();
+                List<ContigSynonyms> contigSynonyms = new ArrayList<>(numContigs);
+                for (int i = 0; i < numContigs; i++) {
+                    contigSynonyms.add(new ContigSynonyms(readNullableString(input), readNullableString(input),
+                                                          readNullableString(input), readNullableString(input),
+                                                          readNullableString(input), readNullableString(input),
+                                                          input.readBoolean()));
+                }
+                return new CachedReport(url, lastModified, contentLength, contentSha1, contigSynonyms);
+            }
+        } catch (IOException e) {
+            logger.warn("Ignoring invalid assembly report cache file {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    private static String readNullableString(DataInputStream input) throws IOException {
+        return input.readBoolean() ? input.readUTF() : null;
+    }
+
+    private static class CachedReport {
+
+        private final String url;
+
+        private final long lastModified;
+
+        private final long contentLength;
+
+        private final String contentSha1;
+
+        private final List<ContigSynonyms> contigSynonyms;
+
+        CachedReport(String url, long lastModified, long contentLength, String contentSha1,
+                     List<ContigSynonyms> contigSynonyms) {
+            this.url = url;
+            this.lastModified = lastModified;
+            this.contentLength = contentLength;
+            this.contentSha1 = contentSha1;
+            this.contigSynonyms = contigSynonyms;
+        }
+    }
+}
@@ -19,25 +19,50 @@ package uk.ac.ebi.eva.accession.core.contig;
 
 import uk.ac.ebi.eva.accession.core.io.AssemblyReportReader;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
+/**
+ * Finds the row of the assembly report where a contig appears, whatever naming convention it uses.
+ *
+ * All the names are kept in a single open addressing table that stores, for every name, the position of its row and
+ * the conventions where it appears, so a lookup is a single probe sequence instead of a search in every convention.
+ * If a name appears in several rows, the row is chosen by convention in the order RefSeq, GenBank, assigned molecule,
+ * sequence name and UCSC, and the last row of that convention. Every distinct name is stored only once, and the
+ * {@link ContigSynonyms} returned reference that same String instance.
+ */
 public class ContigMapping {
 
     private static final String ASSEMBLED_MOLECULE = "assembled-molecule";
 
     private static final String NOT_AVAILABLE = "na";
 
-    Map<String, ContigSynonyms> sequenceNameToSynonyms = new HashMap<>();
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Naming conventions, in the order of preference used when a name appears in several of them
+     */
+    enum NamingConvention {
+        REFSEQ,
+        GENBANK,
+        ASSIGNED_MOLECULE,
+        SEQUENCE_NAME,
+        UCSC
+    }
 
-    Map<String, ContigSynonyms> assignedMoleculeToSynonyms = new HashMap<>();
+    private static final NamingConvention[] NAMING_CONVENTIONS = NamingConvention.values();
 
-    Map<String, ContigSynonyms> genBankToSynonyms = new HashMap<>();
+    private final List<ContigSynonyms> rows = new ArrayList<>();
 
-    Map<String, ContigSynonyms> refSeqToSynonyms = new HashMap<>();
+    private String[] names = new String[INITIAL_CAPACITY];
 
-    Map<String, ContigSynonyms> ucscToSynonyms = new HashMap<>();
+    private int[] rowIndexes = new int[INITIAL_CAPACITY];
+
+    private byte[] conventions = new byte[INITIAL_CAPACITY];
+
+    private int size;
 
     public ContigMapping(String assemblyReportUrl) throws Exception {
         this(new AssemblyReportReader(assemblyReportUrl));
@@ -59,7 +84,7 @@ public class ContigMapping {
     }
 
     /**
-     * Adds an entry to every map, where the key is a name, and the value is the row where it appears.
+     * Adds every name of a row to the table, where the value is the row where it appears.
      *
      * Take into account:
      * - UCSC and assignedMolecule columns may appear as "na" (not available).
@@ -69,20 +94,22 @@ public class ContigMapping {
     private void fillContigConventionMaps(ContigSynonyms contigSynonyms) {
         normalizeNames(contigSynonyms);
 
-        sequenceNameToSynonyms.put(contigSynonyms.getSequenceName(), contigSynonyms);
+        int row = rows.size();
+        rows.add(contigSynonyms);
+        contigSynonyms.setSequenceName(put(contigSynonyms.getSequenceName(), NamingConvention.SEQUENCE_NAME, row));
         if (contigSynonyms.getAssignedMolecule() != null) {
-            assignedMoleculeToSynonyms.put(contigSynonyms.getAssignedMolecule(), contigSynonyms);
+            contigSynonyms.setAssignedMolecule(
+                    put(contigSynonyms.getAssignedMolecule(), NamingConvention.ASSIGNED_MOLECULE, row));
         }
         if (contigSynonyms.getGenBank() != null) {
-            genBankToSynonyms.put(contigSynonyms.getGenBank(), contigSynonyms);
+            contigSynonyms.setGenBank(put(contigSynonyms.getGenBank(), NamingConvention.GENBANK, row));
         }
         if (contigSynonyms.getRefSeq() != null) {
-            refSeqToSynonyms.put(contigSynonyms.getRefSeq(), contigSynonyms);
+            contigSynonyms.setRefSeq(put(contigSynonyms.getRefSeq(), NamingConvention.REFSEQ, row));
         }
         if (contigSynonyms.getUcsc() != null) {
-            ucscToSynonyms.put(contigSynonyms.getUcsc(), contigSynonyms);
+            contigSynonyms.setUcsc(put(contigSynonyms.getUcsc(), NamingConvention.UCSC, row));
         }
-
     }
 
     private void normalizeNames(ContigSynonyms contigSynonyms) {
@@ -101,23 +128,109 @@ public class ContigMapping {
         }
     }
 
-    public ContigSynonyms getContigSynonyms(String contig) {
-        ContigSynonyms contigSynonyms;
-        if ((contigSynonyms = refSeqToSynonyms.get(contig)) != null) {
-            return contigSynonyms;
+    /**
+     * @return The instance of the name stored in the table, which is the one received if the name was not present
+     */
+    private String put(String name, NamingConvention convention, int row) {
+        if ((size + 1) * 2 > names.length) {
+            resize();
+        }
+        int slot = findSlot(names, name);
+        byte conventionBit = (byte) (1 << convention.ordinal());
+        if (names[slot] == null) {
+            names[slot] = name;
+            rowIndexes[slot] = row;
+            conventions[slot] = conventionBit;
+            size++;
+            return name;
         }
-        if ((contigSynonyms = genBankToSynonyms.get(contig)) != null) {
-            return contigSynonyms;
+        if (conventionBit <= Integer.lowestOneBit(conventions[slot])) {
+            rowIndexes[slot] = row;
         }
-        if ((contigSynonyms = assignedMoleculeToSynonyms.get(contig)) != null) {
-            return contigSynonyms;
+        conventions[slot] |= conventionBit;
+        return names[slot];
+    }
+
+    private void resize() {
+        String[] oldNames = names;
+        int[] oldRowIndexes = rowIndexes;
+        byte[] oldConventions = conventions;
+        names = new String[oldNames.length * 2];
+        rowIndexes = new int[names.length];
+        conventions = new byte[names.length];
+        for (int i = 0; i < oldNames.length; i++) {
+            if (oldNames[i] != null) {
+                int slot = findSlot(names, oldNames[i]);
+                names[slot] = oldNames[i];
+                rowIndexes[slot] = oldRowIndexes[i];
+                conventions[slot] = oldConventions[i];
+            }
         }
-        if ((contigSynonyms = sequenceNameToSynonyms.get(contig)) != null) {
-            return contigSynonyms;
+    }
+
+    /**
+     * Linear probing from the position given by the hash of the name. The table is never more than half full, so
+     * there is always an empty slot where the probing ends if the name is not present.
+     *
+     * @return The slot that contains the name, or the empty slot where it should be added
+     */
+    private static int findSlot(String[] table, String name) {
+        int mask = table.length - 1;
+        int hash = name.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (table[slot] != null && !table[slot].equals(name)) {
+            slot = (slot + 1) & mask;
         }
-        if ((contigSynonyms = ucscToSynonyms.get(contig)) != null) {
-            return contigSynonyms;
+        return slot;
+    }
+
+    /**
+     * @return The synonyms of the given contig, or null if it doesn't appear in the assembly report or is null
+     */
+    public ContigSynonyms getContigSynonyms(String contig) {
+        if (contig == null) {
+            return null;
+        }
+        int slot = findSlot(names, contig);
+        return names[slot] == null ? null : rows.get(rowIndexes[slot]);
+    }
+
+    /**
+     * @return The instance of the contig name shared by all the rows of the assembly report, or the same contig if
+     * it doesn't appear in the assembly report
+     */
+    public String getCanonicalName(String contig) {
+        if (contig == null) {
+            return null;
+        }
+        String name = names[findSlot(names, contig)];
+        return name == null ? contig : name;
+    }
+
+    /**
+     * @return All the names that {@link #getContigSynonyms(String)} can resolve, in any naming convention
+     */
+    public Set<String> getContigNames() {
+        Set<String> contigNames = new HashSet<>(size * 2);
+        for (String name : names) {
+            if (name != null) {
+                contigNames.add(name);
+            }
+        }
+        return contigNames;
+    }
+
+    /**
+     * @return How many different names of the given convention appear in the assembly report
+     */
+    int countNames(NamingConvention convention) {
+        int count = 0;
+        byte conventionBit = (byte) (1 << convention.ordinal());
+        for (int i = 0; i < names.length; i++) {
+            if ((conventions[i] & conventionBit) != 0) {
+                count++;
+            }
         }
-        return null;
+        return count;
     }
 }
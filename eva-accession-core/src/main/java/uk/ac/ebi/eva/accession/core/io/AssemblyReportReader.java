@@ -22,6 +22,7 @@ import org.springframework.batch.item.ItemReader;
 import org.springframework.batch.item.ParseException;
 import org.springframework.batch.item.file.FlatFileItemReader;
 import org.springframework.batch.item.file.mapping.PassThroughLineMapper;
+import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 
 import uk.ac.ebi.eva.accession.core.contig.ContigSynonyms;
@@ -55,16 +56,24 @@ public class AssemblyReportReader implements ItemReader<ContigSynonyms> {
     private FlatFileItemReader<String> reader;
 
     public AssemblyReportReader(String url) {
-        initializeReader(url);
+        initializeReader(createResource(url));
     }
 
-    private void initializeReader(String url) {
-        reader = new FlatFileItemReader<>();
+    public AssemblyReportReader(Resource resource) {
+        initializeReader(resource);
+    }
+
+    public static UrlResource createResource(String url) {
         try {
-            reader.setResource(new UrlResource(url));
+            return new UrlResource(url);
         } catch (MalformedURLException e) {
             throw new IllegalArgumentException("Assembly report file location is invalid: " + url, e);
         }
+    }
+
+    private void initializeReader(Resource resource) {
+        reader = new FlatFileItemReader<>();
+        reader.setResource(resource);
         reader.setLineMapper(new PassThroughLineMapper());
         reader.open(new ExecutionContext());
     }
@@ -0,0 +1,314 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.core.io;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.reference.FastaSequenceIndex;
+import htsjdk.samtools.reference.FastaSequenceIndexEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads regions of a block-gzipped (BGZF) FASTA file, as compressed by "bgzip", using its ".fai" index (created by
+ * "samtools faidx", with offsets in the uncompressed file) and its ".gzi" index, which maps uncompressed offsets to the
+ * compressed blocks that contain them. The ".gzi" index is created if it does not exist.
+ *
+ * Decompressed blocks are kept in a small LRU cache. The requests to the reference are mostly sorted by position and
+ * a block holds up to 64KB of sequence, so a few blocks are enough to serve the context bases of a whole chunk.
+ */
+public class BgzipFastaSequenceFile implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BgzipFastaSequenceFile.class);
+
+    public static final String GZI_EXTENSION = ".gzi";
+
+    public static final int DEFAULT_BLOCK_CACHE_SIZE = 32;
+
+    private static final int HEADER_SIZE = 18;
+
+    private static final int FOOTER_SIZE = 8;
+
+    private static final int MAX_BLOCK_SIZE = 1 << 16;
+
+    private final FastaSequenceIndex index;
+
+    private final FileChannel channel;
+
+    private final long[] blockCompressedOffsets;
+
+    private final long[] blockUncompressedOffsets;
+
+    private final Map<Integer, byte[]> blockCache;
+
+    private final Inflater inflater;
+
+    private long blockCacheHits;
+
+    private long blockCacheMisses;
+
+    public BgzipFastaSequenceFile(Path fastaPath, Path indexPath, int blockCacheSize) throws IOException {
+        if (blockCacheSize < 1) {
+            throw new IllegalArgumentException("The block cache must hold at least one block");
+        }
+        index = new FastaSequenceIndex(indexPath);
+        channel = FileChannel.open(fastaPath, StandardOpenOption.READ);
+
+        Path gziPath = fastaPath.resolveSibling(fastaPath.getFileName() + GZI_EXTENSION);
+        if (!Files.exists(gziPath)) {
+            logger.info("BGZF index file not found - creating one...");
+            writeGziIndex(gziPath);
+        }
+        List<long[]> blocks = readGziIndex(gziPath);
+        blockCompressedOffsets = new long[blocks.size()];
+        blockUncompressedOffsets = new long[blocks.size()];
+        for (int i = 0; i < blocks.size(); i++) {
+            blockCompressedOffsets[i] = blocks.get(i)[0];
+            blockUncompressedOffsets[i] = blocks.get(i)[1];
+        }
+
+        blockCache = new LinkedHashMap<Integer, byte[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, byte[]> eldest) {
+                return size() > blockCacheSize;
+            }
+        };
+        inflater = new Inflater(true);
+    }
+
+    /**
+     * @return Whether the file is compressed with BGZF, that is, its first block is gzip with a "BC" extra subfield
+     */
+    public static boolean isBgzip(Path path) throws IOException {
+        byte[] header = new byte[HEADER_SIZE];
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.wrap(header);
+            int read = 0;
+            while (buffer.hasRemaining() && read >= 0) {
+                read = fileChannel.read(buffer);
+            }
+            return !buffer.hasRemaining() && isBlockHeader(header);
+        }
+    }
+
+    private static boolean isBlockHeader(byte[] header) {
+        return (header[0] & 0xFF) == 31 && (header[1] & 0xFF) == 139 && (header[3] & 4) != 0
+                && header[12] == 'B' && header[13] == 'C';
+    }
+
+    public SAMSequenceDictionary getSequenceDictionary() {
+        List<SAMSequenceRecord> records = new ArrayList<>();
+        for (FastaSequenceIndexEntry entry : index) {
+            records.add(new SAMSequenceRecord(entry.getContig(), (int) entry.getSize()));
+        }
+        return new SAMSequenceDictionary(records);
+    }
+
+    /**
+     * Get the sequence delimited by the given coordinates. The caller is responsible for checking that the contig
+     * exists and that the coordinates are valid.
+     *
+     * @param contig Sequence contig or chromosome
+     * @param start  Sequence start coordinate in the contig. inclusive, 1-based.
+     * @param end    Sequence end coordinate in the contig. inclusive, 1-based
+     * @return Sequence read from the FASTA file, with the same case
+     */
+    public synchronized String getSequence(String contig, long start, long end) {
+        FastaSequenceIndexEntry entry = index.getIndexEntry(contig);
+        if (start == end) {
+            return SingleBases.get(getBase(entry, start));
+        }
+        byte[] bases = new byte[(int) (end - start + 1)];
+        for (int i = 0; i < bases.length; i++) {
+            bases[i] = getBase(entry, start + i);
+        }
+        return new String(bases, StandardCharsets.ISO_8859_1);
+    }
+
+    private byte getBase(FastaSequenceIndexEntry entry, long position) {
+        long basesBefore = position - 1;
+        long offset = entry.getLocation()
+                + basesBefore / entry.getBasesPerLine() * entry.getBytesPerLine()
+                + basesBefore % entry.getBasesPerLine();
+        int block = findBlock(offset);
+        return getBlock(block)[(int) (offset - blockUncompressedOffsets[block])];
+    }
+
+    private int findBlock(long uncompressedOffset) {
+        int low = 0;
+        int high = blockUncompressedOffsets.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (blockUncompressedOffsets[middle] <= uncompressedOffset) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    private byte[] getBlock(int block) {
+        byte[] bytes = blockCache.get(block);
+        if (bytes == null) {
+            blockCacheMisses++;
+            try {
+                bytes = readBlock(blockCompressedOffsets[block]);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read BGZF block at offset " +
+                                                        blockCompressedOffsets[block], e);
+            }
+            blockCache.put(block, bytes);
+        } else {
+            blockCacheHits++;
+        }
+        return bytes;
+    }
+
+    private byte[] readBlock(long compressedOffset) throws IOException {
+        byte[] header = new byte[HEADER_SIZE];
+        readFully(ByteBuffer.wrap(header), compressedOffset);
+        if (!isBlockHeader(header)) {
+            throw new IOException("Invalid BGZF block header at offset " + compressedOffset);
+        }
+        int extraLength = (header[10] & 0xFF) | (header[11] & 0xFF) << 8;
+        int blockSize = ((header[16] & 0xFF) | (header[17] & 0xFF) << 8) + 1;
+
+        byte[] block = new byte[blockSize];
+        readFully(ByteBuffer.wrap(block), compressedOffset);
+        int uncompressedSize = ByteBuffer.wrap(block, blockSize - 4, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+        if (uncompressedSize < 0 || uncompressedSize > MAX_BLOCK_SIZE) {
+            throw new IOException("Invalid BGZF block size at offset " + compressedOffset);
+        }
+        int dataOffset = 12 + extraLength;
+
+        byte[] uncompressed = new byte[uncompressedSize];
+        inflater.reset();
+        inflater.setInput(block, dataOffset, blockSize - dataOffset - FOOTER_SIZE);
+        int inflated = 0;
+        try {
+            while (inflated < uncompressedSize && !inflater.finished()) {
+                int bytes = inflater.inflate(uncompressed, inflated, uncompressedSize - inflated);
+                // a truncated block would otherwise be retried forever, because all its input is already consumed
+                if (bytes == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Corrupt BGZF block at offset " + compressedOffset);
+                }
+                inflated += bytes;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt BGZF block at offset " + compressedOffset, e);
+        }
+        if (inflated != uncompressedSize) {
+            throw new IOException("Corrupt BGZF block at offset " + compressedOffset + ": " + inflated +
+                                          " bytes decompressed, but the block size is " + uncompressedSize);
+        }
+        return uncompressed;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of BGZF file at offset " + (position + buffer.position()));
+            }
+        }
+    }
+
+    /**
+     * The ".gzi" format is the number of entries followed by pairs of (compressed, uncompressed) offsets, all of them
+     * unsigned little-endian 64-bit integers. The first block, at offsets (0, 0), is not included.
+     */
+    private List<long[]> readGziIndex(Path gziPath) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(gziPath)).order(ByteOrder.LITTLE_ENDIAN);
+        long numEntries = buffer.getLong();
+        List<long[]> blocks = new ArrayList<>();
+        blocks.add(new long[]{0, 0});
+        for (long i = 0; i < numEntries; i++) {
+            blocks.add(new long[]{buffer.getLong(), buffer.getLong()});
+        }
+        return blocks;
+    }
+
+    private void writeGziIndex(Path gziPath) throws IOException {
+        List<long[]> blocks = new ArrayList<>();
+        byte[] header = new byte[HEADER_SIZE];
+        byte[] footer = new byte[FOOTER_SIZE];
+        long compressedOffset = 0;
+        long uncompressedOffset = 0;
+        long size = channel.size();
+        while (compressedOffset < size) {
+            readFully(ByteBuffer.wrap(header), compressedOffset);
+            if (!isBlockHeader(header)) {
+                throw new IOException("Invalid BGZF block header at offset " + compressedOffset);
+            }
+            int blockSize = ((header[16] & 0xFF) | (header[17] & 0xFF) << 8) + 1;
+            readFully(ByteBuffer.wrap(footer), compressedOffset + blockSize - FOOTER_SIZE);
+            int uncompressedSize = ByteBuffer.wrap(footer, 4, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+            if (uncompressedSize > MAX_BLOCK_SIZE) {
+                throw new IOException("Invalid BGZF block size at offset " + compressedOffset);
+            }
+            if (compressedOffset > 0) {
+                blocks.add(new long[]{compressedOffset, uncompressedOffset});
+            }
+            compressedOffset += blockSize;
+            uncompressedOffset += uncompressedSize;
+        }
+
+        Path temporaryPath = gziPath.resolveSibling(gziPath.getFileName() + ".tmp");
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(temporaryPath))) {
+            ByteBuffer entry = ByteBuffer.allocate(Long.BYTES * 2).order(ByteOrder.LITTLE_ENDIAN);
+            entry.putLong(blocks.size());
+            output.write(entry.array(), 0, Long.BYTES);
+            for (long[] block : blocks) {
+                entry.clear();
+                entry.putLong(block[0]).putLong(block[1]);
+                output.write(entry.array());
+            }
+        }
+        Files.move(temporaryPath, gziPath);
+    }
+
+    public synchronized long getBlockCacheHits() {
+        return blockCacheHits;
+    }
+
+    public synchronized long getBlockCacheMisses() {
+        return blockCacheMisses;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        inflater.end();
+        channel.close();
+    }
+}
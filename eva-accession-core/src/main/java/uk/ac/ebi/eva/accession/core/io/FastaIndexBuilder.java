@@ -0,0 +1,304 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.core.io;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Creates the sequence dictionary (".dict") and the index (".fai") of an uncompressed FASTA file reading it only once.
+ *
+ * The file is read in fixed-size buffers and only the name, length, offset, line lengths and MD5 of the current
+ * sequence are kept, so the memory used doesn't depend on the size of the chromosomes. The index has the same format
+ * as "samtools faidx", and the dictionary the same as Picard's CreateSequenceDictionary (including the MD5 of the
+ * upper-cased bases).
+ */
+public class FastaIndexBuilder {
+
+    public static final String INDEX_EXTENSION = ".fai";
+
+    public static final String DICTIONARY_EXTENSION = ".dict";
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final String SAM_VERSION = "1.0";
+
+    private final Path fastaPath;
+
+    private final List<Entry> entries;
+
+    private final Set<String> names;
+
+    private final MessageDigest md5;
+
+    private final byte[] upperCaseBases;
+
+    private int numUpperCaseBases;
+
+    private Entry currentEntry;
+
+    private final ByteArrayOutputStream header;
+
+    private boolean inHeader;
+
+    private boolean atLineStart;
+
+    private long lineStart;
+
+    private int lineBases;
+
+    private boolean shortLineFound;
+
+    private FastaIndexBuilder(Path fastaPath) {
+        this.fastaPath = fastaPath;
+        this.entries = new ArrayList<>();
+        this.names = new HashSet<>();
+        try {
+            this.md5 = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        this.upperCaseBases = new byte[BUFFER_SIZE];
+        this.header = new ByteArrayOutputStream();
+        this.atLineStart = true;
+    }
+
+    public static Path getIndexPath(Path fastaPath) {
+        return fastaPath.resolveSibling(fastaPath.getFileName() + INDEX_EXTENSION);
+    }
+
+    public static Path getDictionaryPath(Path fastaPath) {
+        return fastaPath.resolveSibling(fastaPath.getFileName() + DICTIONARY_EXTENSION);
+    }
+
+    /**
+     * The dictionary can also be named after the FASTA without its extension (e.g. "genome.dict" for "genome.fa"), as
+     * Picard does
+     */
+    private static boolean dictionaryExists(Path fastaPath) {
+        String fileName = fastaPath.getFileName().toString();
+        int extensionStart = fileName.lastIndexOf('.');
+        return Files.exists(getDictionaryPath(fastaPath)) || (extensionStart > 0 && Files.exists(
+                fastaPath.resolveSibling(fileName.substring(0, extensionStart) + DICTIONARY_EXTENSION)));
+    }
+
+    /**
+     * Creates the index and the dictionary of a FASTA file, if they don't exist yet
+     */
+    public static void build(Path fastaPath) throws IOException {
+        boolean indexExists = Files.exists(getIndexPath(fastaPath));
+        boolean dictionaryExists = dictionaryExists(fastaPath);
+        if (indexExists && dictionaryExists) {
+            return;
+        }
+        FastaIndexBuilder builder = new FastaIndexBuilder(fastaPath);
+        builder.read();
+        if (!indexExists) {
+            builder.writeIndex();
+        }
+        if (!dictionaryExists) {
+            builder.writeDictionary();
+        }
+    }
+
+    private void read() throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long bufferStart = 0;
+        try (InputStream input = Files.newInputStream(fastaPath)) {
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    process(buffer[i], bufferStart + i);
+                }
+                bufferStart += read;
+            }
+        }
+        if (inHeader) {
+            startEntry(bufferStart);
+        } else if (!atLineStart) {
+            finishLine(bufferStart);
+        }
+        finishEntry();
+    }
+
+    private void process(byte character, long position) {
+        if (inHeader) {
+            if (character == '\n') {
+                startEntry(position + 1);
+            } else {
+                header.write(character);
+            }
+            return;
+        }
+        if (atLineStart) {
+            if (character == '>') {
+                finishEntry();
+                inHeader = true;
+                header.reset();
+                return;
+            }
+            atLineStart = false;
+            lineStart = position;
+            lineBases = 0;
+        }
+        if (character == '\n') {
+            finishLine(position);
+        } else if (character != '\r') {
+            addBase(character);
+        }
+    }
+
+    private void startEntry(long offset) {
+        inHeader = false;
+        String name = new String(header.toByteArray(), StandardCharsets.UTF_8).trim().split("\\s+", 2)[0];
+        if (!names.add(name)) {
+            throw new IllegalArgumentException("Sequence name appears more than once in reference: " + name);
+        }
+        currentEntry = new Entry(name, offset);
+        shortLineFound = false;
+        md5.reset();
+    }
+
+    private void addBase(byte base) {
+        if (currentEntry == null) {
+            throw new IllegalArgumentException("FASTA file " + fastaPath + " does not start with a sequence name");
+        }
+        if (shortLineFound) {
+            throw new IllegalArgumentException(
+                    "Different line lengths in sequence " + currentEntry.name + " of FASTA file " + fastaPath);
+        }
+        currentEntry.length++;
+        lineBases++;
+        upperCaseBases[numUpperCaseBases++] = (byte) Character.toUpperCase(base);
+        if (numUpperCaseBases == upperCaseBases.length) {
+            md5.update(upperCaseBases, 0, numUpperCaseBases);
+            numUpperCaseBases = 0;
+        }
+    }
+
+    /**
+     * All the lines of a sequence must have the same length except the last one, otherwise the position of a base
+     * can't be calculated from the index
+     */
+    private void finishLine(long newLinePosition) {
+        atLineStart = true;
+        if (currentEntry == null) {
+            return;
+        }
+        int lineBytes = (int) (newLinePosition - lineStart + 1);
+        if (currentEntry.basesPerLine == 0) {
+            currentEntry.basesPerLine = lineBases;
+            currentEntry.bytesPerLine = lineBytes;
+        } else if (lineBases > currentEntry.basesPerLine || (lineBases == currentEntry.basesPerLine
+                && lineBytes != currentEntry.bytesPerLine)) {
+            throw new IllegalArgumentException(
+                    "Different line lengths in sequence " + currentEntry.name + " of FASTA file " + fastaPath);
+        }
+        if (lineBases < currentEntry.basesPerLine) {
+            shortLineFound = true;
+        }
+    }
+
+    private void finishEntry() {
+        if (currentEntry == null) {
+            return;
+        }
+        md5.update(upperCaseBases, 0, numUpperCaseBases);
+        numUpperCaseBases = 0;
+        StringBuilder md5Hex = new StringBuilder();
+        for (byte b : md5.digest()) {
+            md5Hex.append(String.format("%02x", b));
+        }
+        currentEntry.md5 = md5Hex.toString();
+        entries.add(currentEntry);
+        currentEntry = null;
+    }
+
+    private void writeIndex() throws IOException {
+        writeAtomically(getIndexPath(fastaPath), writer -> {
+            for (Entry entry : entries) {
+                writer.write(entry.name + "\t" + entry.length + "\t" + entry.offset + "\t" + entry.basesPerLine +
+                                     "\t" + entry.bytesPerLine + "\n");
+            }
+        });
+    }
+
+    private void writeDictionary() throws IOException {
+        String uri = fastaPath.toAbsolutePath().toUri().toString();
+        writeAtomically(getDictionaryPath(fastaPath), writer -> {
+            writer.write("@HD\tVN:" + SAM_VERSION + "\tSO:unsorted\n");
+            for (Entry entry : entries) {
+                writer.write("@SQ\tSN:" + entry.name + "\tLN:" + entry.length + "\tM5:" + entry.md5 + "\tUR:" + uri +
+                                     "\n");
+            }
+        });
+    }
+
+    /**
+     * Writes to a temporary file that is then moved to the final path, so that a process starting while the file is
+     * being written doesn't read an incomplete file.
+     */
+    private void writeAtomically(Path path, FileContentWriter contentWriter) throws IOException {
+        Path temporaryPath = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(),
+                                                  ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temporaryPath, StandardCharsets.UTF_8)) {
+                contentWriter.write(writer);
+            }
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+    }
+
+    private interface FileContentWriter {
+
+        void write(BufferedWriter writer) throws IOException;
+
+    }
+
+    private static class Entry {
+
+        private final String name;
+
+        private final long offset;
+
+        private long length;
+
+        private int basesPerLine;
+
+        private int bytesPerLine;
+
+        private String md5;
+
+        Entry(String name, long offset) {
+            this.name = name;
+            this.offset = offset;
+        }
+    }
+}
@@ -17,10 +17,8 @@ package uk.ac.ebi.eva.accession.core.io;
 
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.SAMSequenceRecord;
-import htsjdk.samtools.reference.FastaSequenceIndexCreator;
 import htsjdk.samtools.reference.ReferenceSequence;
 import htsjdk.samtools.reference.ReferenceSequenceFile;
-import htsjdk.samtools.reference.ReferenceSequenceFileFactory;
 import org.apache.commons.lang3.tuple.ImmutableTriple;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,49 +26,134 @@ import org.slf4j.LoggerFactory;
 import uk.ac.ebi.eva.commons.core.utils.FileUtils;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Reads regions from a given FASTA file, and also creates the associated index and dictionary files if they do not
- * exist.
+ * Reads regions from a given FASTA file, and also creates the associated index and dictionary files if the index does
+ * not exist.
+ *
+ * The regions can be read either through htsjdk or, if the reader is created as memory-mapped, through a
+ * {@link MappedFastaSequenceFile}. Both return the same sequences. Block-gzipped FASTA files are read through a
+ * {@link BgzipFastaSequenceFile}.
+ *
+ * A reader can be shared by several threads in all the modes: the memory-mapped file is read without locks, the
+ * htsjdk readers are borrowed from a {@link ReferenceSequenceFilePool} and the block-gzipped file is synchronized.
+ *
+ * If a window size is provided, every read loads a window of that size around the requested region, and the next
+ * requests are served from it while they fall inside. This is useful when the input is sorted by position, because
+ * most of the requests will be close to the previous one. The window hits and misses are counted so the window size
+ * can be tuned. Every thread has its own window, so threads reading different regions at the same time, like the
+ * partitions of the dbSNP import, don't replace each other's window.
  */
 public class FastaSequenceReader {
 
     private static final Logger logger = LoggerFactory.getLogger(FastaSequenceReader.class);
 
-    private ReferenceSequenceFile fastaSequenceFile;
+    private static final String FASTA_INDEX_EXTENSION = ".fai";
+
+    private ReferenceSequenceFilePool fastaSequenceFilePool;
 
     protected SAMSequenceDictionary sequenceDictionary;
 
+    private MappedFastaSequenceFile mappedFastaSequenceFile;
+
+    private BgzipFastaSequenceFile bgzipFastaSequenceFile;
+
+    private final int windowSize;
+
+    private final ThreadLocal<ReferenceWindow> window;
+
+    private final AtomicLong windowHits;
+
+    private final AtomicLong windowMisses;
+
     public FastaSequenceReader(Path fastaPath) throws IOException {
-        checkFastaIsUncompressed(fastaPath);
-        fastaSequenceFile = ReferenceSequenceFileFactory.getReferenceSequenceFile(fastaPath, true);
+        this(fastaPath, false);
+    }
+
+    public FastaSequenceReader(Path fastaPath, boolean memoryMapped) throws IOException {
+        this(fastaPath, memoryMapped, 0);
+    }
+
+    public FastaSequenceReader(Path fastaPath, boolean memoryMapped, int windowSize) throws IOException {
+        this(fastaPath, memoryMapped, windowSize, BgzipFastaSequenceFile.DEFAULT_BLOCK_CACHE_SIZE);
+    }
+
+    /**
+     * @param memoryMapped Whether to read the regions from a memory-mapped copy of the FASTA instead of using htsjdk
+     * @param windowSize Number of bases to load around every requested region, or 0 to read only the region
+     * @param bgzipBlockCacheSize Number of decompressed blocks kept in memory when the FASTA is compressed with bgzip
+     */
+    public FastaSequenceReader(Path fastaPath, boolean memoryMapped, int windowSize, int bgzipBlockCacheSize)
+            throws IOException {
+        if (windowSize < 0) {
+            throw new IllegalArgumentException("The window size must not be negative");
+        }
+        this.windowSize = windowSize;
+        this.window = new ThreadLocal<>();
+        this.windowHits = new AtomicLong();
+        this.windowMisses = new AtomicLong();
+        Path indexPath = fastaPath.resolveSibling(fastaPath.getFileName() + FASTA_INDEX_EXTENSION);
+        if (FileUtils.isGzip(fastaPath.toFile())) {
+            openBgzipFasta(fastaPath, indexPath, memoryMapped, bgzipBlockCacheSize);
+        } else {
+            openUncompressedFasta(fastaPath, indexPath, memoryMapped);
+        }
+    }
+
+    /**
+     * The index and dictionary files are only written if the index is missing. If only the dictionary is missing, it
+     * is created in memory, so that FASTA files in read-only directories can still be used if they are indexed.
+     */
+    private void openUncompressedFasta(Path fastaPath, Path indexPath, boolean memoryMapped) throws IOException {
+        if (!Files.exists(indexPath)) {
+            logger.info("Sequence index file not found - creating it and the dictionary if it doesn't exist...");
+            FastaIndexBuilder.build(fastaPath);
+        }
+        fastaSequenceFilePool = new ReferenceSequenceFilePool(fastaPath);
+        ReferenceSequenceFile fastaSequenceFile = fastaSequenceFilePool.peekFile();
         sequenceDictionary = fastaSequenceFile.getSequenceDictionary();
 
         if (sequenceDictionary == null) {
-            logger.info("Sequence dictionary file not found - creating one...");
+            logger.info("Sequence dictionary file not found - creating one in memory...");
             sequenceDictionary = createSequenceDictionary(fastaSequenceFile);
         }
-        if (!fastaSequenceFile.isIndexed()) {
-            logger.info("Sequence index file not found - creating one...");
-            FastaSequenceIndexCreator.create(fastaPath, true);
-            fastaSequenceFile = ReferenceSequenceFileFactory.getReferenceSequenceFile(fastaPath, true);
+        if (memoryMapped) {
+            mappedFastaSequenceFile = new MappedFastaSequenceFile(fastaPath, indexPath);
         }
     }
 
     /**
-     * Require the fasta to be uncompressed. Htsjdk seems to support reading and indexing compressed fastas, but for
-     * some reason, when asked for a reference, it returns \0 at every position. this test shows the error:
-     * uk.ac.ebi.eva.accession.pipeline.io.FastaSequenceReaderTest#htsDoesNotSupportCompressedFastas()
+     * Compressed FASTA files are only supported if they are block-gzipped (BGZF), so that regions can be read without
+     * decompressing the whole file. Htsjdk seems to support reading and indexing gzipped fastas, but for some reason,
+     * when asked for a reference, it returns \0 at every position. this test shows the error:
+     * uk.ac.ebi.eva.accession.core.io.FastaSequenceReaderTest#htsDoesNotSupportCompressedFastas()
+     *
+     * The ".fai" index can't be created from a compressed file, so it must exist already ("samtools faidx" creates
+     * it). The sequence dictionary is built from it.
      */
-    private void checkFastaIsUncompressed(Path fastaPath) throws IOException {
-        if (FileUtils.isGzip(fastaPath.toFile())) {
-            throw new IllegalArgumentException("Fasta file should not be compressed: " + fastaPath);
+    private void openBgzipFasta(Path fastaPath, Path indexPath, boolean memoryMapped, int blockCacheSize)
+            throws IOException {
+        if (!BgzipFastaSequenceFile.isBgzip(fastaPath)) {
+            throw new IllegalArgumentException(
+                    "Fasta file should be uncompressed or compressed with bgzip: " + fastaPath);
+        }
+        if (!Files.exists(indexPath)) {
+            throw new IllegalArgumentException(
+                    "Sequence index file not found for compressed fasta, create it with 'samtools faidx': " +
+                            indexPath);
         }
+        if (memoryMapped) {
+            logger.warn("Compressed fasta {} can't be memory-mapped, its blocks will be read on demand", fastaPath);
+        }
+        bgzipFastaSequenceFile = new BgzipFastaSequenceFile(fastaPath, indexPath, blockCacheSize);
+        sequenceDictionary = bgzipFastaSequenceFile.getSequenceDictionary();
     }
 
     /**
@@ -108,7 +191,57 @@ public class FastaSequenceReader {
     public String getSequence(String contig, long start, long end) throws IllegalArgumentException {
         checkArguments(contig, start, end);
 
-        return fastaSequenceFile.getSubsequenceAt(contig, start, end).getBaseString();
+        if (windowSize > 0) {
+            return getSequenceFromWindow(contig, start, end);
+        }
+        return readSequence(contig, start, end);
+    }
+
+    private String readSequence(String contig, long start, long end) {
+        if (bgzipFastaSequenceFile != null) {
+            return bgzipFastaSequenceFile.getSequence(contig, start, end);
+        }
+        if (mappedFastaSequenceFile != null) {
+            return mappedFastaSequenceFile.getSequence(contig, start, end);
+        }
+        return fastaSequenceFilePool.getSequence(contig, start, end);
+    }
+
+    /**
+     * The window starts a quarter of its size before the requested region, so that the context base of the next
+     * variants can be served from it even if the input is not perfectly sorted.
+     */
+    private String getSequenceFromWindow(String contig, long start, long end) {
+        ReferenceWindow currentWindow = window.get();
+        if (currentWindow != null && currentWindow.contains(contig, start, end)) {
+            windowHits.incrementAndGet();
+            return currentWindow.getSequence(start, end);
+        }
+        windowMisses.incrementAndGet();
+        long contigLength = sequenceDictionary.getSequence(contig).getSequenceLength();
+        long windowStart = Math.max(1, start - windowSize / 4);
+        long windowEnd = Math.min(contigLength, Math.max(end, windowStart + windowSize - 1));
+        ReferenceWindow newWindow = new ReferenceWindow(contig, windowStart,
+                                                        readSequence(contig, windowStart, windowEnd));
+        window.set(newWindow);
+        return newWindow.getSequence(start, end);
+    }
+
+    public long getWindowHits() {
+        return windowHits.get();
+    }
+
+    public long getWindowMisses() {
+        return windowMisses.get();
+    }
+
+    /**
+     * @return Fraction of the requests served from the window, or 0 if there were no requests
+     */
+    public double getWindowHitRate() {
+        long hits = windowHits.get();
+        long requests = hits + windowMisses.get();
+        return requests == 0 ? 0 : (double) hits / requests;
     }
 
     /**
@@ -133,10 +266,12 @@ public class FastaSequenceReader {
             throw new IllegalArgumentException("'end' must be greater or equal than 'start'");
         } else if (start < 1) {
             throw new IllegalArgumentException("'start' and 'end' must be positive numbers");
-        } else if (!doesContigExist(contig)) {
+        }
+        SAMSequenceRecord sequence = sequenceDictionary.getSequence(contig);
+        if (sequence == null) {
             throw new IllegalArgumentException("Sequence " + contig + " not found in reference FASTA file");
         } else {
-            int sequenceLengthInFastaFile = sequenceDictionary.getSequence(contig).getSequenceLength();
+            int sequenceLengthInFastaFile = sequence.getSequenceLength();
             if (end > sequenceLengthInFastaFile) {
                 throw new IllegalArgumentException(
                         "Variant coordinate " + end + " greater than end of chromosome " + contig + ": " +
@@ -186,6 +321,49 @@ public class FastaSequenceReader {
      * @throws Exception If the file cannot be closed
      */
     public void close() throws Exception {
-        fastaSequenceFile.close();
+        if (windowSize > 0) {
+            logger.info("Reference window of {} bases: {} hits, {} misses, hit rate {}", windowSize, getWindowHits(),
+                        getWindowMisses(), getWindowHitRate());
+        }
+        if (fastaSequenceFilePool != null) {
+            fastaSequenceFilePool.close();
+        }
+        if (mappedFastaSequenceFile != null) {
+            mappedFastaSequenceFile.close();
+        }
+        if (bgzipFastaSequenceFile != null) {
+            logger.info("BGZF block cache: {} hits, {} misses", bgzipFastaSequenceFile.getBlockCacheHits(),
+                        bgzipFastaSequenceFile.getBlockCacheMisses());
+            bgzipFastaSequenceFile.close();
+        }
+    }
+
+    /**
+     * Region of a contig loaded in memory by a thread.
+     */
+    private static class ReferenceWindow {
+
+        private final String contig;
+
+        private final long start;
+
+        private final String sequence;
+
+        ReferenceWindow(String contig, long start, String sequence) {
+            this.contig = contig;
+            this.start = start;
+            this.sequence = sequence;
+        }
+
+        boolean contains(String contig, long start, long end) {
+            return this.contig.equals(contig) && start >= this.start && end < this.start + sequence.length();
+        }
+
+        String getSequence(long start, long end) {
+            if (start == end) {
+                return SingleBases.get(sequence.charAt((int) (start - this.start)));
+            }
+            return sequence.substring((int) (start - this.start), (int) (end - this.start + 1));
+        }
     }
 }
@@ -20,112 +20,107 @@ import uk.ac.ebi.eva.accession.core.contig.ContigSynonyms;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
 
+/**
+ * Reads regions from a FASTA file using any of the contig names in the assembly report.
+ *
+ * The name used in the FASTA for every contig of the assembly report is resolved once, when the reader is created, so
+ * each request only needs a map lookup to find the sequence.
+ */
 public class FastaSynonymSequenceReader extends FastaSequenceReader {
 
     private ContigMapping contigMapping;
 
+    private Map<String, String> contigToFastaSequenceName;
+
     public FastaSynonymSequenceReader(ContigMapping contigMapping, Path fastaPath) throws IOException {
-        super(fastaPath);
-        this.contigMapping = contigMapping;
+        this(contigMapping, fastaPath, false);
     }
 
-    @Override
-    public boolean doesContigExist(String contig) {
-        ContigSynonyms contigSynonyms = contigMapping.getContigSynonyms(contig);
-
-        if (contigSynonyms == null) {
-            throw new IllegalArgumentException(
-                    "Contig '" + contig + "' not found in the assembly report");
-        }
+    public FastaSynonymSequenceReader(ContigMapping contigMapping, Path fastaPath, boolean memoryMapped)
+            throws IOException {
+        this(contigMapping, fastaPath, memoryMapped, 0);
+    }
 
-        if (contigSynonyms.isIdenticalGenBankAndRefSeq()){
-            return super.doesContigExist(contigSynonyms.getSequenceName())
-                    || super.doesContigExist(contigSynonyms.getGenBank())
-                    || super.doesContigExist(contigSynonyms.getRefSeq())
-                    || super.doesContigExist(contigSynonyms.getUcsc())
-                    || super.doesContigExist(contigSynonyms.getAssignedMolecule());
-        } else {
-            return super.doesContigExist(contig);
-        }
+    public FastaSynonymSequenceReader(ContigMapping contigMapping, Path fastaPath, boolean memoryMapped,
+                                      int windowSize) throws IOException {
+        this(contigMapping, fastaPath, memoryMapped, windowSize, BgzipFastaSequenceFile.DEFAULT_BLOCK_CACHE_SIZE);
     }
 
-    @Override
-    public String getSequence(String contig, long start, long end) {
-        ContigSynonyms contigSynonyms = contigMapping.getContigSynonyms(contig);
+    public FastaSynonymSequenceReader(ContigMapping contigMapping, Path fastaPath, boolean memoryMapped,
+                                      int windowSize, int bgzipBlockCacheSize) throws IOException {
+        super(fastaPath, memoryMapped, windowSize, bgzipBlockCacheSize);
+        this.contigMapping = contigMapping;
+        this.contigToFastaSequenceName = resolveFastaSequenceNames(contigMapping);
+    }
 
-        if (contigSynonyms == null) {
-            throw new IllegalArgumentException(
-                    "Contig '" + contig + "' not found in the assembly report");
+    private Map<String, String> resolveFastaSequenceNames(ContigMapping contigMapping) {
+        Map<String, String> fastaSequenceNames = new HashMap<>();
+        for (String contig : contigMapping.getContigNames()) {
+            String fastaSequenceName = resolveFastaSequenceName(contig, contigMapping.getContigSynonyms(contig));
+            if (fastaSequenceName != null) {
+                fastaSequenceNames.put(contig, fastaSequenceName);
+            }
         }
+        return fastaSequenceNames;
+    }
 
+    /**
+     * If GenBank and RefSeq are identical, any synonym can be used to find the sequence in the FASTA; otherwise the
+     * contig must appear in the FASTA with the same name.
+     *
+     * @return The name of the contig in the FASTA file, or null if it is not present
+     */
+    private String resolveFastaSequenceName(String contig, ContigSynonyms contigSynonyms) {
         if (contigSynonyms.isIdenticalGenBankAndRefSeq()) {
-            return getSequenceUsingSynonyms(contigSynonyms, start, end);
-        } else {
-            String sequence = getSequenceIgnoringMissingContig(contig, start, end);
-            if (sequence == null) {
-                throw new IllegalArgumentException("Contig " + contig + " not found in the FASTA file");
-            } else {
-                return sequence;
+            String[] synonyms = {contigSynonyms.getSequenceName(), contigSynonyms.getGenBank(),
+                    contigSynonyms.getRefSeq(), contigSynonyms.getUcsc(), contigSynonyms.getAssignedMolecule()};
+            for (String synonym : synonyms) {
+                if (isInFasta(synonym)) {
+                    return synonym;
+                }
             }
-
+            return null;
+        } else {
+            return isInFasta(contig) ? contig : null;
         }
     }
 
-    private String getSequenceUsingSynonyms(ContigSynonyms contigSynonyms, long start, long end) {
-        String sequence;
-        if ((sequence = getSequenceIgnoringMissingContig(contigSynonyms.getSequenceName(), start, end)) != null) {
-            return sequence;
-        }
-        if ((sequence = getSequenceIgnoringMissingContig(contigSynonyms.getGenBank(), start, end)) != null) {
-            return sequence;
-        }
-        if ((sequence = getSequenceIgnoringMissingContig(contigSynonyms.getRefSeq(), start, end)) != null) {
-            return sequence;
-        }
-        if ((sequence = getSequenceIgnoringMissingContig(contigSynonyms.getUcsc(), start, end)) != null) {
-            return sequence;
-        }
-        if ((sequence = getSequenceIgnoringMissingContig(contigSynonyms.getAssignedMolecule(), start, end)) != null) {
-            return sequence;
-        }
-        throw new IllegalArgumentException("Contig " + contigSynonyms.toString() + " not found in the FASTA file");
+    private boolean isInFasta(String contig) {
+        return contig != null && sequenceDictionary.getSequence(contig) != null;
     }
 
-    /**
-     * Tries to retrieve a sequence from a FASTA file. If the sequence can't be found using that name, it could be that
-     * the FASTA uses a different nomenclature; in that case a synonym could be used.
-     *
-     * But if the sequence can be found and the coordinates are not valid, the error is unrecoverable and an exception
-     * is thrown.
-     *
-     * @param contig Name of the sequence to be retrieved
-     * @param start Start coordinate of the sequence to be retrieved
-     * @param end End coordinate of the sequence to be retrieved
-     * @return The sequence or null if not found
-     * @throws IllegalArgumentException if the sequence name can be found in the FASTA but the coordinates are too large
-     */
-    private String getSequenceIgnoringMissingContig(String contig, long start, long end) {
-        if (contig != null && sequenceDictionary.getSequence(contig) != null) {
-            try {
-                return super.getSequence(contig, start, end);
-            } catch (IllegalArgumentException sequenceUnavailable) {
-                /*
-                The same exception type could be caused because the contig was not found, or the requested coordinates
-                were greater than the last position in the contig. In order to differentiate between them, we make
-                another request for position 1 of the sequence.
-                */
-                try {
-                    super.getSequence(contig, 1, 1);
-                } catch (IllegalArgumentException contigMissing) {
-                    return null;
-                }
+    @Override
+    public boolean doesContigExist(String contig) {
+        if (contigToFastaSequenceName.containsKey(contig)) {
+            return true;
+        }
+        checkContigIsInAssemblyReport(contig);
+        return false;
+    }
 
-                // The exception is only thrown when the sequence name was found but the coordinates are not valid.
-                throw sequenceUnavailable;
+    @Override
+    public String getSequence(String contig, long start, long end) {
+        String fastaSequenceName = contigToFastaSequenceName.get(contig);
+        if (fastaSequenceName == null) {
+            ContigSynonyms contigSynonyms = checkContigIsInAssemblyReport(contig);
+            if (contigSynonyms.isIdenticalGenBankAndRefSeq()) {
+                throw new IllegalArgumentException(
+                        "Contig " + contigSynonyms.toString() + " not found in the FASTA file");
             }
-        } else {
-            return null;
+            throw new IllegalArgumentException("Contig " + contig + " not found in the FASTA file");
+        }
+        return super.getSequence(fastaSequenceName, start, end);
+    }
+
+    private ContigSynonyms checkContigIsInAssemblyReport(String contig) {
+        ContigSynonyms contigSynonyms = contigMapping.getContigSynonyms(contig);
+        if (contigSynonyms == null) {
+            throw new IllegalArgumentException(
+                    "Contig '" + contig + "' not found in the assembly report");
         }
+        return contigSynonyms;
     }
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.core.io;
+
+import htsjdk.samtools.reference.FastaSequenceIndex;
+import htsjdk.samtools.reference.FastaSequenceIndexEntry;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads regions of an uncompressed and indexed FASTA file by memory-mapping it, instead of reading them through
+ * htsjdk, which allocates a buffer and a ReferenceSequence for every request.
+ *
+ * The file is mapped in segments of up to 1GB, and the position of each base is calculated using the line lengths
+ * in the FASTA index. Single bases are returned as cached strings, so the most frequent requests (the context base
+ * of a variant) don't allocate any object.
+ *
+ * Only absolute reads are done on the mapped buffers, so an instance can be used from several threads.
+ */
+public class MappedFastaSequenceFile implements AutoCloseable {
+
+    private static final int SEGMENT_BITS = 30;
+
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_BITS;
+
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private final FastaSequenceIndex index;
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer[] segments;
+
+    public MappedFastaSequenceFile(Path fastaPath, Path indexPath) throws IOException {
+        index = new FastaSequenceIndex(indexPath);
+        channel = FileChannel.open(fastaPath, StandardOpenOption.READ);
+        long size = channel.size();
+        segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_BITS)];
+        for (int i = 0; i < segments.length; i++) {
+            long segmentStart = (long) i << SEGMENT_BITS;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, segmentStart,
+                                      Math.min(SEGMENT_SIZE, size - segmentStart));
+        }
+    }
+
+    public boolean hasContig(String contig) {
+        return index.hasIndexEntry(contig);
+    }
+
+    /**
+     * Get the sequence delimited by the given coordinates. The caller is responsible for checking that the contig
+     * exists and that the coordinates are valid.
+     *
+     * @param contig Sequence contig or chromosome
+     * @param start  Sequence start coordinate in the contig. inclusive, 1-based.
+     * @param end    Sequence end coordinate in the contig. inclusive, 1-based
+     * @return Sequence read from the FASTA file, with the same case
+     */
+    public String getSequence(String contig, long start, long end) {
+        FastaSequenceIndexEntry entry = index.getIndexEntry(contig);
+        if (start == end) {
+            return SingleBases.get(getBase(entry, start));
+        }
+        byte[] bases = new byte[(int) (end - start + 1)];
+        for (int i = 0; i < bases.length; i++) {
+            bases[i] = getBase(entry, start + i);
+        }
+        return new String(bases, StandardCharsets.ISO_8859_1);
+    }
+
+    private byte getBase(FastaSequenceIndexEntry entry, long position) {
+        long basesBefore = position - 1;
+        long offset = entry.getLocation()
+                + basesBefore / entry.getBasesPerLine() * entry.getBytesPerLine()
+                + basesBefore % entry.getBasesPerLine();
+        return segments[(int) (offset >>> SEGMENT_BITS)].get((int) (offset & SEGMENT_MASK));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
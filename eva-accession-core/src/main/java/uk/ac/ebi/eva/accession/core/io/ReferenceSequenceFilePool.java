@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.core.io;
+
+import htsjdk.samtools.reference.ReferenceSequenceFile;
+import htsjdk.samtools.reference.ReferenceSequenceFileFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Pool of htsjdk readers of the same indexed FASTA file, so that regions can be read from several threads at the same
+ * time. A htsjdk {@link ReferenceSequenceFile} seeks its file channel before every read, so it can't be shared by
+ * threads.
+ *
+ * Every read borrows an idle reader, or opens a new one if all of them are in use, and returns it afterwards. The pool
+ * never has more readers than threads reading at the same time, and they are reused, so a single-threaded client only
+ * keeps one file open.
+ */
+public class ReferenceSequenceFilePool {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceSequenceFilePool.class);
+
+    private final Path fastaPath;
+
+    private final Queue<ReferenceSequenceFile> idleFiles;
+
+    private final Queue<ReferenceSequenceFile> allFiles;
+
+    public ReferenceSequenceFilePool(Path fastaPath) {
+        this.fastaPath = fastaPath;
+        this.idleFiles = new ConcurrentLinkedQueue<>();
+        this.allFiles = new ConcurrentLinkedQueue<>();
+        idleFiles.add(openFile());
+    }
+
+    private ReferenceSequenceFile openFile() {
+        ReferenceSequenceFile file = ReferenceSequenceFileFactory.getReferenceSequenceFile(fastaPath, true);
+        allFiles.add(file);
+        return file;
+    }
+
+    /**
+     * @return A reader that is not in use, to get the sequence dictionary, for instance. It must not be read while
+     * other threads use the pool.
+     */
+    ReferenceSequenceFile peekFile() {
+        return allFiles.peek();
+    }
+
+    /**
+     * @param contig Sequence contig or chromosome
+     * @param start  Sequence start coordinate in the contig. inclusive, 1-based.
+     * @param end    Sequence end coordinate in the contig. inclusive, 1-based
+     * @return Sequence read from the FASTA file
+     */
+    public String getSequence(String contig, long start, long end) {
+        ReferenceSequenceFile file = idleFiles.poll();
+        if (file == null) {
+            file = openFile();
+            logger.debug("Opened reader number {} of FASTA file {}", allFiles.size(), fastaPath);
+        }
+        try {
+            return file.getSubsequenceAt(contig, start, end).getBaseString();
+        } finally {
+            idleFiles.offer(file);
+        }
+    }
+
+    /**
+     * @return Number of readers opened, which is the maximum number of threads that read at the same time
+     */
+    public int getSize() {
+        return allFiles.size();
+    }
+
+    /**
+     * Closes all the readers. The pool must not be used afterwards.
+     */
+    public void close() throws IOException {
+        for (ReferenceSequenceFile file : allFiles) {
+            file.close();
+        }
+        idleFiles.clear();
+        allFiles.clear();
+    }
+}
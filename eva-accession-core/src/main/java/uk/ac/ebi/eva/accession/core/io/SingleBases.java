@@ -0,0 +1,41 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.core.io;
+
+/**
+ * Cached one-base strings, shared by the FASTA readers so that reading single bases (the most common request)
+ * doesn't allocate any memory.
+ */
+final class SingleBases {
+
+    private static final String[] SINGLE_BASES = new String[256];
+
+    static {
+        for (int i = 0; i < SINGLE_BASES.length; i++) {
+            SINGLE_BASES[i] = String.valueOf((char) i);
+        }
+    }
+
+    private SingleBases() {
+    }
+
+    /**
+     * @return A string with only the given base. The same instance is returned for every base
+     */
+    static String get(int base) {
+        return SINGLE_BASES[base & 0xFF];
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.core.listeners;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.listener.StepListenerSupport;
+import org.springframework.batch.core.scope.context.ChunkContext;
+
+import uk.ac.ebi.eva.accession.core.metrics.PrometheusTextWriter;
+import uk.ac.ebi.eva.accession.core.metrics.StepMetrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long a step spends reading, processing and writing, to find which one is the bottleneck.
+ *
+ * The metrics of every step that used this listener are logged when the step finishes, and optionally:
+ * - written to a file in the Prometheus text format, at most once every export interval and when each step finishes
+ * - registered as JMX MBeans named "uk.ac.ebi.eva.accession:type=StepMetrics,name=[step name]"
+ *
+ * The start times are kept per thread, so the listener can be used in multi-threaded steps. The metrics of the current
+ * step are also kept per thread, so the same listener can be used by steps that run at the same time in different
+ * threads, like the partitions of a partitioned step.
+ */
+public class StepMetricsListener<I, O> extends StepListenerSupport<I, O> {
+
+    private static final Logger logger = LoggerFactory.getLogger(StepMetricsListener.class);
+
+    private static final String JMX_DOMAIN = "uk.ac.ebi.eva.accession";
+
+    private static final int READ = 0;
+
+    private static final int PROCESS = 1;
+
+    private static final int WRITE = 2;
+
+    private static final int CHUNK = 3;
+
+    private final Path prometheusFile;
+
+    private final boolean jmxEnabled;
+
+    private final long exportIntervalNanos;
+
+    private final Map<String, StepMetrics> allStepMetrics;
+
+    private final ThreadLocal<long[]> startTimes;
+
+    private final ThreadLocal<StepMetrics> currentStepMetrics;
+
+    private volatile StepMetrics stepMetrics;
+
+    private volatile long lastExportNanos;
+
+    /**
+     * @param prometheusFile File where the metrics are written, or null to not write them
+     * @param jmxEnabled Whether to register the metrics of every step as an MBean
+     * @param exportIntervalSeconds Minimum time between writes of the Prometheus file while a step is running
+     */
+    public StepMetricsListener(Path prometheusFile, boolean jmxEnabled, long exportIntervalSeconds) {
+        this.prometheusFile = prometheusFile;
+        this.jmxEnabled = jmxEnabled;
+        this.exportIntervalNanos = TimeUnit.SECONDS.toNanos(exportIntervalSeconds);
+        this.allStepMetrics = new ConcurrentHashMap<>();
+        this.startTimes = ThreadLocal.withInitial(() -> new long[CHUNK + 1]);
+        this.currentStepMetrics = new ThreadLocal<>();
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        StepMetrics metrics = new StepMetrics(stepExecution.getStepName());
+        currentStepMetrics.set(metrics);
+        stepMetrics = metrics;
+        allStepMetrics.put(metrics.getStepName(), metrics);
+        lastExportNanos = System.nanoTime();
+        if (jmxEnabled) {
+            registerMBean(metrics);
+        }
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        start(CHUNK);
+    }
+
+    @Override
+    public void beforeRead() {
+        start(READ);
+    }
+
+    @Override
+    public void afterRead(I item) {
+        currentStepMetrics.get().recordRead(elapsed(READ));
+    }
+
+    @Override
+    public void beforeProcess(I item) {
+        start(PROCESS);
+    }
+
+    @Override
+    public void afterProcess(I item, O result) {
+        currentStepMetrics.get().recordProcess(elapsed(PROCESS), result == null);
+    }
+
+    @Override
+    public void beforeWrite(List<? extends O> items) {
+        start(WRITE);
+    }
+
+    @Override
+    public void afterWrite(List<? extends O> items) {
+        currentStepMetrics.get().recordWrite(elapsed(WRITE), items.size());
+    }
+
+    @Override
+    public void onSkipInRead(Throwable t) {
+        currentStepMetrics.get().recordReadSkip();
+    }
+
+    @Override
+    public void onSkipInProcess(I item, Throwable t) {
+        currentStepMetrics.get().recordProcessSkip();
+    }
+
+    @Override
+    public void onSkipInWrite(O item, Throwable t) {
+        currentStepMetrics.get().recordWriteSkip();
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        currentStepMetrics.get().recordChunk(elapsed(CHUNK));
+        long now = System.nanoTime();
+        if (prometheusFile != null && now - lastExportNanos >= exportIntervalNanos) {
+            lastExportNanos = now;
+            export();
+        }
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        StepMetrics stepMetrics = currentStepMetrics.get();
+        currentStepMetrics.remove();
+        logger.info("Step metrics of {}", stepMetrics);
+        logger.info("{}: mean time per item reading {} ms, processing {} ms; mean time per chunk writing {} ms, " +
+                            "total {} ms (p99 {} ms)",
+                    stepMetrics.getStepName(), stepMetrics.getMeanReadMillis(), stepMetrics.getMeanProcessMillis(),
+                    stepMetrics.getMeanWriteMillis(), stepMetrics.getMeanChunkMillis(),
+                    stepMetrics.getP99ChunkMillis());
+        if (prometheusFile != null) {
+            export();
+        }
+        return stepExecution.getExitStatus();
+    }
+
+    /**
+     * @return The metrics of the last step that started
+     */
+    public StepMetrics getStepMetrics() {
+        return stepMetrics;
+    }
+
+    private void start(int stage) {
+        startTimes.get()[stage] = System.nanoTime();
+    }
+
+    private long elapsed(int stage) {
+        return System.nanoTime() - startTimes.get()[stage];
+    }
+
+    private void export() {
+        try {
+            PrometheusTextWriter.write(prometheusFile, new ArrayList<>(allStepMetrics.values()));
+        } catch (IOException e) {
+            logger.warn("Could not write step metrics to {}: {}", prometheusFile, e.getMessage());
+        }
+    }
+
+    /**
+     * If the step is run again in the same JVM, the MBean of the previous execution is replaced
+     */
+    private void registerMBean(StepMetrics metrics) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(JMX_DOMAIN + ":type=StepMetrics,name=" +
+                                                     ObjectName.quote(metrics.getStepName()));
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(metrics, name);
+        } catch (JMException e) {
+            logger.warn("Could not register step metrics of {} in JMX: {}", metrics.getStepName(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of durations with exponential buckets, from 1 microsecond to about 2 minutes, each one twice as wide as
+ * the previous one. Recording a duration only increments two counters, so it can be called for every item of a step.
+ */
+public class LatencyHistogram {
+
+    private static final long NANOS_PER_MICRO = 1_000;
+
+    private static final int NUM_BUCKETS = 28;
+
+    /**
+     * Inclusive upper bound of every bucket, in nanoseconds. An additional bucket counts the durations longer than
+     * the last bound.
+     */
+    private static final long[] UPPER_BOUNDS = new long[NUM_BUCKETS];
+
+    static {
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            UPPER_BOUNDS[i] = NANOS_PER_MICRO << i;
+        }
+    }
+
+    private final AtomicLongArray counts = new AtomicLongArray(NUM_BUCKETS + 1);
+
+    private final AtomicLong sumNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        counts.incrementAndGet(getBucket(nanos));
+        sumNanos.addAndGet(nanos);
+    }
+
+    private static int getBucket(long nanos) {
+        if (nanos <= NANOS_PER_MICRO) {
+            return 0;
+        }
+        int bucket = 64 - Long.numberOfLeadingZeros((nanos - 1) / NANOS_PER_MICRO);
+        return Math.min(bucket, NUM_BUCKETS);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    public long getSumNanos() {
+        return sumNanos.get();
+    }
+
+    public int getNumBuckets() {
+        return NUM_BUCKETS;
+    }
+
+    public long getUpperBoundNanos(int bucket) {
+        return UPPER_BOUNDS[bucket];
+    }
+
+    /**
+     * @return How many durations were less than or equal to the upper bound of the bucket
+     */
+    public long getCumulativeCount(int bucket) {
+        long count = 0;
+        for (int i = 0; i <= bucket; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @return The upper bound of the bucket that contains the given quantile, so the real value is at most twice
+     * smaller. If the quantile is in the last bucket, twice the last upper bound is returned.
+     */
+    public long getQuantileNanos(double quantile) {
+        long total = getCount();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long count = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            count += counts.get(i);
+            if (count >= rank) {
+                return UPPER_BOUNDS[i];
+            }
+        }
+        return UPPER_BOUNDS[NUM_BUCKETS - 1] * 2;
+    }
+
+    public double getMeanNanos() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) getSumNanos() / count;
+    }
+}
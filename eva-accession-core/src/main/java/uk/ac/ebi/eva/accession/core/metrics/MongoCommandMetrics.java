@@ -0,0 +1,258 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.core.metrics;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the latency of every MongoDB command, grouped by collection and command name (e.g. "dbsnpSubmittedVariantEntity
+ * insert"), to find out whether slow chunks come from lookups, bulk inserts or reads of other collections.
+ *
+ * Commands slower than a threshold are logged with their shape, where every value is replaced by "?" and arrays only
+ * show their first element and their size, so no variant data ends up in the logs. To avoid flooding the logs, at
+ * most one slow command is logged per second.
+ *
+ * A summary of all the latencies is logged periodically and by {@link #logSummary()}. The summary includes the size,
+ * number of connections in use and wait queue size of every connection pool, read from the MBeans that the driver
+ * registers by default.
+ */
+public class MongoCommandMetrics implements CommandListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoCommandMetrics.class);
+
+    private static final String NO_COLLECTION = "-";
+
+    private static final String GET_MORE = "getMore";
+
+    private static final String GET_MORE_COLLECTION = "collection";
+
+    private static final String HIDDEN_VALUE = "?";
+
+    private static final int MAX_SHAPE_LENGTH = 1000;
+
+    private static final long SLOW_COMMAND_LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private static final String CONNECTION_POOL_MBEANS = "org.mongodb.driver:type=ConnectionPool,*";
+
+    private final long slowCommandNanos;
+
+    private final long summaryIntervalNanos;
+
+    private final Map<Integer, StartedCommand> startedCommands;
+
+    private final Map<String, LatencyHistogram> latencies;
+
+    private final Map<String, AtomicLong> failures;
+
+    private final AtomicLong lastSlowCommandLogNanos;
+
+    private final AtomicLong slowCommandsNotLogged;
+
+    private final AtomicLong lastSummaryNanos;
+
+    /**
+     * @param slowCommandMillis Commands that take longer are logged, 0 to not log any
+     * @param summaryIntervalSeconds Time between summaries of all latencies in the log, 0 to not log them
+     */
+    public MongoCommandMetrics(long slowCommandMillis, long summaryIntervalSeconds) {
+        this.slowCommandNanos = TimeUnit.MILLISECONDS.toNanos(slowCommandMillis);
+        this.summaryIntervalNanos = TimeUnit.SECONDS.toNanos(summaryIntervalSeconds);
+        this.startedCommands = new ConcurrentHashMap<>();
+        this.latencies = new ConcurrentHashMap<>();
+        this.failures = new ConcurrentHashMap<>();
+        this.lastSlowCommandLogNanos = new AtomicLong(System.nanoTime() - SLOW_COMMAND_LOG_INTERVAL_NANOS);
+        this.slowCommandsNotLogged = new AtomicLong();
+        this.lastSummaryNanos = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * The command document is only available in this event, and the driver may release it afterwards, so its shape is
+     * calculated here if slow commands have to be logged
+     */
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        BsonDocument command = event.getCommand();
+        String key = getCollectionName(event.getCommandName(), command) + " " + event.getCommandName();
+        String shape = slowCommandNanos > 0 ? getShape(command) : null;
+        startedCommands.put(event.getRequestId(), new StartedCommand(key, event.getDatabaseName(), shape));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        StartedCommand command = startedCommands.remove(event.getRequestId());
+        if (command != null) {
+            record(command, event.getElapsedTime(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        StartedCommand command = startedCommands.remove(event.getRequestId());
+        if (command != null) {
+            failures.computeIfAbsent(command.key, key -> new AtomicLong()).incrementAndGet();
+            record(command, event.getElapsedTime(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    private void record(StartedCommand command, long nanos) {
+        latencies.computeIfAbsent(command.key, key -> new LatencyHistogram()).record(nanos);
+        long now = System.nanoTime();
+        if (slowCommandNanos > 0 && nanos >= slowCommandNanos) {
+            logSlowCommand(command, nanos, now);
+        }
+        long lastSummary = lastSummaryNanos.get();
+        if (summaryIntervalNanos > 0 && now - lastSummary >= summaryIntervalNanos
+                && lastSummaryNanos.compareAndSet(lastSummary, now)) {
+            logSummary();
+        }
+    }
+
+    private void logSlowCommand(StartedCommand command, long nanos, long now) {
+        long lastLog = lastSlowCommandLogNanos.get();
+        if (now - lastLog >= SLOW_COMMAND_LOG_INTERVAL_NANOS && lastSlowCommandLogNanos.compareAndSet(lastLog, now)) {
+            logger.warn("Slow MongoDB command in {}.{} took {} ms ({} other slow commands not logged): {}",
+                        command.databaseName, command.key, nanos / NANOS_PER_MILLI,
+                        slowCommandsNotLogged.getAndSet(0), command.shape);
+        } else {
+            slowCommandsNotLogged.incrementAndGet();
+        }
+    }
+
+    /**
+     * Most commands have the collection as the value of their first field, e.g. {"insert": "collection", ...}
+     */
+    static String getCollectionName(String commandName, BsonDocument command) {
+        BsonValue collection = GET_MORE.equals(commandName) ? command.get(GET_MORE_COLLECTION) : command.get(
+                commandName);
+        return collection != null && collection.isString() ? collection.asString().getValue() : NO_COLLECTION;
+    }
+
+    /**
+     * @return The command with all the values replaced by "?". Arrays are shown as their first element followed by
+     * their size, and the result is truncated if too long.
+     */
+    static String getShape(BsonDocument command) {
+        StringBuilder shape = new StringBuilder();
+        appendShape(shape, command);
+        if (shape.length() > MAX_SHAPE_LENGTH) {
+            shape.setLength(MAX_SHAPE_LENGTH);
+            shape.append("...");
+        }
+        return shape.toString();
+    }
+
+    private static void appendShape(StringBuilder shape, BsonValue value) {
+        if (shape.length() > MAX_SHAPE_LENGTH) {
+            return;
+        }
+        if (value.isDocument()) {
+            shape.append('{');
+            String separator = "";
+            for (Map.Entry<String, BsonValue> field : value.asDocument().entrySet()) {
+                shape.append(separator).append(field.getKey()).append(": ");
+                appendShape(shape, field.getValue());
+                separator = ", ";
+            }
+            shape.append('}');
+        } else if (value.isArray()) {
+            BsonArray array = value.asArray();
+            shape.append('[');
+            if (!array.isEmpty()) {
+                appendShape(shape, array.get(0));
+                shape.append(" x").append(array.size());
+            }
+            shape.append(']');
+        } else {
+            shape.append(HIDDEN_VALUE);
+        }
+    }
+
+    /**
+     * @return The latency of every command, by collection and command name
+     */
+    public Map<String, LatencyHistogram> getLatencies() {
+        return new TreeMap<>(latencies);
+    }
+
+    public long getFailures(String collectionAndCommand) {
+        AtomicLong failureCount = failures.get(collectionAndCommand);
+        return failureCount == null ? 0 : failureCount.get();
+    }
+
+    public void logSummary() {
+        for (Map.Entry<String, LatencyHistogram> entry : getLatencies().entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            logger.info("MongoDB {}: {} commands ({} failed), mean {} ms, p50 <= {} ms, p99 <= {} ms, total {} ms",
+                        entry.getKey(), histogram.getCount(), getFailures(entry.getKey()),
+                        histogram.getMeanNanos() / NANOS_PER_MILLI,
+                        histogram.getQuantileNanos(0.5) / NANOS_PER_MILLI,
+                        histogram.getQuantileNanos(0.99) / NANOS_PER_MILLI,
+                        histogram.getSumNanos() / NANOS_PER_MILLI);
+        }
+        logConnectionPools();
+    }
+
+    private void logConnectionPools() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            Set<ObjectName> pools = server.queryNames(new ObjectName(CONNECTION_POOL_MBEANS), null);
+            for (ObjectName pool : pools) {
+                logger.info("MongoDB connection pool {}:{}: size {} (max {}), in use {}, waiting for a connection {}",
+                            pool.getKeyProperty("host"), pool.getKeyProperty("port"),
+                            server.getAttribute(pool, "Size"), server.getAttribute(pool, "MaxSize"),
+                            server.getAttribute(pool, "CheckedOutCount"), server.getAttribute(pool, "WaitQueueSize"));
+            }
+        } catch (JMException e) {
+            logger.debug("Could not read MongoDB connection pool statistics: {}", e.getMessage());
+        }
+    }
+
+    private static class StartedCommand {
+
+        private final String key;
+
+        private final String databaseName;
+
+        private final String shape;
+
+        StartedCommand(String key, String databaseName, String shape) {
+            this.key = key;
+            this.databaseName = databaseName;
+            this.shape = shape;
+        }
+    }
+}
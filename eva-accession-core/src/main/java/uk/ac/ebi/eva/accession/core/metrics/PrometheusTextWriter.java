@@ -0,0 +1,149 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.core.metrics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Writes {@link StepMetrics} in the Prometheus text exposition format, so the file can be collected by the node
+ * exporter textfile collector or read directly.
+ *
+ * @see <a href="https://prometheus.io/docs/instrumenting/exposition_formats/">Prometheus exposition formats</a>
+ */
+public class PrometheusTextWriter {
+
+    private static final String PREFIX = "eva_accession_step_";
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    /**
+     * Writes to a temporary file that is then moved to the final path, so that the file is never read while
+     * incomplete.
+     */
+    public static void write(Path path, Collection<StepMetrics> stepMetrics) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporaryPath = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temporaryPath, StandardCharsets.UTF_8)) {
+                write(writer, stepMetrics);
+            }
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+    }
+
+    static void write(Appendable writer, Collection<StepMetrics> stepMetrics) throws IOException {
+        writeCounterHeader(writer, "items_total", "Items handled by the step, by stage");
+        for (StepMetrics metrics : stepMetrics) {
+            writeSample(writer, "items_total", metrics, "stage=\"read\"", metrics.getItemsRead());
+            writeSample(writer, "items_total", metrics, "stage=\"process\"", metrics.getItemsProcessed());
+            writeSample(writer, "items_total", metrics, "stage=\"write\"", metrics.getItemsWritten());
+            writeSample(writer, "items_total", metrics, "stage=\"filter\"", metrics.getItemsFiltered());
+        }
+
+        writeCounterHeader(writer, "skips_total", "Items skipped by the step, by stage");
+        for (StepMetrics metrics : stepMetrics) {
+            writeSample(writer, "skips_total", metrics, "stage=\"read\"", metrics.getReadSkips());
+            writeSample(writer, "skips_total", metrics, "stage=\"process\"", metrics.getProcessSkips());
+            writeSample(writer, "skips_total", metrics, "stage=\"write\"", metrics.getWriteSkips());
+        }
+
+        writer.append("# HELP ").append(PREFIX).append("items_per_second Items read per second since the step " +
+                                                                "started\n");
+        writer.append("# TYPE ").append(PREFIX).append("items_per_second gauge\n");
+        for (StepMetrics metrics : stepMetrics) {
+            writeSample(writer, "items_per_second", metrics, null, metrics.getItemsReadPerSecond());
+        }
+
+        writeHistogram(writer, "read_seconds", "Time to read every item", stepMetrics, Stage.READ);
+        writeHistogram(writer, "process_seconds", "Time to process every item", stepMetrics, Stage.PROCESS);
+        writeHistogram(writer, "write_seconds", "Time to write every chunk", stepMetrics, Stage.WRITE);
+        writeHistogram(writer, "chunk_seconds", "Time to read, process and write every chunk", stepMetrics,
+                       Stage.CHUNK);
+    }
+
+    private enum Stage {
+        READ,
+        PROCESS,
+        WRITE,
+        CHUNK
+    }
+
+    private static LatencyHistogram getHistogram(StepMetrics metrics, Stage stage) {
+        switch (stage) {
+            case READ:
+                return metrics.getReadLatency();
+            case PROCESS:
+                return metrics.getProcessLatency();
+            case WRITE:
+                return metrics.getWriteLatency();
+            case CHUNK:
+                return metrics.getChunkLatency();
+            default:
+                throw new IllegalArgumentException("Unknown stage " + stage);
+        }
+    }
+
+    private static void writeCounterHeader(Appendable writer, String name, String help) throws IOException {
+        writer.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        writer.append("# TYPE ").append(PREFIX).append(name).append(" counter\n");
+    }
+
+    private static void writeHistogram(Appendable writer, String name, String help,
+                                       Collection<StepMetrics> stepMetrics, Stage stage) throws IOException {
+        writer.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        writer.append("# TYPE ").append(PREFIX).append(name).append(" histogram\n");
+        for (StepMetrics metrics : stepMetrics) {
+            LatencyHistogram histogram = getHistogram(metrics, stage);
+            for (int i = 0; i < histogram.getNumBuckets(); i++) {
+                String le = "le=\"" + format(histogram.getUpperBoundNanos(i) / NANOS_PER_SECOND) + "\"";
+                writeSample(writer, name + "_bucket", metrics, le, histogram.getCumulativeCount(i));
+            }
+            writeSample(writer, name + "_bucket", metrics, "le=\"+Inf\"", histogram.getCount());
+            writeSample(writer, name + "_sum", metrics, null, histogram.getSumNanos() / NANOS_PER_SECOND);
+            writeSample(writer, name + "_count", metrics, null, histogram.getCount());
+        }
+    }
+
+    private static void writeSample(Appendable writer, String name, StepMetrics metrics, String extraLabel,
+                                    double value) throws IOException {
+        writer.append(PREFIX).append(name).append("{step=\"").append(escape(metrics.getStepName())).append('"');
+        if (extraLabel != null) {
+            writer.append(',').append(extraLabel);
+        }
+        writer.append("} ").append(format(value)).append('\n');
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            return Long.toString((long) value);
+        }
+        return String.format(Locale.ROOT, "%.6g", value);
+    }
+
+    private static String escape(String labelValue) {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
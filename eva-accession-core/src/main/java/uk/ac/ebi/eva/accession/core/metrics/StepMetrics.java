@@ -0,0 +1,201 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timings and counts of a chunk-oriented step: how long it takes to read, process and write every item (writes are
+ * timed per chunk), and how many items were read, processed, written, filtered and skipped.
+ */
+public class StepMetrics implements StepMetricsMBean {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private final String stepName;
+
+    private final long startNanos;
+
+    private final LatencyHistogram readLatency = new LatencyHistogram();
+
+    private final LatencyHistogram processLatency = new LatencyHistogram();
+
+    private final LatencyHistogram writeLatency = new LatencyHistogram();
+
+    private final LatencyHistogram chunkLatency = new LatencyHistogram();
+
+    private final AtomicLong itemsWritten = new AtomicLong();
+
+    private final AtomicLong itemsFiltered = new AtomicLong();
+
+    private final AtomicLong readSkips = new AtomicLong();
+
+    private final AtomicLong processSkips = new AtomicLong();
+
+    private final AtomicLong writeSkips = new AtomicLong();
+
+    public StepMetrics(String stepName) {
+        this.stepName = stepName;
+        this.startNanos = System.nanoTime();
+    }
+
+    public void recordRead(long nanos) {
+        readLatency.record(nanos);
+    }
+
+    public void recordProcess(long nanos, boolean filtered) {
+        processLatency.record(nanos);
+        if (filtered) {
+            itemsFiltered.incrementAndGet();
+        }
+    }
+
+    public void recordWrite(long nanos, int items) {
+        writeLatency.record(nanos);
+        itemsWritten.addAndGet(items);
+    }
+
+    public void recordChunk(long nanos) {
+        chunkLatency.record(nanos);
+    }
+
+    public void recordReadSkip() {
+        readSkips.incrementAndGet();
+    }
+
+    public void recordProcessSkip() {
+        processSkips.incrementAndGet();
+    }
+
+    public void recordWriteSkip() {
+        writeSkips.incrementAndGet();
+    }
+
+    public LatencyHistogram getReadLatency() {
+        return readLatency;
+    }
+
+    public LatencyHistogram getProcessLatency() {
+        return processLatency;
+    }
+
+    public LatencyHistogram getWriteLatency() {
+        return writeLatency;
+    }
+
+    public LatencyHistogram getChunkLatency() {
+        return chunkLatency;
+    }
+
+    @Override
+    public String getStepName() {
+        return stepName;
+    }
+
+    @Override
+    public long getItemsRead() {
+        return readLatency.getCount();
+    }
+
+    @Override
+    public long getItemsProcessed() {
+        return processLatency.getCount();
+    }
+
+    @Override
+    public long getItemsWritten() {
+        return itemsWritten.get();
+    }
+
+    @Override
+    public long getItemsFiltered() {
+        return itemsFiltered.get();
+    }
+
+    public long getReadSkips() {
+        return readSkips.get();
+    }
+
+    public long getProcessSkips() {
+        return processSkips.get();
+    }
+
+    public long getWriteSkips() {
+        return writeSkips.get();
+    }
+
+    @Override
+    public long getSkips() {
+        return getReadSkips() + getProcessSkips() + getWriteSkips();
+    }
+
+    @Override
+    public long getChunks() {
+        return chunkLatency.getCount();
+    }
+
+    public double getElapsedSeconds() {
+        return (System.nanoTime() - startNanos) / NANOS_PER_SECOND;
+    }
+
+    @Override
+    public double getItemsReadPerSecond() {
+        return getItemsRead() / getElapsedSeconds();
+    }
+
+    @Override
+    public double getItemsWrittenPerSecond() {
+        return getItemsWritten() / getElapsedSeconds();
+    }
+
+    @Override
+    public double getMeanReadMillis() {
+        return readLatency.getMeanNanos() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getMeanProcessMillis() {
+        return processLatency.getMeanNanos() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getMeanWriteMillis() {
+        return writeLatency.getMeanNanos() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getMeanChunkMillis() {
+        return chunkLatency.getMeanNanos() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP99ChunkMillis() {
+        return chunkLatency.getQuantileNanos(0.99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d items read (%.1f/s), %d processed, %d written (%.1f/s), %d filtered, %d skipped. " +
+                                     "Total time reading %.1fs, processing %.1fs, writing %.1fs",
+                             stepName, getItemsRead(), getItemsReadPerSecond(), getItemsProcessed(),
+                             getItemsWritten(), getItemsWrittenPerSecond(), getItemsFiltered(), getSkips(),
+                             readLatency.getSumNanos() / NANOS_PER_SECOND,
+                             processLatency.getSumNanos() / NANOS_PER_SECOND,
+                             writeLatency.getSumNanos() / NANOS_PER_SECOND);
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.core.metrics;
+
+/**
+ * Attributes of {@link StepMetrics} exposed through JMX. Durations are in milliseconds.
+ */
+public interface StepMetricsMBean {
+
+    String getStepName();
+
+    long getItemsRead();
+
+    long getItemsProcessed();
+
+    long getItemsWritten();
+
+    long getItemsFiltered();
+
+    long getSkips();
+
+    long getChunks();
+
+    double getItemsReadPerSecond();
+
+    double getItemsWrittenPerSecond();
+
+    double getMeanReadMillis();
+
+    double getMeanProcessMillis();
+
+    double getMeanWriteMillis();
+
+    double getMeanChunkMillis();
+
+    double getP99ChunkMillis();
+
+}
@@ -19,7 +19,12 @@ package uk.ac.ebi.eva.accession.core.persistence;
 
 import uk.ac.ebi.ampt2d.commons.accession.persistence.repositories.IHistoryRepository;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface DbsnpSubmittedVariantOperationRepository extends IHistoryRepository<Long,
         DbsnpSubmittedVariantOperationEntity, String> {
 
+    List<DbsnpSubmittedVariantOperationEntity> findAllByAccessionIn(Collection<Long> accessions);
+
 }
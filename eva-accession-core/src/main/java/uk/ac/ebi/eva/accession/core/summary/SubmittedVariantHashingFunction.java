@@ -0,0 +1,42 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.summary;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+
+import java.util.function.Function;
+
+/**
+ * Equivalent to {@code new SubmittedVariantSummaryFunction().andThen(new SHA1HashingFunction())}, but without
+ * building the intermediate summary string. Both functions must be kept in sync.
+ */
+public class SubmittedVariantHashingFunction implements Function<ISubmittedVariant, String> {
+
+    @Override
+    public String apply(ISubmittedVariant model) {
+        return SummaryHasher.get()
+                            .append(model.getReferenceSequenceAccession())
+                            .append('_').append(model.getProjectAccession())
+                            .append('_').append(model.getContig())
+                            .append('_').append(model.getStart())
+                            .append('_').append(model.getReferenceAllele())
+                            .append('_').append(model.getAlternateAllele())
+                            .digest();
+    }
+
+}
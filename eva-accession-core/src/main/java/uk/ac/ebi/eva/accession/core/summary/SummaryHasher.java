@@ -0,0 +1,158 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.summary;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Computes the SHA1 of a summary without building the summary string. The fields are encoded as UTF-8 into a buffer
+ * that is reused between summaries, and the digest is hex-encoded into a reused char array, so the only object
+ * allocated per summary is the returned hash.
+ *
+ * The result is the same as applying SHA1HashingFunction to the summary built with a StringBuilder: upper case hex
+ * of the SHA1 of the UTF-8 bytes, where null fields are written as "null".
+ *
+ * Instances are not thread-safe; use {@link #get()} to obtain the one of the current thread.
+ */
+public class SummaryHasher {
+
+    private static final ThreadLocal<SummaryHasher> HASHERS = ThreadLocal.withInitial(SummaryHasher::new);
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private static final byte[] NULL_BYTES = "null".getBytes(StandardCharsets.UTF_8);
+
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    private static final int MAX_LONG_DIGITS = 20;
+
+    private final MessageDigest messageDigest;
+
+    private byte[] buffer;
+
+    private int length;
+
+    private final char[] hex;
+
+    SummaryHasher() {
+        try {
+            messageDigest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        buffer = new byte[INITIAL_BUFFER_SIZE];
+        hex = new char[messageDigest.getDigestLength() * 2];
+    }
+
+    public static SummaryHasher get() {
+        return HASHERS.get().reset();
+    }
+
+    public SummaryHasher reset() {
+        length = 0;
+        return this;
+    }
+
+    public SummaryHasher append(char separator) {
+        if (separator < 0x80) {
+            ensureCapacity(1);
+            buffer[length++] = (byte) separator;
+            return this;
+        }
+        return append(String.valueOf(separator));
+    }
+
+    public SummaryHasher append(String field) {
+        if (field == null) {
+            return append(NULL_BYTES);
+        }
+        int fieldLength = field.length();
+        ensureCapacity(fieldLength);
+        for (int i = 0; i < fieldLength; i++) {
+            char character = field.charAt(i);
+            if (character >= 0x80) {
+                length -= i;
+                return append(field.getBytes(StandardCharsets.UTF_8));
+            }
+            buffer[length++] = (byte) character;
+        }
+        return this;
+    }
+
+    public SummaryHasher append(Object field) {
+        return append(field == null ? null : field.toString());
+    }
+
+    public SummaryHasher append(long field) {
+        ensureCapacity(MAX_LONG_DIGITS);
+        if (field == Long.MIN_VALUE) {
+            return append(Long.toString(field));
+        }
+        if (field < 0) {
+            buffer[length++] = '-';
+            field = -field;
+        }
+        int end = length + numDigits(field);
+        for (int i = end - 1; i >= length; i--) {
+            buffer[i] = (byte) ('0' + field % 10);
+            field /= 10;
+        }
+        length = end;
+        return this;
+    }
+
+    private SummaryHasher append(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+        return this;
+    }
+
+    private static int numDigits(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    private void ensureCapacity(int extraBytes) {
+        if (length + extraBytes > buffer.length) {
+            byte[] newBuffer = new byte[Math.max(buffer.length * 2, length + extraBytes)];
+            System.arraycopy(buffer, 0, newBuffer, 0, length);
+            buffer = newBuffer;
+        }
+    }
+
+    /**
+     * @return The upper case hex SHA1 of the fields appended since the last reset
+     */
+    public String digest() {
+        messageDigest.update(buffer, 0, length);
+        byte[] digest = messageDigest.digest();
+        for (int i = 0; i < digest.length; i++) {
+            hex[2 * i] = HEX_DIGITS[(digest[i] >> 4) & 0x0F];
+            hex[2 * i + 1] = HEX_DIGITS[digest[i] & 0x0F];
+        }
+        reset();
+        return new String(hex);
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core;
+
+import com.lordofthejars.nosqlunit.annotation.UsingDataSet;
+import com.lordofthejars.nosqlunit.mongodb.MongoDbConfigurationBuilder;
+import com.lordofthejars.nosqlunit.mongodb.MongoDbRule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.mongodb.MongoDbFactory;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import uk.ac.ebi.ampt2d.commons.accession.core.exceptions.AccessionCouldNotBeGeneratedException;
+import uk.ac.ebi.ampt2d.commons.accession.core.models.AccessionWrapper;
+import uk.ac.ebi.ampt2d.commons.accession.generators.monotonic.MonotonicAccessionGenerator;
+import uk.ac.ebi.ampt2d.commons.accession.hashing.SHA1HashingFunction;
+
+import uk.ac.ebi.eva.accession.core.bloomfilter.HashBloomFilter;
+import uk.ac.ebi.eva.accession.core.configuration.SubmittedVariantAccessioningConfiguration;
+import uk.ac.ebi.eva.accession.core.persistence.DbsnpMonotonicAccessionGenerator;
+import uk.ac.ebi.eva.accession.core.persistence.DbsnpSubmittedVariantAccessioningDatabaseService;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningDatabaseService;
+import uk.ac.ebi.eva.accession.core.service.DbsnpSubmittedVariantMonotonicAccessioningService;
+import uk.ac.ebi.eva.accession.core.service.SubmittedVariantMonotonicAccessioningService;
+import uk.ac.ebi.eva.accession.core.summary.SubmittedVariantHashingFunction;
+import uk.ac.ebi.eva.accession.core.summary.SubmittedVariantSummaryFunction;
+import uk.ac.ebi.eva.accession.core.test.configuration.MongoTestConfiguration;
+import uk.ac.ebi.eva.accession.core.test.rule.FixSpringMongoDbRule;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the dbSNP collection is only queried for the variants that might be in the bloom filter of their
+ * assembly, or whose assembly has no filter.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@TestPropertySource("classpath:ss-accession-test.properties")
+@ContextConfiguration(classes = {SubmittedVariantAccessioningConfiguration.class, MongoTestConfiguration.class})
+public class SubmittedVariantAccessioningServiceBloomFilterTest {
+
+    private static final String DBSNP_ASSEMBLY = "GCA_000009999.3";
+
+    private static final String EVA_ASSEMBLY = "GCA_000003055.3";
+
+    private static final long ACCESSION_DBSNP_1 = 2200000000L;
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    @Rule
+    public MongoDbRule mongoDbRule = new FixSpringMongoDbRule(
+            MongoDbConfigurationBuilder.mongoDb().databaseName("submitted-variants-test").build());
+
+    @Autowired
+    private MonotonicAccessionGenerator<ISubmittedVariant> submittedVariantAccessionGenerator;
+
+    @Autowired
+    private DbsnpMonotonicAccessionGenerator<ISubmittedVariant> dbsnpSubmittedVariantAccessionGenerator;
+
+    @Autowired
+    private SubmittedVariantAccessioningDatabaseService dbService;
+
+    @Autowired
+    private DbsnpSubmittedVariantAccessioningDatabaseService dbServiceDbsnp;
+
+    @Autowired
+    private Long accessioningMonotonicInitSs;
+
+    @Autowired
+    private MongoDbFactory mongoDbFactory;
+
+    //Required by nosql-unit
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    private SubmittedVariant dbsnpSubmittedVariant;
+
+    @Before
+    public void setUp() {
+        dbsnpSubmittedVariant = new SubmittedVariant(DBSNP_ASSEMBLY, 9999, "DBSNP999", "21", 20849999, "", "GG",
+                                                     null);
+    }
+
+    @UsingDataSet(locations = {"/test-data/dbsnpSubmittedVariantEntity.json"})
+    @Test
+    public void variantAbsentFromTheFilterIsNotLookedUpInDbsnp() throws AccessionCouldNotBeGeneratedException {
+        HashBloomFilter emptyFilter = HashBloomFilter.create(DBSNP_ASSEMBLY, 1, FALSE_POSITIVE_RATE);
+        SubmittedVariantAccessioningService service = createService(
+                Collections.singletonMap(DBSNP_ASSEMBLY, emptyFilter));
+
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> accessions = service.getOrCreate(
+                Collections.singletonList(dbsnpSubmittedVariant));
+
+        assertEquals(1, accessions.size());
+        assertTrue(accessions.get(0).getAccession() >= accessioningMonotonicInitSs);
+        assertEquals(1, mongoDbFactory.getDb().getCollection("submittedVariantEntity").count());
+    }
+
+    @UsingDataSet(locations = {"/test-data/dbsnpSubmittedVariantEntity.json"})
+    @Test
+    public void variantPresentInTheFilterIsFoundInDbsnp() throws AccessionCouldNotBeGeneratedException {
+        HashBloomFilter filter = HashBloomFilter.create(DBSNP_ASSEMBLY, 1, FALSE_POSITIVE_RATE);
+        filter.put(new SubmittedVariantHashingFunction().apply(dbsnpSubmittedVariant));
+        SubmittedVariantAccessioningService service = createService(Collections.singletonMap(DBSNP_ASSEMBLY, filter));
+
+        assertFoundInDbsnp(service);
+    }
+
+    @UsingDataSet(locations = {"/test-data/dbsnpSubmittedVariantEntity.json"})
+    @Test
+    public void variantOfAssemblyWithoutFilterIsFoundInDbsnp() throws AccessionCouldNotBeGeneratedException {
+        HashBloomFilter otherAssemblyFilter = HashBloomFilter.create(EVA_ASSEMBLY, 1, FALSE_POSITIVE_RATE);
+        SubmittedVariantAccessioningService service = createService(
+                Collections.singletonMap(EVA_ASSEMBLY, otherAssemblyFilter));
+
+        assertFoundInDbsnp(service);
+    }
+
+    private SubmittedVariantAccessioningService createService(Map<String, HashBloomFilter> dbsnpBloomFilters) {
+        return new SubmittedVariantAccessioningService(
+                new SubmittedVariantMonotonicAccessioningService(submittedVariantAccessionGenerator, dbService,
+                                                                 new SubmittedVariantSummaryFunction(),
+                                                                 new SHA1HashingFunction()),
+                new DbsnpSubmittedVariantMonotonicAccessioningService(dbsnpSubmittedVariantAccessionGenerator,
+                                                                      dbServiceDbsnp,
+                                                                      new SubmittedVariantSummaryFunction(),
+                                                                      new SHA1HashingFunction()),
+                accessioningMonotonicInitSs, null, null, dbsnpBloomFilters);
+    }
+
+    private void assertFoundInDbsnp(SubmittedVariantAccessioningService service)
+            throws AccessionCouldNotBeGeneratedException {
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> accessions = service.getOrCreate(
+                Collections.singletonList(dbsnpSubmittedVariant));
+
+        assertEquals(1, accessions.size());
+        assertEquals(ACCESSION_DBSNP_1, accessions.get(0).getAccession().longValue());
+        assertEquals(0, mongoDbFactory.getDb().getCollection("submittedVariantEntity").count());
+    }
+}
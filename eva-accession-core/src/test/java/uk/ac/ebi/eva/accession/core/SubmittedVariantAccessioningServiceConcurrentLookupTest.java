@@ -0,0 +1,97 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core;
+
+import com.lordofthejars.nosqlunit.annotation.UsingDataSet;
+import com.lordofthejars.nosqlunit.mongodb.MongoDbConfigurationBuilder;
+import com.lordofthejars.nosqlunit.mongodb.MongoDbRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import uk.ac.ebi.ampt2d.commons.accession.core.models.AccessionWrapper;
+
+import uk.ac.ebi.eva.accession.core.configuration.SubmittedVariantAccessioningConfiguration;
+import uk.ac.ebi.eva.accession.core.test.configuration.MongoTestConfiguration;
+import uk.ac.ebi.eva.accession.core.test.rule.FixSpringMongoDbRule;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that querying the EVA and dbSNP collections concurrently returns the same results as the sequential mode
+ * tested in {@link SubmittedVariantAccessioningServiceTest}.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@TestPropertySource(value = "classpath:ss-accession-test.properties",
+                    properties = "accessioning.submitted.lookupThreads=2")
+@ContextConfiguration(classes = {SubmittedVariantAccessioningConfiguration.class, MongoTestConfiguration.class})
+public class SubmittedVariantAccessioningServiceConcurrentLookupTest {
+
+    private static final long ACCESSION = 5000000000L;
+
+    private static final long ACCESSION_DBSNP_1 = 2200000000L;
+
+    @Rule
+    public MongoDbRule mongoDbRule = new FixSpringMongoDbRule(
+            MongoDbConfigurationBuilder.mongoDb().databaseName("submitted-variants-test").build());
+
+    @Autowired
+    private SubmittedVariantAccessioningService service;
+
+    //Required by nosql-unit
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @UsingDataSet(locations = {"/test-data/submittedVariantEntity.json", "/test-data/dbsnpSubmittedVariantEntity.json"})
+    @Test
+    public void getFromBothRepositories() {
+        SubmittedVariant submittedVariant = new SubmittedVariant("GCA_000003055.3", 9913, "PRJEB21794", "21",
+                                                                 20800319, "C", "T", null);
+        SubmittedVariant dbsnpSubmittedVariant = new SubmittedVariant("GCA_000009999.3", 9999, "DBSNP999", "21",
+                                                                      20849999, "", "GG", null);
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> accessions = service.get(
+                Arrays.asList(submittedVariant, dbsnpSubmittedVariant));
+
+        assertEquals(new HashSet<>(Arrays.asList(ACCESSION, ACCESSION_DBSNP_1)), getAccessions(accessions));
+    }
+
+    @UsingDataSet(locations = {"/test-data/submittedVariantEntity.json", "/test-data/dbsnpSubmittedVariantEntity.json"})
+    @Test
+    public void getByAccessionsFromBothRepositories() {
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> accessions = service.getByAccessions(
+                Arrays.asList(ACCESSION, ACCESSION_DBSNP_1));
+
+        assertEquals(new HashSet<>(Arrays.asList(ACCESSION, ACCESSION_DBSNP_1)), getAccessions(accessions));
+    }
+
+    private Set<Long> getAccessions(List<AccessionWrapper<ISubmittedVariant, String, Long>> accessionWrappers) {
+        return accessionWrappers.stream().map(AccessionWrapper::getAccession).collect(Collectors.toSet());
+    }
+}
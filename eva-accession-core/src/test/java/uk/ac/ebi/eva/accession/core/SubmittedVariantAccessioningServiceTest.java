@@ -19,6 +19,7 @@ import com.lordofthejars.nosqlunit.annotation.UsingDataSet;
 import com.lordofthejars.nosqlunit.core.LoadStrategyEnum;
 import com.lordofthejars.nosqlunit.mongodb.MongoDbConfigurationBuilder;
 import com.lordofthejars.nosqlunit.mongodb.MongoDbRule;
+import com.mongodb.BasicDBObject;
 import com.mongodb.DBObject;
 import org.junit.Before;
 import org.junit.Rule;
@@ -42,11 +43,13 @@ import uk.ac.ebi.ampt2d.commons.accession.core.models.IEvent;
 import uk.ac.ebi.ampt2d.commons.accession.hashing.SHA1HashingFunction;
 import uk.ac.ebi.ampt2d.commons.accession.service.BasicMonotonicAccessioningService;
 
+import uk.ac.ebi.eva.accession.core.cache.AccessionCache;
 import uk.ac.ebi.eva.accession.core.configuration.SubmittedVariantAccessioningConfiguration;
 import uk.ac.ebi.eva.accession.core.persistence.DbsnpMonotonicAccessionGenerator;
 import uk.ac.ebi.eva.accession.core.persistence.DbsnpSubmittedVariantAccessioningDatabaseService;
 import uk.ac.ebi.eva.accession.core.service.DbsnpSubmittedVariantInactiveService;
 import uk.ac.ebi.eva.accession.core.service.SubmittedVariantInactiveService;
+import uk.ac.ebi.eva.accession.core.summary.SubmittedVariantHashingFunction;
 import uk.ac.ebi.eva.accession.core.summary.SubmittedVariantSummaryFunction;
 import uk.ac.ebi.eva.accession.core.test.configuration.MongoTestConfiguration;
 import uk.ac.ebi.eva.accession.core.test.rule.FixSpringMongoDbRule;
@@ -71,7 +74,8 @@ import static uk.ac.ebi.eva.accession.core.ISubmittedVariant.DEFAULT_VALIDATED;
 
 @RunWith(SpringRunner.class)
 @DataJpaTest
-@TestPropertySource("classpath:ss-accession-test.properties")
+@TestPropertySource(value = "classpath:ss-accession-test.properties",
+                    properties = "accessioning.submitted.cacheSize=100")
 @ContextConfiguration(classes = {SubmittedVariantAccessioningConfiguration.class, MongoTestConfiguration.class})
 public class SubmittedVariantAccessioningServiceTest {
 
@@ -95,6 +99,8 @@ public class SubmittedVariantAccessioningServiceTest {
 
     private static final long ACCESSION_DBSNP_2 = 2200000001L;
 
+    private static final long ACCESSION_DBSNP_DUPLICATE = 2200000010L;
+
     private static final String DEPRECATE_REASON = "Test deprecate";
 
     private static final String MERGE_REASON = "Test merge";
@@ -129,12 +135,18 @@ public class SubmittedVariantAccessioningServiceTest {
     @Autowired
     private Long accessioningMonotonicInitSs;
 
+    @Autowired
+    private AccessionCache<ISubmittedVariant> cache;
+
     //Required by nosql-unit
     @Autowired
     private ApplicationContext applicationContext;
 
     @Before
     public void setUp() {
+        // the context, and so the cache, is shared by all the tests, but the database is not
+        cache.clear();
+
         submittedVariant = new SubmittedVariant("GCA_000003055.3", 9913, PROJECT, "21", 20800319, "C", "T",
                                                 CLUSTERED_VARIANT, DEFAULT_SUPPORTED_BY_EVIDENCE,
                                                 DEFAULT_ASSEMBLY_MATCH, true,
@@ -213,6 +225,22 @@ public class SubmittedVariantAccessioningServiceTest {
         assertEquals(3, submittedVariants.size());
     }
 
+    @UsingDataSet(locations = {"/test-data/dbsnpSubmittedVariantEntity.json"})
+    @Test
+    public void getOrCreateReturnsDbsnpAccessionForEquivalentVariant() throws AccessionCouldNotBeGeneratedException {
+        SubmittedVariant equivalentDbsnpSubmittedVariant = new SubmittedVariant("GCA_000009999.3", 9999, PROJECT_DBSNP,
+                                                                                "21", 20849999, "", "GG", 10L,
+                                                                                !DEFAULT_SUPPORTED_BY_EVIDENCE,
+                                                                                DEFAULT_ASSEMBLY_MATCH, true,
+                                                                                DEFAULT_VALIDATED, null);
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> submittedVariants = service.getOrCreate(
+                Collections.singletonList(equivalentDbsnpSubmittedVariant));
+
+        assertEquals(1, submittedVariants.size());
+        assertEquals(ACCESSION_DBSNP_1, submittedVariants.get(0).getAccession().longValue());
+        assertEquals(0, mongoDbFactory.getDb().getCollection("submittedVariantEntity").count());
+    }
+
     @UsingDataSet(locations = {"/test-data/submittedVariantEntity.json", "/test-data/dbsnpSubmittedVariantEntity.json"})
     @Test
     public void getFromBothRepositories() {
@@ -221,6 +249,21 @@ public class SubmittedVariantAccessioningServiceTest {
         assertEquals(2, accessions.size());
     }
 
+    @UsingDataSet(locations = {"/test-data/submittedVariantEntity.json", "/test-data/dbsnpSubmittedVariantEntity.json"})
+    @Test
+    public void getReturnsDbsnpAccessionForVariantInBothRepositories() {
+        DBObject evaVariant = mongoDbFactory.getDb().getCollection("submittedVariantEntity").findOne(
+                new BasicDBObject("accession", ACCESSION));
+        evaVariant.put("accession", ACCESSION_DBSNP_DUPLICATE);
+        mongoDbFactory.getDb().getCollection("dbsnpSubmittedVariantEntity").insert(evaVariant);
+
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> accessions = service.get(
+                Arrays.asList(submittedVariant, dbsnpSubmittedVariant));
+        assertEquals(2, accessions.size());
+        assertEquals(new HashSet<>(Arrays.asList(ACCESSION_DBSNP_DUPLICATE, ACCESSION_DBSNP_1)),
+                     accessions.stream().map(AccessionWrapper::getAccession).collect(Collectors.toSet()));
+    }
+
     @UsingDataSet(locations = {"/test-data/submittedVariantEntity.json", "/test-data/dbsnpSubmittedVariantEntity.json"})
     @Test
     public void getByAccessionsFromBothRepositories() {
@@ -229,6 +272,21 @@ public class SubmittedVariantAccessioningServiceTest {
         assertEquals(2, submittedVariants.size());
     }
 
+    @UsingDataSet(locations = {"/test-data/submittedVariantEntity.json", "/test-data/dbsnpSubmittedVariantEntity.json"})
+    @Test
+    public void getByAccessionsFromOneRepository() {
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> submittedVariants = service.getByAccessions(
+                Collections.singletonList(ACCESSION));
+        assertEquals(1, submittedVariants.size());
+        assertEquals(submittedVariant, submittedVariants.get(0).getData());
+
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> dbsnpSubmittedVariants = service.getByAccessions(
+                Arrays.asList(ACCESSION_DBSNP_1, ACCESSION_DBSNP_2));
+        assertEquals(2, dbsnpSubmittedVariants.size());
+        assertTrue(dbsnpSubmittedVariants.stream().allMatch(
+                wrapper -> wrapper.getAccession() < accessioningMonotonicInitSs));
+    }
+
     @UsingDataSet(locations = {"/test-data/submittedVariantEntity.json", "/test-data/dbsnpSubmittedVariantEntity.json"})
     @Test
     public void getByAccessionAndVersionFromBothRepositories() throws AccessionMergedException,
@@ -432,4 +490,83 @@ public class SubmittedVariantAccessioningServiceTest {
 
         assertEquals(createdDate, generatedAccessions.get(0).getData().getCreatedDate());
     }
+
+    @UsingDataSet(loadStrategy = LoadStrategyEnum.DELETE_ALL)
+    @Test
+    public void getOrCreateWritesIssuedAccessionsThroughToTheCache() throws AccessionCouldNotBeGeneratedException {
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> generatedAccessions = service.getOrCreate(
+                Collections.singletonList(newSubmittedVariant));
+
+        assertEquals(1, cache.size());
+        String hash = new SubmittedVariantHashingFunction().apply(newSubmittedVariant);
+        assertEquals(generatedAccessions.get(0).getAccession(), cache.get(hash).getAccession());
+    }
+
+    @UsingDataSet(locations = {"/test-data/submittedVariantEntity.json", "/test-data/dbsnpSubmittedVariantEntity.json"})
+    @Test
+    public void cachedAccessionsAreNotQueriedInTheDatabase() throws AccessionCouldNotBeGeneratedException {
+        List<SubmittedVariant> variants = Arrays.asList(submittedVariant, dbsnpSubmittedVariant);
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> accessions = service.get(variants);
+        assertEquals(2, accessions.size());
+
+        mongoDbFactory.getDb().getCollection("submittedVariantEntity").remove(new BasicDBObject());
+        mongoDbFactory.getDb().getCollection("dbsnpSubmittedVariantEntity").remove(new BasicDBObject());
+        long hits = cache.getHits();
+
+        assertEquals(new HashSet<>(accessions), new HashSet<>(service.get(variants)));
+        assertEquals(new HashSet<>(accessions), new HashSet<>(service.getOrCreate(variants)));
+        assertEquals(hits + 4, cache.getHits());
+        assertEquals(0, mongoDbFactory.getDb().getCollection("submittedVariantEntity").count());
+    }
+
+    @UsingDataSet(locations = {"/test-data/submittedVariantEntity.json"})
+    @Test
+    public void updateClearsTheCache() throws AccessionDeprecatedException, AccessionDoesNotExistException,
+            AccessionMergedException, HashAlreadyExistsException {
+        assertEquals(1, service.get(Collections.singletonList(submittedVariant)).size());
+        assertEquals(1, cache.size());
+
+        service.update(ACCESSION, 1, submittedVariantModified);
+
+        assertEquals(0, cache.size());
+        assertTrue(service.get(Collections.singletonList(submittedVariant)).isEmpty());
+    }
+
+    @UsingDataSet(locations = {"/test-data/submittedVariantEntity.json"})
+    @Test
+    public void patchClearsTheCache() throws AccessionDeprecatedException, AccessionDoesNotExistException,
+            AccessionMergedException, HashAlreadyExistsException {
+        assertEquals(1, service.get(Collections.singletonList(submittedVariant)).size());
+        assertEquals(1, cache.size());
+
+        service.patch(ACCESSION, submittedVariantModified);
+
+        assertEquals(0, cache.size());
+    }
+
+    @UsingDataSet(locations = {"/test-data/submittedVariantEntity.json"})
+    @Test
+    public void deprecateClearsTheCache() throws AccessionMergedException, AccessionDoesNotExistException,
+            AccessionDeprecatedException {
+        assertEquals(1, service.get(Collections.singletonList(submittedVariant)).size());
+        assertEquals(1, cache.size());
+
+        service.deprecate(ACCESSION, DEPRECATE_REASON);
+
+        assertEquals(0, cache.size());
+        assertTrue(service.get(Collections.singletonList(submittedVariant)).isEmpty());
+    }
+
+    @UsingDataSet(locations = {"/test-data/submittedVariantEntity.json"})
+    @Test
+    public void mergeClearsTheCache() throws AccessionMergedException, AccessionDoesNotExistException,
+            AccessionDeprecatedException {
+        assertEquals(1, service.get(Collections.singletonList(submittedVariant)).size());
+        assertEquals(1, cache.size());
+
+        service.merge(ACCESSION, ACCESSION_TO_MERGE_2, MERGE_REASON);
+
+        assertEquals(0, cache.size());
+        assertTrue(service.get(Collections.singletonList(submittedVariant)).isEmpty());
+    }
 }
@@ -0,0 +1,107 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.bloomfilter;
+
+import com.lordofthejars.nosqlunit.annotation.UsingDataSet;
+import com.lordofthejars.nosqlunit.mongodb.MongoDbConfigurationBuilder;
+import com.lordofthejars.nosqlunit.mongodb.MongoDbRule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import uk.ac.ebi.eva.accession.core.configuration.SubmittedVariantAccessioningConfiguration;
+import uk.ac.ebi.eva.accession.core.test.configuration.MongoTestConfiguration;
+import uk.ac.ebi.eva.accession.core.test.rule.FixSpringMongoDbRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@TestPropertySource("classpath:ss-accession-test.properties")
+@ContextConfiguration(classes = {SubmittedVariantAccessioningConfiguration.class, MongoTestConfiguration.class})
+public class DbsnpSubmittedVariantBloomFilterBuilderTest {
+
+    private static final String ASSEMBLY = "GCA_000009999.3";
+
+    private static final String OTHER_ASSEMBLY = "GCA_000008888.1";
+
+    private static final String HASH_1 = "E29AAC5B32BA8C861EA0B064939F54ABEE6BF66A";
+
+    private static final String HASH_2 = "9367D055604F1488A3082CD20D775D461101666B";
+
+    private static final String HASH_OTHER_ASSEMBLY = "DB5378D395F1CE27C7E178C07100AB8DD39D4B84";
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    @Rule
+    public MongoDbRule mongoDbRule = new FixSpringMongoDbRule(
+            MongoDbConfigurationBuilder.mongoDb().databaseName("submitted-variants-test").build());
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    //Required by nosql-unit
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    private DbsnpSubmittedVariantBloomFilterBuilder builder;
+
+    @Before
+    public void setUp() {
+        builder = new DbsnpSubmittedVariantBloomFilterBuilder(mongoTemplate);
+    }
+
+    @UsingDataSet(locations = {"/test-data/dbsnpSubmittedVariantEntityBloomFilter.json"})
+    @Test
+    public void filterOnlyContainsHashesOfTheAssembly() {
+        HashBloomFilter filter = builder.build(ASSEMBLY, FALSE_POSITIVE_RATE);
+
+        assertEquals(ASSEMBLY, filter.getAssemblyAccession());
+        assertEquals(2, filter.getNumHashes());
+        assertTrue(filter.mightContain(HASH_1));
+        assertTrue(filter.mightContain(HASH_2));
+        assertFalse(filter.mightContain(HASH_OTHER_ASSEMBLY));
+    }
+
+    @UsingDataSet(locations = {"/test-data/dbsnpSubmittedVariantEntityBloomFilter.json"})
+    @Test
+    public void filterOfAssemblyWithoutVariantsIsEmpty() {
+        HashBloomFilter filter = builder.build("GCA_000000001.1", FALSE_POSITIVE_RATE);
+
+        assertEquals(0, filter.getNumHashes());
+        assertFalse(filter.mightContain(HASH_1));
+    }
+
+    @UsingDataSet(locations = {"/test-data/dbsnpSubmittedVariantEntityBloomFilter.json"})
+    @Test
+    public void countHashesOfAssembly() {
+        assertEquals(2, builder.countHashes(ASSEMBLY));
+        assertEquals(1, builder.countHashes(OTHER_ASSEMBLY));
+        assertEquals(0, builder.countHashes("GCA_000000001.1"));
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.bloomfilter;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HashBloomFilterTest {
+
+    private static final String ASSEMBLY = "GCA_000000001.1";
+
+    private static final int NUM_HASHES = 10000;
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void addedHashesAreAlwaysFound() {
+        HashBloomFilter filter = buildFilter();
+        for (int i = 0; i < NUM_HASHES; i++) {
+            assertTrue(filter.mightContain(hash(i)));
+        }
+        assertEquals(NUM_HASHES, filter.getNumHashes());
+    }
+
+    @Test
+    public void falsePositiveRateIsBounded() {
+        HashBloomFilter filter = buildFilter();
+        int falsePositives = 0;
+        for (int i = NUM_HASHES; i < 2 * NUM_HASHES; i++) {
+            if (filter.mightContain(hash(i))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < NUM_HASHES * FALSE_POSITIVE_RATE * 2);
+    }
+
+    @Test
+    public void hashesThatAreNotHexStringsCanBeAdded() {
+        HashBloomFilter filter = HashBloomFilter.create(ASSEMBLY, 10, FALSE_POSITIVE_RATE);
+        filter.put("not a SHA1 hash");
+        assertTrue(filter.mightContain("not a SHA1 hash"));
+    }
+
+    @Test
+    public void writeAndReadFilter() throws IOException {
+        HashBloomFilter filter = buildFilter();
+        Path directory = temporaryFolder.getRoot().toPath();
+        filter.writeTo(HashBloomFilter.getFilePath(directory, ASSEMBLY));
+
+        Map<String, HashBloomFilter> filters = HashBloomFilter.readAll(directory);
+        assertEquals(1, filters.size());
+        HashBloomFilter readFilter = filters.get(ASSEMBLY);
+        assertEquals(filter.getNumBits(), readFilter.getNumBits());
+        assertEquals(filter.getNumHashFunctions(), readFilter.getNumHashFunctions());
+        assertEquals(filter.getNumHashes(), readFilter.getNumHashes());
+        for (int i = 0; i < NUM_HASHES; i++) {
+            assertTrue(readFilter.mightContain(hash(i)));
+        }
+    }
+
+    @Test
+    public void emptyFilterContainsNothing() {
+        HashBloomFilter filter = HashBloomFilter.create(ASSEMBLY, 0, FALSE_POSITIVE_RATE);
+        assertFalse(filter.mightContain(hash(1)));
+    }
+
+    private HashBloomFilter buildFilter() {
+        HashBloomFilter filter = HashBloomFilter.create(ASSEMBLY, NUM_HASHES, FALSE_POSITIVE_RATE);
+        for (int i = 0; i < NUM_HASHES; i++) {
+            filter.put(hash(i));
+        }
+        return filter;
+    }
+
+    private static String hash(int i) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(Integer.toString(i).getBytes(
+                    StandardCharsets.UTF_8));
+            StringBuilder hash = new StringBuilder();
+            for (byte b : digest) {
+                hash.append(String.format("%02X", b));
+            }
+            return hash.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.cache;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ebi.ampt2d.commons.accession.core.models.AccessionWrapper;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariant;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class AccessionCacheTest {
+
+    private static final int MAX_SIZE = 2;
+
+    private AccessionCache<ISubmittedVariant> cache;
+
+    @Before
+    public void setUp() {
+        cache = new AccessionCache<>(MAX_SIZE);
+    }
+
+    @Test
+    public void hitsAndMissesAreCounted() {
+        AccessionWrapper<ISubmittedVariant, String, Long> accession = buildAccessionWrapper(1L, "hash1");
+        cache.putAll(Collections.singletonList(accession));
+
+        assertEquals(accession, cache.get("hash1"));
+        assertNull(cache.get("hash2"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void leastRecentlyUsedEntryIsEvicted() {
+        cache.putAll(Arrays.asList(buildAccessionWrapper(1L, "hash1"), buildAccessionWrapper(2L, "hash2")));
+        cache.get("hash1");
+        cache.putAll(Collections.singletonList(buildAccessionWrapper(3L, "hash3")));
+
+        assertEquals(MAX_SIZE, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertNull(cache.get("hash2"));
+        assertEquals(1L, cache.get("hash1").getAccession().longValue());
+        assertEquals(3L, cache.get("hash3").getAccession().longValue());
+    }
+
+    @Test
+    public void clearRemovesAllEntries() {
+        cache.putAll(Arrays.asList(buildAccessionWrapper(1L, "hash1"), buildAccessionWrapper(2L, "hash2")));
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertNull(cache.get("hash1"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maxSizeMustBePositive() {
+        new AccessionCache<ISubmittedVariant>(0);
+    }
+
+    private AccessionWrapper<ISubmittedVariant, String, Long> buildAccessionWrapper(Long accession, String hash) {
+        return new AccessionWrapper<>(accession, hash,
+                                      new SubmittedVariant("assembly", 1111, "project", "contig", accession, "A", "T",
+                                                           null));
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.contig;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import uk.ac.ebi.eva.accession.core.io.AssemblyReportReader;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class AssemblyReportCacheTest {
+
+    private static final String ASSEMBLY_REPORT =
+            "/input-files/assembly-report/GCA_000001635.8_Mus_musculus-grcm38.p6_assembly_report.txt";
+
+    private static final String OTHER_ASSEMBLY_REPORT =
+            "/input-files/assembly-report/GCF_000002315.4_Gallus_gallus-5.0_assembly_report.txt";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path cacheDirectory;
+
+    private Path assemblyReport;
+
+    private String assemblyReportUrl;
+
+    @Before
+    public void setUp() throws Exception {
+        cacheDirectory = temporaryFolder.getRoot().toPath().resolve("cache");
+        assemblyReport = temporaryFolder.newFile("assembly_report.txt").toPath();
+        Files.copy(Paths.get(AssemblyReportCacheTest.class.getResource(ASSEMBLY_REPORT).toURI()), assemblyReport,
+                   StandardCopyOption.REPLACE_EXISTING);
+        assemblyReportUrl = assemblyReport.toUri().toString();
+    }
+
+    @Test
+    public void cachedReportIsEqualToOriginal() throws Exception {
+        List<ContigSynonyms> expected = readAll(assemblyReportUrl);
+
+        AssemblyReportCache cache = new AssemblyReportCache(cacheDirectory, false);
+        assertEquals(expected, cache.getContigSynonyms(assemblyReportUrl));
+        assertTrue(Files.exists(cache.getFilePath(assemblyReportUrl)));
+        assertEquals(expected, cache.getContigSynonyms(assemblyReportUrl));
+    }
+
+    @Test
+    public void offlineCacheDoesNotReadTheReport() throws Exception {
+        List<ContigSynonyms> expected = readAll(assemblyReportUrl);
+        new AssemblyReportCache(cacheDirectory, false).getContigSynonyms(assemblyReportUrl);
+        Files.delete(assemblyReport);
+
+        assertEquals(expected, new AssemblyReportCache(cacheDirectory, true).getContigSynonyms(assemblyReportUrl));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void offlineCacheRequiresCachedReport() throws Exception {
+        new AssemblyReportCache(cacheDirectory, true).getContigSynonyms(assemblyReportUrl);
+    }
+
+    @Test
+    public void modifiedReportIsDownloadedAgain() throws Exception {
+        AssemblyReportCache cache = new AssemblyReportCache(cacheDirectory, false);
+        cache.getContigSynonyms(assemblyReportUrl);
+
+        Files.copy(Paths.get(AssemblyReportCacheTest.class.getResource(OTHER_ASSEMBLY_REPORT).toURI()),
+                   assemblyReport, StandardCopyOption.REPLACE_EXISTING);
+        Files.setLastModifiedTime(assemblyReport, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+
+        assertEquals(readAll(assemblyReportUrl), cache.getContigSynonyms(assemblyReportUrl));
+    }
+
+    @Test
+    public void corruptedCacheFileIsRebuilt() throws Exception {
+        AssemblyReportCache cache = new AssemblyReportCache(cacheDirectory, false);
+        List<ContigSynonyms> expected = cache.getContigSynonyms(assemblyReportUrl);
+        Path cacheFile = cache.getFilePath(assemblyReportUrl);
+        byte[] bytes = Files.readAllBytes(cacheFile);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(cacheFile, bytes);
+
+        assertEquals(expected, cache.getContigSynonyms(assemblyReportUrl));
+        assertEquals(expected, new AssemblyReportCache(cacheDirectory, true).getContigSynonyms(assemblyReportUrl));
+    }
+
+    @Test
+    public void contigMappingFromCache() throws Exception {
+        AssemblyReportCache cache = new AssemblyReportCache(cacheDirectory, false);
+        cache.getContigSynonyms(assemblyReportUrl);
+
+        ContigMapping contigMapping = new AssemblyReportCache(cacheDirectory, true).getContigMapping(
+                assemblyReportUrl);
+        assertNotNull(contigMapping.getContigSynonyms("CM000994.2"));
+        assertEquals("NC_000067.6", contigMapping.getContigSynonyms("chr1").getRefSeq());
+    }
+
+    private List<ContigSynonyms> readAll(String url) throws Exception {
+        AssemblyReportReader reader = new AssemblyReportReader(url);
+        List<ContigSynonyms> contigSynonyms = new ArrayList<>();
+        ContigSynonyms row;
+        while ((row = reader.read()) != null) {
+            contigSynonyms.add(row);
+        }
+        return contigSynonyms;
+    }
+}
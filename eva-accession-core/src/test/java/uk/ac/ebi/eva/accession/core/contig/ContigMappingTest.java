@@ -18,10 +18,20 @@ package uk.ac.ebi.eva.accession.core.contig;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Set;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static uk.ac.ebi.eva.accession.core.contig.ContigMapping.NamingConvention.ASSIGNED_MOLECULE;
+import static uk.ac.ebi.eva.accession.core.contig.ContigMapping.NamingConvention.GENBANK;
+import static uk.ac.ebi.eva.accession.core.contig.ContigMapping.NamingConvention.REFSEQ;
+import static uk.ac.ebi.eva.accession.core.contig.ContigMapping.NamingConvention.SEQUENCE_NAME;
+import static uk.ac.ebi.eva.accession.core.contig.ContigMapping.NamingConvention.UCSC;
 
 public class ContigMappingTest {
 
@@ -86,6 +96,12 @@ public class ContigMappingTest {
         assertEquals(UCSC_WITHOUT_SYNONYM, contigSynonyms.getUcsc());
     }
 
+    @Test
+    public void nullContigHasNoSynonyms() {
+        assertNull(contigMapping.getContigSynonyms(null));
+        assertNull(contigMapping.getCanonicalName(null));
+    }
+
     @Test
     public void getSynonymsOfDuplicatedAssignedMolecule() {
         ContigSynonyms contigSynonyms = contigMapping.getContigSynonyms(ASSIGNED_MOLECULE_CONTIG);
@@ -111,11 +127,47 @@ public class ContigMappingTest {
 
     @Test
     public void checkAllEntriesWereLoaded() {
-        assertEquals(TOTAL_ROWS, contigMapping.sequenceNameToSynonyms.size());
-        assertEquals(TOTAL_ROWS - NON_ASSEMBLED_MOLECULE_ROWS, contigMapping.assignedMoleculeToSynonyms.size());
-        assertEquals(TOTAL_ROWS, contigMapping.genBankToSynonyms.size());
-        assertEquals(TOTAL_ROWS, contigMapping.refSeqToSynonyms.size());
-        assertEquals(TOTAL_ROWS - MISSING_UCSC_ROWS, contigMapping.ucscToSynonyms.size());
+        assertEquals(TOTAL_ROWS, contigMapping.countNames(SEQUENCE_NAME));
+        assertEquals(TOTAL_ROWS - NON_ASSEMBLED_MOLECULE_ROWS, contigMapping.countNames(ASSIGNED_MOLECULE));
+        assertEquals(TOTAL_ROWS, contigMapping.countNames(GENBANK));
+        assertEquals(TOTAL_ROWS, contigMapping.countNames(REFSEQ));
+        assertEquals(TOTAL_ROWS - MISSING_UCSC_ROWS, contigMapping.countNames(UCSC));
+    }
+
+    @Test
+    public void getContigNamesReturnsAllConventions() {
+        Set<String> contigNames = contigMapping.getContigNames();
+        assertTrue(contigNames.contains(SEQNAME_CONTIG));
+        assertTrue(contigNames.contains(ASSIGNED_MOLECULE_CONTIG));
+        assertTrue(contigNames.contains(GENBANK_CONTIG));
+        assertTrue(contigNames.contains(REFSEQ_CONTIG));
+        assertTrue(contigNames.contains(UCSC_CONTIG));
+        for (String contigName : contigNames) {
+            assertNotNull(contigMapping.getContigSynonyms(contigName));
+        }
+    }
+
+    @Test
+    public void equalNamesShareTheSameInstance() {
+        ContigSynonyms contigSynonyms = contigMapping.getContigSynonyms("2");
+        assertSame(contigSynonyms.getAssignedMolecule(), contigSynonyms.getSequenceName());
+        assertSame(contigSynonyms.getGenBank(), contigMapping.getCanonicalName(new String(GENBANK_CONTIG)));
+        assertEquals(GENBANK_WITHOUT_SYNONYM + "_missing",
+                     contigMapping.getCanonicalName(GENBANK_WITHOUT_SYNONYM + "_missing"));
+    }
+
+    @Test
+    public void namesInSeveralRowsArePrioritisedByConvention() {
+        ContigSynonyms rowWithUcscName = new ContigSynonyms("ctg1", "unlocalized-scaffold", "na", "GL1.1", "NW_2.1",
+                                                            "NW_3.1", false);
+        ContigSynonyms rowWithRefSeqName = new ContigSynonyms("ctg2", "unlocalized-scaffold", "na", "GL2.1", "NW_3.1",
+                                                              "na", false);
+        ContigMapping mapping = new ContigMapping(Arrays.asList(rowWithUcscName, rowWithRefSeqName));
+
+        assertEquals(rowWithRefSeqName, mapping.getContigSynonyms("NW_3.1"));
+        assertEquals(rowWithUcscName, mapping.getContigSynonyms("NW_2.1"));
+        assertEquals(2, mapping.countNames(REFSEQ));
+        assertEquals(1, mapping.countNames(UCSC));
     }
 
     // get SEQNAME
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.core.io;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+
+public class BgzipFastaSequenceFileTest {
+
+    private static final String CONTIG = "22";
+
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void truncatedBlockIsReportedAsCorrupt() throws Exception {
+        BgzipFastaSequenceFile fasta = openFasta("truncated.fa.gz");
+        try {
+            thrown.expect(IllegalStateException.class);
+            thrown.expectCause(instanceOf(IOException.class));
+            fasta.getSequence(CONTIG, 1, 1);
+        } finally {
+            fasta.close();
+        }
+    }
+
+    @Test
+    public void blockWithWrongSizeIsReportedAsCorrupt() throws Exception {
+        BgzipFastaSequenceFile fasta = openFasta("wrongSize.fa.gz");
+        try {
+            thrown.expect(IllegalStateException.class);
+            thrown.expectCause(instanceOf(IOException.class));
+            fasta.getSequence(CONTIG, 1, 1);
+        } finally {
+            fasta.close();
+        }
+    }
+
+    private BgzipFastaSequenceFile openFasta(String filename) throws IOException, URISyntaxException {
+        Path fasta = copyToTemporaryFolder(filename);
+        Path index = copyToTemporaryFolder(filename + ".fai");
+        return new BgzipFastaSequenceFile(fasta, index, 1);
+    }
+
+    private Path copyToTemporaryFolder(String filename) throws IOException, URISyntaxException {
+        return Files.copy(
+                Paths.get(BgzipFastaSequenceFileTest.class.getResource("/input-files/fasta/" + filename).toURI()),
+                temporaryFolder.getRoot().toPath().resolve(filename));
+    }
+}
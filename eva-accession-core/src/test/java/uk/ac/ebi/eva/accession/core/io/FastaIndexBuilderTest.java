@@ -0,0 +1,98 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.core.io;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FastaIndexBuilderTest {
+
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void buildIndexAndDictionary() throws Exception {
+        Path fasta = copyToTemporaryFolder("fastaWithNoDictionary.fa");
+        FastaIndexBuilder.build(fasta);
+
+        assertEquals(Collections.singletonList("22\t540\t67\t60\t61"),
+                     Files.readAllLines(FastaIndexBuilder.getIndexPath(fasta)));
+        List<String> dictionary = Files.readAllLines(FastaIndexBuilder.getDictionaryPath(fasta));
+        assertEquals(2, dictionary.size());
+        assertTrue(dictionary.get(1).startsWith("@SQ\tSN:22\tLN:540\tM5:2ee4f72c420857b41493bf24f7bd6d05\t"));
+    }
+
+    @Test
+    public void softMaskedBasesAreUpperCasedInChecksum() throws Exception {
+        Path fasta = copyToTemporaryFolder("fastaWithSoftMasking.fa");
+        FastaIndexBuilder.build(fasta);
+
+        assertEquals(Collections.singletonList("NW_006738765.1\t160\t128\t80\t81"),
+                     Files.readAllLines(FastaIndexBuilder.getIndexPath(fasta)));
+        assertTrue(Files.readAllLines(FastaIndexBuilder.getDictionaryPath(fasta)).get(1).contains(
+                "M5:5d1de005640eaacf24e566c0ac96882c"));
+    }
+
+    @Test
+    public void existingFilesAreNotOverwritten() throws Exception {
+        Path fasta = copyToTemporaryFolder("fastaWithNoIndex.fa");
+        Path dictionary = copyToTemporaryFolder("fastaWithNoIndex.fa.dict");
+        List<String> originalDictionary = Files.readAllLines(dictionary);
+        FastaIndexBuilder.build(fasta);
+
+        assertEquals(originalDictionary, Files.readAllLines(dictionary));
+        assertTrue(Files.exists(FastaIndexBuilder.getIndexPath(fasta)));
+    }
+
+    @Test
+    public void differentLineLengthsAreNotAllowed() throws Exception {
+        Path fasta = temporaryFolder.getRoot().toPath().resolve("irregular.fa");
+        Files.write(fasta, ">22\nACGT\nAC\nACGT\n".getBytes());
+
+        thrown.expect(IllegalArgumentException.class);
+        FastaIndexBuilder.build(fasta);
+    }
+
+    @Test
+    public void duplicatedSequenceNamesAreNotAllowed() throws Exception {
+        Path fasta = temporaryFolder.getRoot().toPath().resolve("duplicated.fa");
+        Files.write(fasta, ">22\nACGT\n>22 another\nACGT\n".getBytes());
+
+        thrown.expect(IllegalArgumentException.class);
+        FastaIndexBuilder.build(fasta);
+    }
+
+    private Path copyToTemporaryFolder(String filename) throws IOException, URISyntaxException {
+        return Files.copy(Paths.get(FastaIndexBuilderTest.class.getResource("/input-files/fasta/" + filename).toURI()),
+                          temporaryFolder.getRoot().toPath().resolve(filename));
+    }
+}
@@ -30,8 +30,17 @@ import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
 
 public class FastaSequenceReaderTest {
 
@@ -116,20 +125,41 @@ public class FastaSequenceReaderTest {
                      fastaSequenceReader.getSequence("22", 174, 245));
     }
 
+    @Test
+    public void indexedFastaWithNoDictionaryInReadOnlyDirectory() throws Exception {
+        Path fastaPath = copyToTemporaryFolder("fastaWithNoDictionary.fa");
+        copyToTemporaryFolder("fastaWithNoDictionary.fa.fai");
+        File directory = temporaryFolder.getRoot();
+        assertTrue(directory.setWritable(false));
+        try {
+            // permissions are not enforced for root
+            assumeFalse(Files.isWritable(directory.toPath()));
+            FastaSequenceReader fastaSequenceReader = new FastaSequenceReader(fastaPath);
+            assertEquals("CAGCCGCAGTCCGGACAGCGCATGCGCCAGCCGCGAGACCGCACAGCGCATGCGCCAGCGCGAGTGACAGCG",
+                         fastaSequenceReader.getSequence("22", 174, 245));
+            assertFalse(Files.exists(FastaIndexBuilder.getDictionaryPath(fastaPath)));
+            fastaSequenceReader.close();
+        } finally {
+            directory.setWritable(true);
+        }
+    }
+
     private FastaSequenceReader getFastaSequenceReader(String fastaFilename) throws IOException, URISyntaxException {
-        File temporaryFolderRoot = temporaryFolder.getRoot();
-        Path fasta = Files.copy(
-                Paths.get(FastaSequenceReaderTest.class.getResource("/input-files/fasta/" + fastaFilename).toURI()),
-                temporaryFolderRoot.toPath().resolve(fastaFilename));
+        return new FastaSequenceReader(copyToTemporaryFolder(fastaFilename));
+    }
 
-        return new FastaSequenceReader(fasta);
+    private Path copyToTemporaryFolder(String filename) throws IOException, URISyntaxException {
+        File temporaryFolderRoot = temporaryFolder.getRoot();
+        return Files.copy(
+                Paths.get(FastaSequenceReaderTest.class.getResource("/input-files/fasta/" + filename).toURI()),
+                temporaryFolderRoot.toPath().resolve(filename));
     }
 
     /**
      * @TODO find the bug: either we don't use properly htsjdk, or they have a bug reading compressed fastas.
      * This test is ignored because to run it we have to remove the requirement in
-     * {@link FastaSequenceReader#checkFastaIsUncompressed(java.nio.file.Path)} that
-     * forbids compressed fastas. You can comment the requirement by hand and run this test to see if it still applies.
+     * {@link FastaSequenceReader#openBgzipFasta} that forbids gzipped fastas that are not block-compressed. You can
+     * comment the requirement by hand and run this test to see if it still applies.
      */
     @Test
     @Ignore
@@ -142,7 +172,7 @@ public class FastaSequenceReaderTest {
 
     /**
      * For the rationale of this test, look at {@link #htsDoesNotSupportCompressedFastas()} and
-     *  {@link FastaSequenceReader#checkFastaIsUncompressed(java.nio.file.Path)}
+     *  {@link FastaSequenceReader#openBgzipFasta}
      */
     @Test
     public void shouldThrowOnCompressedFasta() throws URISyntaxException, IOException {
@@ -156,6 +186,29 @@ public class FastaSequenceReaderTest {
         new FastaSequenceReader(fasta);
     }
 
+    @Test
+    public void bgzipFastaReturnsSameSequences() throws Exception {
+        FastaSequenceReader fastaSequenceReader = getFastaSequenceReader("fastaWithNoDictionary.fa");
+        copyToTemporaryFolder("bgzipped.fa.gz.fai");
+        FastaSequenceReader bgzipReader = getFastaSequenceReader("bgzipped.fa.gz");
+
+        for (int start = 1; start <= 540; start += 7) {
+            long end = Math.min(start + 70, 540);
+            assertEquals(fastaSequenceReader.getSequence("22", start, end),
+                         bgzipReader.getSequence("22", start, end));
+        }
+        assertEquals("CAGCCGCAGTCCGGACAGCGCATGCGCCAGCCGCGAGACCGCACAGCGCATGCGCCAGCGCGAGTGACAGCG",
+                     bgzipReader.getSequence("22", 174, 245));
+        assertTrue(Files.exists(temporaryFolder.getRoot().toPath().resolve("bgzipped.fa.gz.gzi")));
+        bgzipReader.close();
+    }
+
+    @Test
+    public void bgzipFastaRequiresIndex() throws Exception {
+        thrown.expect(IllegalArgumentException.class);
+        getFastaSequenceReader("bgzipped.fa.gz");
+    }
+
     @Test
     public void shouldConvertToUpper() throws IOException, URISyntaxException {
         FastaSequenceReader fastaSequenceReader = getFastaSequenceReader("fastaWithSoftMasking.fa");
@@ -164,6 +217,115 @@ public class FastaSequenceReaderTest {
         assertEquals("G", fastaSequenceReader.getSequenceToUpperCase(MIXED_CASE_FASTA_CONTIG, 1, 1));
     }
 
+    @Test
+    public void windowedReaderReturnsSameSequences() throws Exception {
+        FastaSequenceReader fastaSequenceReader = getFastaSequenceReader("fastaWithNoDictionary.fa");
+        FastaSequenceReader windowedReader = new FastaSequenceReader(
+                temporaryFolder.getRoot().toPath().resolve("fastaWithNoDictionary.fa"), false, 100);
+
+        for (int start = 1; start <= 540; start += 7) {
+            long end = Math.min(start + 10, 540);
+            assertEquals(fastaSequenceReader.getSequence("22", start, end),
+                         windowedReader.getSequence("22", start, end));
+        }
+        assertEquals("CAGCCGCAGTCCGGACAGCGCATGCGCCAGCCGCGAGACCGCACAGCGCATGCGCCAGCGCGAGTGACAGCG",
+                     windowedReader.getSequence("22", 174, 245));
+    }
+
+    @Test
+    public void windowHitsAndMissesAreCounted() throws Exception {
+        getFastaSequenceReader("fastaWithNoDictionary.fa");
+        FastaSequenceReader windowedReader = new FastaSequenceReader(
+                temporaryFolder.getRoot().toPath().resolve("fastaWithNoDictionary.fa"), false, 100);
+
+        windowedReader.getSequence("22", 200, 200);
+        windowedReader.getSequence("22", 201, 210);
+        windowedReader.getSequence("22", 199, 199);
+        windowedReader.getSequence("22", 500, 500);
+
+        assertEquals(2, windowedReader.getWindowHits());
+        assertEquals(2, windowedReader.getWindowMisses());
+        assertEquals(0.5, windowedReader.getWindowHitRate(), 0);
+    }
+
+    @Test
+    public void singleBasesFromWindowAreNotAllocated() throws Exception {
+        getFastaSequenceReader("fastaWithNoDictionary.fa");
+        FastaSequenceReader windowedReader = new FastaSequenceReader(
+                temporaryFolder.getRoot().toPath().resolve("fastaWithNoDictionary.fa"), false, 100);
+
+        String base = windowedReader.getSequence("22", 200, 200);
+        assertSame(base, windowedReader.getSequence("22", 200, 200));
+        assertEquals(1, windowedReader.getWindowHits());
+    }
+
+    @Test
+    public void everyThreadHasItsOwnWindow() throws Exception {
+        getFastaSequenceReader("fastaWithNoDictionary.fa");
+        FastaSequenceReader windowedReader = new FastaSequenceReader(
+                temporaryFolder.getRoot().toPath().resolve("fastaWithNoDictionary.fa"), false, 100);
+        ExecutorService firstThread = Executors.newSingleThreadExecutor();
+        ExecutorService secondThread = Executors.newSingleThreadExecutor();
+        try {
+            firstThread.submit(() -> windowedReader.getSequence("22", 200, 200)).get();
+            secondThread.submit(() -> windowedReader.getSequence("22", 500, 500)).get();
+            firstThread.submit(() -> windowedReader.getSequence("22", 201, 201)).get();
+            secondThread.submit(() -> windowedReader.getSequence("22", 501, 501)).get();
+        } finally {
+            firstThread.shutdown();
+            secondThread.shutdown();
+        }
+
+        assertEquals(2, windowedReader.getWindowHits());
+        assertEquals(2, windowedReader.getWindowMisses());
+    }
+
+    @Test
+    public void windowedReaderChecksCoordinates() throws Exception {
+        getFastaSequenceReader("fastaWithNoDictionary.fa");
+        FastaSequenceReader windowedReader = new FastaSequenceReader(
+                temporaryFolder.getRoot().toPath().resolve("fastaWithNoDictionary.fa"), false, 100);
+
+        windowedReader.getSequence("22", 530, 530);
+        thrown.expect(IllegalArgumentException.class);
+        windowedReader.getSequence("22", 540, 541);
+    }
+
+    @Test
+    public void readerCanBeSharedByThreads() throws Exception {
+        FastaSequenceReader fastaSequenceReader = getFastaSequenceReader("fastaWithNoDictionary.fa");
+        Path fastaPath = temporaryFolder.getRoot().toPath().resolve("fastaWithNoDictionary.fa");
+        List<String> expectedSequences = new ArrayList<>();
+        for (int start = 1; start <= 530; start++) {
+            expectedSequences.add(fastaSequenceReader.getSequence("22", start, start + 10));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (FastaSequenceReader sharedReader : new FastaSequenceReader[]{
+                    fastaSequenceReader,
+                    new FastaSequenceReader(fastaPath, true),
+                    new FastaSequenceReader(fastaPath, false, 100)}) {
+                List<Future<List<String>>> results = new ArrayList<>();
+                for (int thread = 0; thread < 8; thread++) {
+                    results.add(executor.submit(() -> {
+                        List<String> sequences = new ArrayList<>();
+                        for (int start = 1; start <= 530; start++) {
+                            sequences.add(sharedReader.getSequence("22", start, start + 10));
+                        }
+                        return sequences;
+                    }));
+                }
+                for (Future<List<String>> result : results) {
+                    assertEquals(expectedSequences, result.get());
+                }
+                sharedReader.close();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     @Test
     public void getContextNucleotideAndNewStart() {
         ImmutableTriple expected = new ImmutableTriple<Long, String, String>(1L, "T", "AT");
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.core.io;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class MappedFastaSequenceFileTest {
+
+    private static final String CONTIG = "22";
+
+    private static final int CONTIG_LENGTH = 540;
+
+    private static final String MIXED_CASE_FASTA_CONTIG = "NW_006738765.1";
+
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void sameSequencesAsHtsjdk() throws Exception {
+        Path fasta = copyFasta("fastaWithNoDictionary.fa");
+        FastaSequenceReader htsjdkReader = new FastaSequenceReader(fasta);
+        FastaSequenceReader mappedReader = new FastaSequenceReader(fasta, true);
+        try {
+            for (int start = 1; start <= CONTIG_LENGTH; start++) {
+                for (int end = start; end <= Math.min(start + 130, CONTIG_LENGTH); end += 13) {
+                    assertEquals(htsjdkReader.getSequence(CONTIG, start, end),
+                                 mappedReader.getSequence(CONTIG, start, end));
+                }
+            }
+        } finally {
+            htsjdkReader.close();
+            mappedReader.close();
+        }
+    }
+
+    @Test
+    public void getSequenceSplitInSeveralLines() throws Exception {
+        FastaSequenceReader mappedReader = new FastaSequenceReader(copyFasta("fastaWithNoDictionary.fa"), true);
+        assertEquals("CAGCCGCAGTCCGGACAGCGCATGCGCCAGCCGCGAGACCGCACAGCGCATGCGCCAGCGCGAGTGACAGCG",
+                     mappedReader.getSequence(CONTIG, 174, 245));
+        mappedReader.close();
+    }
+
+    @Test
+    public void singleBasesAreNotAllocated() throws Exception {
+        FastaSequenceReader mappedReader = new FastaSequenceReader(copyFasta("fastaWithNoDictionary.fa"), true);
+        assertSame(mappedReader.getSequence(CONTIG, 1, 1), mappedReader.getSequence(CONTIG, 1, 1));
+        mappedReader.close();
+    }
+
+    @Test
+    public void shouldConvertToUpper() throws Exception {
+        FastaSequenceReader mappedReader = new FastaSequenceReader(copyFasta("fastaWithSoftMasking.fa"), true);
+        assertEquals("g", mappedReader.getSequence(MIXED_CASE_FASTA_CONTIG, 1, 1));
+        assertEquals("G", mappedReader.getSequenceToUpperCase(MIXED_CASE_FASTA_CONTIG, 1, 1));
+        assertEquals("GTGTTAGTGT", mappedReader.getSequenceToUpperCase(MIXED_CASE_FASTA_CONTIG, 1, 10));
+        mappedReader.close();
+    }
+
+    @Test
+    public void coordinatesGreaterThanEndOfChromosomeAreNotAllowed() throws Exception {
+        FastaSequenceReader mappedReader = new FastaSequenceReader(copyFasta("fastaWithNoDictionary.fa"), true);
+        thrown.expect(IllegalArgumentException.class);
+        mappedReader.getSequence(CONTIG, CONTIG_LENGTH, CONTIG_LENGTH + 1);
+    }
+
+    private Path copyFasta(String fastaFilename) throws IOException, URISyntaxException {
+        return Files.copy(Paths.get(
+                MappedFastaSequenceFileTest.class.getResource("/input-files/fasta/" + fastaFilename).toURI()),
+                          temporaryFolder.getRoot().toPath().resolve(fastaFilename));
+    }
+}
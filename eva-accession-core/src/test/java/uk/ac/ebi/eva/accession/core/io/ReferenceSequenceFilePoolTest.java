@@ -0,0 +1,111 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.core.io;
+
+import htsjdk.samtools.reference.ReferenceSequenceFile;
+import htsjdk.samtools.reference.ReferenceSequenceFileFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReferenceSequenceFilePoolTest {
+
+    private static final String CONTIG = "22";
+
+    private static final int CONTIG_LENGTH = 4729743;
+
+    private static final int NUM_THREADS = 16;
+
+    private static final int NUM_REGIONS = 20_000;
+
+    private static final int MAX_REGION_LENGTH = 100;
+
+    private Path fastaPath;
+
+    private ReferenceSequenceFilePool pool;
+
+    @Before
+    public void setUp() throws Exception {
+        fastaPath = Paths.get(ReferenceSequenceFilePoolTest.class.getResource(
+                "/input-files/fasta/Gallus_gallus-5.0.test.fa").toURI());
+        pool = new ReferenceSequenceFilePool(fastaPath);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pool.close();
+    }
+
+    @Test
+    public void sequentialReadsReuseTheSameReader() {
+        for (int start = 1; start <= 1000; start += 10) {
+            pool.getSequence(CONTIG, start, start + 5);
+        }
+        assertEquals(1, pool.getSize());
+    }
+
+    @Test
+    public void concurrentReadsReturnTheSameSequencesAsASingleReader() throws Exception {
+        Random random = new Random(42);
+        long[] starts = new long[NUM_REGIONS];
+        long[] ends = new long[NUM_REGIONS];
+        String[] expectedSequences = new String[NUM_REGIONS];
+        try (ReferenceSequenceFile file = ReferenceSequenceFileFactory.getReferenceSequenceFile(fastaPath, true)) {
+            for (int i = 0; i < NUM_REGIONS; i++) {
+                starts[i] = 1 + random.nextInt(CONTIG_LENGTH - MAX_REGION_LENGTH);
+                ends[i] = starts[i] + random.nextInt(MAX_REGION_LENGTH);
+                expectedSequences[i] = file.getSubsequenceAt(CONTIG, starts[i], ends[i]).getBaseString();
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+        try {
+            List<Future<Integer>> mismatches = new ArrayList<>();
+            for (int thread = 0; thread < NUM_THREADS; thread++) {
+                int firstRegion = thread;
+                Callable<Integer> task = () -> {
+                    int threadMismatches = 0;
+                    for (int i = firstRegion; i < NUM_REGIONS; i += NUM_THREADS) {
+                        if (!expectedSequences[i].equals(pool.getSequence(CONTIG, starts[i], ends[i]))) {
+                            threadMismatches++;
+                        }
+                    }
+                    return threadMismatches;
+                };
+                mismatches.add(executor.submit(task));
+            }
+            for (Future<Integer> threadMismatches : mismatches) {
+                assertEquals(0, (int) threadMismatches.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(pool.getSize() <= NUM_THREADS);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.core.listeners;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+
+import uk.ac.ebi.eva.accession.core.metrics.StepMetrics;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StepMetricsListenerTest {
+
+    private static final String STEP_NAME = "TEST_STEP";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void itemsAreCountedByStage() throws Exception {
+        Path prometheusFile = temporaryFolder.getRoot().toPath().resolve("metrics.prom");
+        StepMetricsListener<String, String> listener = new StepMetricsListener<>(prometheusFile, false, 60);
+        StepExecution stepExecution = new StepExecution(STEP_NAME, new JobExecution(1L));
+
+        listener.beforeStep(stepExecution);
+        runChunk(listener, Arrays.asList("a", "b", "c"), Arrays.asList("A", null, "C"));
+        listener.onSkipInRead(new RuntimeException());
+        runChunk(listener, Arrays.asList("d"), Arrays.asList("D"));
+        listener.afterStep(stepExecution);
+
+        StepMetrics metrics = listener.getStepMetrics();
+        assertEquals(STEP_NAME, metrics.getStepName());
+        assertEquals(4, metrics.getItemsRead());
+        assertEquals(4, metrics.getItemsProcessed());
+        assertEquals(3, metrics.getItemsWritten());
+        assertEquals(1, metrics.getItemsFiltered());
+        assertEquals(1, metrics.getReadSkips());
+        assertEquals(2, metrics.getChunks());
+        assertEquals(2, metrics.getWriteLatency().getCount());
+
+        List<String> lines = Files.readAllLines(prometheusFile);
+        assertTrue(lines.contains("eva_accession_step_items_total{step=\"TEST_STEP\",stage=\"read\"} 4"));
+        assertTrue(lines.contains("eva_accession_step_items_total{step=\"TEST_STEP\",stage=\"filter\"} 1"));
+        assertTrue(lines.contains("eva_accession_step_skips_total{step=\"TEST_STEP\",stage=\"read\"} 1"));
+        assertTrue(lines.contains("eva_accession_step_chunk_seconds_bucket{step=\"TEST_STEP\",le=\"+Inf\"} 2"));
+        assertTrue(lines.contains("eva_accession_step_write_seconds_count{step=\"TEST_STEP\"} 2"));
+    }
+
+    @Test
+    public void metricsAreRegisteredInJmx() throws Exception {
+        StepMetricsListener<String, String> listener = new StepMetricsListener<>(null, true, 60);
+        StepExecution stepExecution = new StepExecution(STEP_NAME, new JobExecution(1L));
+
+        listener.beforeStep(stepExecution);
+        runChunk(listener, Arrays.asList("a", "b"), Arrays.asList("A", "B"));
+        listener.afterStep(stepExecution);
+
+        ObjectName name = new ObjectName("uk.ac.ebi.eva.accession:type=StepMetrics,name=\"" + STEP_NAME + "\"");
+        assertEquals(2L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "ItemsWritten"));
+    }
+
+    private void runChunk(StepMetricsListener<String, String> listener, List<String> items, List<String> results) {
+        listener.beforeChunk(null);
+        for (String item : items) {
+            listener.beforeRead();
+            listener.afterRead(item);
+        }
+        for (int i = 0; i < items.size(); i++) {
+            listener.beforeProcess(items.get(i));
+            listener.afterProcess(items.get(i), results.get(i));
+        }
+        List<String> written = new ArrayList<>();
+        for (String result : results) {
+            if (result != null) {
+                written.add(result);
+            }
+        }
+        listener.beforeWrite(written);
+        listener.afterWrite(written);
+        listener.afterChunk(null);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.core.metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class LatencyHistogramTest {
+
+    private LatencyHistogram histogram;
+
+    @Before
+    public void setUp() {
+        histogram = new LatencyHistogram();
+    }
+
+    @Test
+    public void durationsAreCountedInTheirBucket() {
+        histogram.record(500);
+        histogram.record(1_000);
+        histogram.record(1_001);
+        histogram.record(2_000);
+        histogram.record(3_000);
+
+        assertEquals(5, histogram.getCount());
+        assertEquals(7_501, histogram.getSumNanos());
+        assertEquals(2, histogram.getCumulativeCount(0));
+        assertEquals(4, histogram.getCumulativeCount(1));
+        assertEquals(5, histogram.getCumulativeCount(2));
+    }
+
+    @Test
+    public void longDurationsAreCountedInTheLastBucket() {
+        histogram.record(Long.MAX_VALUE / 2);
+
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getCumulativeCount(histogram.getNumBuckets() - 1));
+        assertEquals(histogram.getUpperBoundNanos(histogram.getNumBuckets() - 1) * 2,
+                     histogram.getQuantileNanos(0.5));
+    }
+
+    @Test
+    public void quantilesReturnTheUpperBoundOfTheBucket() {
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1_000);
+        }
+        histogram.record(1_000_000);
+
+        assertEquals(1_000, histogram.getQuantileNanos(0.5));
+        assertEquals(1_000, histogram.getQuantileNanos(0.99));
+        assertEquals(1_024_000, histogram.getQuantileNanos(1));
+    }
+
+    @Test
+    public void emptyHistogram() {
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getQuantileNanos(0.99));
+        assertEquals(0, histogram.getMeanNanos(), 0);
+    }
+}
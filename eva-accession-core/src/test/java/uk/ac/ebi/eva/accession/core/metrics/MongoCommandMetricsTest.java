@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.core.metrics;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonDocument;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class MongoCommandMetricsTest {
+
+    private static final String DATABASE = "test";
+
+    private static final String COLLECTION = "dbsnpSubmittedVariantEntity";
+
+    private ConnectionDescription connectionDescription;
+
+    private MongoCommandMetrics metrics;
+
+    @Before
+    public void setUp() {
+        connectionDescription = new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress()));
+        metrics = new MongoCommandMetrics(1000, 0);
+    }
+
+    @Test
+    public void latenciesAreGroupedByCollectionAndCommand() {
+        BsonDocument find = BsonDocument.parse("{find: '" + COLLECTION + "', filter: {_id: {$in: ['a', 'b']}}}");
+        BsonDocument insert = BsonDocument.parse("{insert: '" + COLLECTION + "', documents: [{_id: 'a'}]}");
+        runCommand(1, "find", find, 1_000_000);
+        runCommand(2, "find", find, 3_000_000);
+        runCommand(3, "insert", insert, 2_000_000);
+        metrics.commandStarted(new CommandStartedEvent(4, connectionDescription, DATABASE, "insert", insert));
+        metrics.commandFailed(new CommandFailedEvent(4, connectionDescription, "insert", 1_000_000,
+                                                     new RuntimeException()));
+
+        Map<String, LatencyHistogram> latencies = metrics.getLatencies();
+        assertEquals(2, latencies.size());
+        assertEquals(2, latencies.get(COLLECTION + " find").getCount());
+        assertEquals(4_000_000, latencies.get(COLLECTION + " find").getSumNanos());
+        assertEquals(2, latencies.get(COLLECTION + " insert").getCount());
+        assertEquals(1, metrics.getFailures(COLLECTION + " insert"));
+        assertEquals(0, metrics.getFailures(COLLECTION + " find"));
+    }
+
+    @Test
+    public void collectionNameOfGetMore() {
+        BsonDocument getMore = BsonDocument.parse("{getMore: {$numberLong: '123'}, collection: '" + COLLECTION + "'}");
+        assertEquals(COLLECTION, MongoCommandMetrics.getCollectionName("getMore", getMore));
+        assertEquals("-", MongoCommandMetrics.getCollectionName("isMaster", BsonDocument.parse("{isMaster: 1}")));
+    }
+
+    @Test
+    public void shapeDoesNotContainValues() {
+        BsonDocument find = BsonDocument.parse(
+                "{find: '" + COLLECTION + "', filter: {_id: {$in: ['hash1', 'hash2', 'hash3']}, seq: 'GCA_1'}, " +
+                        "projection: {}, sort: []}");
+        assertEquals("{find: ?, filter: {_id: {$in: [? x3]}, seq: ?}, projection: {}, sort: []}",
+                     MongoCommandMetrics.getShape(find));
+
+        BsonDocument insert = BsonDocument.parse(
+                "{insert: '" + COLLECTION + "', documents: [{_id: 'hash1', accession: 1}, {_id: 'hash2'}]}");
+        assertEquals("{insert: ?, documents: [{_id: ?, accession: ?} x2]}", MongoCommandMetrics.getShape(insert));
+    }
+
+    private void runCommand(int requestId, String commandName, BsonDocument command, long nanos) {
+        metrics.commandStarted(new CommandStartedEvent(requestId, connectionDescription, DATABASE, commandName,
+                                                       command));
+        metrics.commandSucceeded(new CommandSucceededEvent(requestId, connectionDescription, commandName,
+                                                           new BsonDocument(), nanos));
+    }
+}
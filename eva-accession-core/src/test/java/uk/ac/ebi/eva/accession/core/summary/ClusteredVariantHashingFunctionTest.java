@@ -0,0 +1,54 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.summary;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ebi.ampt2d.commons.accession.hashing.SHA1HashingFunction;
+
+import uk.ac.ebi.eva.accession.core.ClusteredVariant;
+import uk.ac.ebi.eva.accession.core.IClusteredVariant;
+import uk.ac.ebi.eva.commons.core.models.VariantType;
+
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+
+public class ClusteredVariantHashingFunctionTest {
+
+    private Function<IClusteredVariant, String> expectedHashingFunction;
+
+    private ClusteredVariantHashingFunction hashingFunction;
+
+    @Before
+    public void setUp() {
+        expectedHashingFunction = new ClusteredVariantSummaryFunction().andThen(new SHA1HashingFunction());
+        hashingFunction = new ClusteredVariantHashingFunction();
+    }
+
+    @Test
+    public void sameHashAsSummaryFunction() {
+        for (VariantType type : VariantType.values()) {
+            assertSameHash(new ClusteredVariant("GCA_000003055.3", 9913, "21", 20800319, type, null, null));
+        }
+    }
+
+    private void assertSameHash(IClusteredVariant variant) {
+        assertEquals(expectedHashingFunction.apply(variant), hashingFunction.apply(variant));
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.summary;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ebi.ampt2d.commons.accession.hashing.SHA1HashingFunction;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariant;
+
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+
+public class SubmittedVariantHashingFunctionTest {
+
+    private Function<ISubmittedVariant, String> expectedHashingFunction;
+
+    private SubmittedVariantHashingFunction hashingFunction;
+
+    @Before
+    public void setUp() {
+        expectedHashingFunction = new SubmittedVariantSummaryFunction().andThen(new SHA1HashingFunction());
+        hashingFunction = new SubmittedVariantHashingFunction();
+    }
+
+    @Test
+    public void sameHashAsSummaryFunction() {
+        assertSameHash(new SubmittedVariant("GCA_000003055.3", 9913, "PRJEB21794", "21", 20800319, "C", "T", null));
+    }
+
+    @Test
+    public void hashOfKnownVariant() {
+        ISubmittedVariant variant = new SubmittedVariant("GCA_000003055.3", 9913, "PRJEB21794", "21", 20800319, "C",
+                                                         "T", null);
+        assertEquals("925E489266E58B67F1CDCCDF1914A7B4B6FC697A", hashingFunction.apply(variant));
+    }
+
+    @Test
+    public void sameHashWithEmptyFields() {
+        assertSameHash(new SubmittedVariant("assembly", 1, "project", "contig", 1, "", "G", null));
+    }
+
+    @Test
+    public void sameHashWithNonAsciiFields() {
+        assertSameHash(new SubmittedVariant("assembly", 1, "proj\u00e9ct", "contig\u65e5", 1, "A", "T", null));
+    }
+
+    @Test
+    public void sameHashWithLongFields() {
+        StringBuilder allele = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            allele.append("ACGT");
+        }
+        assertSameHash(new SubmittedVariant("assembly", 1, "project", "contig", Long.MAX_VALUE, allele.toString(),
+                                            "T", null));
+    }
+
+    @Test
+    public void sameHashWithNegativeStart() {
+        assertSameHash(new SubmittedVariant("assembly", 1, "project", "contig", -1, "A", "T", null));
+        assertSameHash(new SubmittedVariant("assembly", 1, "project", "contig", Long.MIN_VALUE, "A", "T", null));
+    }
+
+    private void assertSameHash(ISubmittedVariant variant) {
+        assertEquals(expectedHashingFunction.apply(variant), hashingFunction.apply(variant));
+    }
+}
@@ -24,11 +24,27 @@ public class BeanNames {
 
     public static final String DBSNP_VARIANT_WRITER = "DBSNP_VARIANT_WRITER";
 
+    public static final String DBSNP_VARIANT_PARTITIONER = "DBSNP_VARIANT_PARTITIONER";
+
+    public static final String DBSNP_VARIANT_PROCESSING_EXECUTOR = "DBSNP_VARIANT_PROCESSING_EXECUTOR";
+
+    public static final String DBSNP_VARIANT_WRITING_EXECUTOR = "DBSNP_VARIANT_WRITING_EXECUTOR";
+
     public static final String IMPORT_DBSNP_VARIANTS_STEP = "IMPORT_DBSNP_VARIANTS_STEP";
+
+    public static final String IMPORT_DBSNP_VARIANTS_PARTITIONED_STEP = "IMPORT_DBSNP_VARIANTS_PARTITIONED_STEP";
     
     public static final String IMPORT_DBSNP_VARIANTS_JOB = "IMPORT_DBSNP_VARIANTS_JOB";
 
     public static final String ASSEMBLY_CHECK_STEP_LISTENER = "ASSEMBLY_CHECK_STEP_LISTENER";
 
+    public static final String PROJECT_ACCESSION_MAPPING_STEP_LISTENER = "PROJECT_ACCESSION_MAPPING_STEP_LISTENER";
+
     public static final String IMPORT_DBSNP_VARIANTS_PROGRESS_LISTENER = "IMPORT_DBSNP_VARIANTS_PROGRESS_LISTENER";
+
+    public static final String STEP_METRICS_LISTENER = "STEP_METRICS_LISTENER";
+
+    public static final String BUILD_DBSNP_BLOOM_FILTER_STEP = "BUILD_DBSNP_BLOOM_FILTER_STEP";
+
+    public static final String BUILD_DBSNP_BLOOM_FILTER_JOB = "BUILD_DBSNP_BLOOM_FILTER_JOB";
 }
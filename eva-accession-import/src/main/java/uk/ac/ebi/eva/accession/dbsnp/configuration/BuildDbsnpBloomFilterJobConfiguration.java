@@ -0,0 +1,79 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.dbsnp.configuration;
+
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
+import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.launch.support.RunIdIncrementer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import uk.ac.ebi.eva.accession.core.bloomfilter.DbsnpSubmittedVariantBloomFilterBuilder;
+import uk.ac.ebi.eva.accession.core.configuration.MongoConfiguration;
+import uk.ac.ebi.eva.accession.dbsnp.parameters.InputParameters;
+import uk.ac.ebi.eva.accession.dbsnp.tasklets.BuildDbsnpBloomFilterTasklet;
+
+import java.nio.file.Paths;
+
+import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.BUILD_DBSNP_BLOOM_FILTER_JOB;
+import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.BUILD_DBSNP_BLOOM_FILTER_STEP;
+
+/**
+ * Job that rebuilds the bloom filter of dbSNP submitted variant hashes for parameters.assemblyAccession. Run it with
+ * spring.batch.job.names=BUILD_DBSNP_BLOOM_FILTER_JOB after importing variants into that assembly.
+ */
+@Configuration
+@EnableBatchProcessing
+@Import({MongoConfiguration.class})
+public class BuildDbsnpBloomFilterJobConfiguration {
+
+    /**
+     * Empty by default, like in the accessioning service, where it means that no filter is used. The job fails if it
+     * is run without this property.
+     */
+    @Value("${accessioning.submitted.dbsnpBloomFilterDirectory:}")
+    private String bloomFilterDirectory;
+
+    @Value("${accessioning.submitted.dbsnpBloomFilterFalsePositiveRate:0.01}")
+    private double falsePositiveRate;
+
+    @Bean(BUILD_DBSNP_BLOOM_FILTER_STEP)
+    public Step buildDbsnpBloomFilterStep(StepBuilderFactory stepBuilderFactory, InputParameters parameters,
+                                          MongoTemplate mongoTemplate) {
+        BuildDbsnpBloomFilterTasklet tasklet = new BuildDbsnpBloomFilterTasklet(
+                new DbsnpSubmittedVariantBloomFilterBuilder(mongoTemplate), parameters.getAssemblyAccession(),
+                bloomFilterDirectory.isEmpty() ? null : Paths.get(bloomFilterDirectory), falsePositiveRate);
+        return stepBuilderFactory.get(BUILD_DBSNP_BLOOM_FILTER_STEP)
+                                 .tasklet(tasklet)
+                                 .build();
+    }
+
+    @Bean(BUILD_DBSNP_BLOOM_FILTER_JOB)
+    public Job buildDbsnpBloomFilterJob(JobBuilderFactory jobBuilderFactory, StepBuilderFactory stepBuilderFactory,
+                                        InputParameters parameters, MongoTemplate mongoTemplate) {
+        return jobBuilderFactory.get(BUILD_DBSNP_BLOOM_FILTER_JOB)
+                                .incrementer(new RunIdIncrementer())
+                                .start(buildDbsnpBloomFilterStep(stepBuilderFactory, parameters, mongoTemplate))
+                                .build();
+    }
+}
@@ -26,7 +26,10 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import uk.ac.ebi.eva.accession.dbsnp.parameters.InputParameters;
+
 import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.IMPORT_DBSNP_VARIANTS_JOB;
+import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.IMPORT_DBSNP_VARIANTS_PARTITIONED_STEP;
 import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.IMPORT_DBSNP_VARIANTS_STEP;
 
 @Configuration
@@ -37,11 +40,17 @@ public class ImportDbsnpVariantsJobConfiguration {
     @Qualifier(IMPORT_DBSNP_VARIANTS_STEP)
     private Step importDbsnpVariantsStep;
 
+    @Autowired
+    @Qualifier(IMPORT_DBSNP_VARIANTS_PARTITIONED_STEP)
+    private Step importDbsnpVariantsPartitionedStep;
+
     @Bean(IMPORT_DBSNP_VARIANTS_JOB)
-    public Job importDbsnpVariantsJob(JobBuilderFactory jobBuilderFactory) {
+    public Job importDbsnpVariantsJob(JobBuilderFactory jobBuilderFactory, InputParameters parameters) {
+        Step step = ImportDbsnpVariantsStepConfiguration.isPartitioned(parameters) ?
+                importDbsnpVariantsPartitionedStep : importDbsnpVariantsStep;
         return jobBuilderFactory.get(IMPORT_DBSNP_VARIANTS_JOB)
                                 .incrementer(new RunIdIncrementer())
-                                .start(importDbsnpVariantsStep)
+                                .start(step)
                                 .build();
     }
 }
@@ -20,16 +20,19 @@ import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.support.CompositeItemProcessor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.mongodb.core.MongoTemplate;
 
+import uk.ac.ebi.eva.accession.core.contig.AssemblyReportCache;
 import uk.ac.ebi.eva.accession.core.contig.ContigMapping;
 import uk.ac.ebi.eva.accession.core.io.FastaSynonymSequenceReader;
 import uk.ac.ebi.eva.accession.dbsnp.model.SubSnpNoHgvs;
 import uk.ac.ebi.eva.accession.dbsnp.parameters.InputParameters;
 import uk.ac.ebi.eva.accession.dbsnp.persistence.DbsnpVariantsWrapper;
 import uk.ac.ebi.eva.accession.dbsnp.persistence.ProjectAccessionMapping;
+import uk.ac.ebi.eva.accession.dbsnp.persistence.ProjectAccessionMappingRegistry;
 import uk.ac.ebi.eva.accession.dbsnp.processors.AssemblyCheckerProcessor;
 import uk.ac.ebi.eva.accession.dbsnp.processors.ContigReplacerProcessor;
 import uk.ac.ebi.eva.accession.dbsnp.processors.SubSnpNoHgvsToDbsnpVariantsWrapperProcessor;
@@ -48,6 +51,21 @@ public class ImportDbsnpVariantsProcessorConfiguration {
 
     private static final Logger logger = LoggerFactory.getLogger(ImportDbsnpVariantsProcessorConfiguration.class);
 
+    @Value("${accessioning.fasta.memoryMapped:false}")
+    private boolean fastaMemoryMapped;
+
+    @Value("${accessioning.fasta.windowSize:0}")
+    private int fastaWindowSize;
+
+    @Value("${accessioning.fasta.bgzipBlockCacheSize:32}")
+    private int fastaBgzipBlockCacheSize;
+
+    @Value("${accessioning.assemblyReport.cacheDirectory:}")
+    private String assemblyReportCacheDirectory;
+
+    @Value("${accessioning.assemblyReport.offline:false}")
+    private boolean assemblyReportOffline;
+
     @Bean(name = DBSNP_VARIANT_PROCESSOR)
     @StepScope
     ItemProcessor<SubSnpNoHgvs, DbsnpVariantsWrapper> dbsnpVariantProcessor(
@@ -73,7 +91,11 @@ public class ImportDbsnpVariantsProcessorConfiguration {
 
     @Bean
     ContigMapping contigMapping(InputParameters parameters) throws Exception {
-        return new ContigMapping(parameters.getAssemblyReportUrl());
+        if (assemblyReportCacheDirectory.isEmpty()) {
+            return new ContigMapping(parameters.getAssemblyReportUrl());
+        }
+        return new AssemblyReportCache(Paths.get(assemblyReportCacheDirectory), assemblyReportOffline)
+                .getContigMapping(parameters.getAssemblyReportUrl());
     }
 
     @Bean
@@ -85,20 +107,28 @@ public class ImportDbsnpVariantsProcessorConfiguration {
     FastaSynonymSequenceReader fastaSynonymSequenceReader(ContigMapping contigMapping, InputParameters parameters)
             throws IOException {
         Path referenceFastaFile = Paths.get(parameters.getFasta());
-        return new FastaSynonymSequenceReader(contigMapping, referenceFastaFile);
+        return new FastaSynonymSequenceReader(contigMapping, referenceFastaFile, fastaMemoryMapped,
+                                              fastaWindowSize, fastaBgzipBlockCacheSize);
     }
 
     @Bean
     SubSnpNoHgvsToDbsnpVariantsWrapperProcessor subSnpNoHgvsToDbsnpVariantsWrapperProcessor(
             InputParameters parameters, FastaSynonymSequenceReader fastaSynonymSequenceReader,
-            List<ProjectAccessionMapping> projectAccessionMappings) {
+            ProjectAccessionMappingRegistry projectAccessionMappingRegistry) {
         return new SubSnpNoHgvsToDbsnpVariantsWrapperProcessor(parameters.getAssemblyAccession(),
-                                                               fastaSynonymSequenceReader, projectAccessionMappings);
+                                                               fastaSynonymSequenceReader,
+                                                               projectAccessionMappingRegistry);
     }
 
+    /**
+     * Built once and shared by all the partitions and processing threads
+     */
     @Bean
-    List<ProjectAccessionMapping> projectAccessionMappings(MongoTemplate mongoTemplate) {
-        return mongoTemplate.findAll(ProjectAccessionMapping.class);
+    ProjectAccessionMappingRegistry projectAccessionMappingRegistry(MongoTemplate mongoTemplate) {
+        List<ProjectAccessionMapping> mappings = mongoTemplate.findAll(ProjectAccessionMapping.class);
+        ProjectAccessionMappingRegistry registry = new ProjectAccessionMappingRegistry(mappings);
+        logger.info("Loaded {} project accession mappings for {} dbSNP batches", mappings.size(), registry.size());
+        return registry;
     }
 
     @Bean
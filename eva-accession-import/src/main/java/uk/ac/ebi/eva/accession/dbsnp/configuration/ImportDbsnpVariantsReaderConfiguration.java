@@ -18,15 +18,18 @@ package uk.ac.ebi.eva.accession.dbsnp.configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import uk.ac.ebi.eva.accession.dbsnp.io.SubSnpNoHgvsPartitioner;
 import uk.ac.ebi.eva.accession.dbsnp.io.SubSnpNoHgvsReader;
 import uk.ac.ebi.eva.accession.dbsnp.parameters.InputParameters;
 
 import javax.sql.DataSource;
 
+import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.DBSNP_VARIANT_PARTITIONER;
 import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.DBSNP_VARIANT_READER;
 
 @Configuration
@@ -37,10 +40,22 @@ public class ImportDbsnpVariantsReaderConfiguration {
 
     @Bean(name = DBSNP_VARIANT_READER)
     @StepScope
-    SubSnpNoHgvsReader subSnpCoreFieldsReader(InputParameters parameters, DbsnpDataSource dbsnpDataSource)
+    SubSnpNoHgvsReader subSnpCoreFieldsReader(
+            InputParameters parameters, DbsnpDataSource dbsnpDataSource,
+            @Value("#{stepExecutionContext['" + SubSnpNoHgvsPartitioner.MIN_LOAD_ORDER_KEY + "']}") Long minLoadOrder,
+            @Value("#{stepExecutionContext['" + SubSnpNoHgvsPartitioner.MAX_LOAD_ORDER_KEY + "']}") Long maxLoadOrder)
             throws Exception {
-        logger.info("Injecting SubSnpNoHgvsReader with parameters: {}, {}", parameters, dbsnpDataSource);
+        logger.info("Injecting SubSnpNoHgvsReader with parameters: {}, {}, load order range: {}-{}", parameters,
+                    dbsnpDataSource, minLoadOrder, maxLoadOrder);
         DataSource dataSource = dbsnpDataSource.getDatasource();
-        return new SubSnpNoHgvsReader(parameters.getAssemblyName(), parameters.getBuildNumber(), dataSource, parameters.getPageSize());
+        int pageSize = parameters.getPageSize() > 0 ? parameters.getPageSize() : parameters.getChunkSize();
+        return new SubSnpNoHgvsReader(parameters.getAssemblyName(), parameters.getBuildNumber(), dataSource,
+                                      pageSize, minLoadOrder, maxLoadOrder);
+    }
+
+    @Bean(name = DBSNP_VARIANT_PARTITIONER)
+    SubSnpNoHgvsPartitioner subSnpNoHgvsPartitioner(InputParameters parameters, DbsnpDataSource dbsnpDataSource) {
+        return new SubSnpNoHgvsPartitioner(parameters.getAssemblyName(), parameters.getBuildNumber(),
+                                           dbsnpDataSource.getDatasource());
     }
 }
@@ -20,25 +20,44 @@ import org.springframework.batch.core.Step;
 import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
-import org.springframework.batch.core.step.tasklet.TaskletStep;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
+import org.springframework.batch.integration.async.AsyncItemProcessor;
+import org.springframework.batch.integration.async.AsyncItemWriter;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.ItemReader;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.batch.repeat.policy.SimpleCompletionPolicy;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
+import uk.ac.ebi.eva.accession.dbsnp.listeners.ImportCountsAggregator;
 import uk.ac.ebi.eva.accession.dbsnp.model.SubSnpNoHgvs;
+import uk.ac.ebi.eva.accession.dbsnp.parameters.InputParameters;
 import uk.ac.ebi.eva.accession.dbsnp.persistence.DbsnpVariantsWrapper;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.ASSEMBLY_CHECK_STEP_LISTENER;
+import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.DBSNP_VARIANT_PARTITIONER;
+import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.DBSNP_VARIANT_PROCESSING_EXECUTOR;
 import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.DBSNP_VARIANT_PROCESSOR;
 import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.DBSNP_VARIANT_READER;
 import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.DBSNP_VARIANT_WRITER;
+import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.IMPORT_DBSNP_VARIANTS_PARTITIONED_STEP;
 import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.IMPORT_DBSNP_VARIANTS_PROGRESS_LISTENER;
 import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.IMPORT_DBSNP_VARIANTS_STEP;
+import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.PROJECT_ACCESSION_MAPPING_STEP_LISTENER;
+import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.STEP_METRICS_LISTENER;
 
 @Configuration
 @EnableBatchProcessing
@@ -60,21 +79,107 @@ public class ImportDbsnpVariantsStepConfiguration {
     @Qualifier(ASSEMBLY_CHECK_STEP_LISTENER)
     private StepExecutionListener assemblyCheckStepListener;
 
+    @Autowired
+    @Qualifier(PROJECT_ACCESSION_MAPPING_STEP_LISTENER)
+    private StepExecutionListener projectAccessionMappingStepListener;
+
     @Autowired
     @Qualifier(IMPORT_DBSNP_VARIANTS_PROGRESS_LISTENER)
     private StepExecutionListener importDbsnpVariantsProgressListener;
 
+    @Autowired
+    @Qualifier(STEP_METRICS_LISTENER)
+    private StepExecutionListener stepMetricsListener;
+
+    @Autowired
+    @Qualifier(DBSNP_VARIANT_PARTITIONER)
+    private Partitioner variantPartitioner;
+
+    /**
+     * When the import is partitioned, this step imports each partition, and the FASTA used for the assembly check is
+     * closed by the partitioned step once all of them have finished.
+     *
+     * With several processing threads, the variants of every chunk are processed in parallel and the writer waits for
+     * all of them, in the same order they were read. In that case the step metrics only measure how long it takes to
+     * submit every variant for processing, and the filtered variants are not counted.
+     */
     @Bean(IMPORT_DBSNP_VARIANTS_STEP)
     public Step createSubsnpAccessionStep(StepBuilderFactory stepBuilderFactory,
-                                          SimpleCompletionPolicy chunkSizeCompletionPolicy) {
-        TaskletStep step = stepBuilderFactory.get(IMPORT_DBSNP_VARIANTS_STEP)
-                .<SubSnpNoHgvs, DbsnpVariantsWrapper>chunk(chunkSizeCompletionPolicy)
-                .reader(variantReader)
-                .processor(variantProcessor)
-                .writer(accessionWriter)
-                .listener(assemblyCheckStepListener)
-                .listener(importDbsnpVariantsProgressListener)
-                .build();
-        return step;
+                                          SimpleCompletionPolicy chunkSizeCompletionPolicy,
+                                          InputParameters parameters,
+                                          @Qualifier(DBSNP_VARIANT_PROCESSING_EXECUTOR)
+                                                  ObjectProvider<ExecutorService> dbsnpVariantProcessingExecutor)
+            throws Exception {
+        if (isProcessedAsynchronously(parameters)) {
+            AsyncItemProcessor<SubSnpNoHgvs, DbsnpVariantsWrapper> asyncProcessor = new AsyncItemProcessor<>();
+            asyncProcessor.setDelegate(variantProcessor);
+            asyncProcessor.setTaskExecutor(new ConcurrentTaskExecutor(dbsnpVariantProcessingExecutor.getObject()));
+            asyncProcessor.afterPropertiesSet();
+
+            AsyncItemWriter<DbsnpVariantsWrapper> asyncWriter = new AsyncItemWriter<>();
+            asyncWriter.setDelegate(accessionWriter);
+            asyncWriter.afterPropertiesSet();
+
+            SimpleStepBuilder<SubSnpNoHgvs, Future<DbsnpVariantsWrapper>> stepBuilder = stepBuilderFactory
+                    .get(IMPORT_DBSNP_VARIANTS_STEP)
+                    .chunk(chunkSizeCompletionPolicy);
+            return buildImportStep(stepBuilder.processor(asyncProcessor).writer(asyncWriter), parameters);
+        }
+        SimpleStepBuilder<SubSnpNoHgvs, DbsnpVariantsWrapper> stepBuilder = stepBuilderFactory
+                .get(IMPORT_DBSNP_VARIANTS_STEP)
+                .chunk(chunkSizeCompletionPolicy);
+        return buildImportStep(stepBuilder.processor(variantProcessor).writer(accessionWriter), parameters);
+    }
+
+    private <O> Step buildImportStep(SimpleStepBuilder<SubSnpNoHgvs, O> stepBuilder, InputParameters parameters) {
+        stepBuilder.reader(variantReader);
+        if (!isPartitioned(parameters)) {
+            stepBuilder.listener(assemblyCheckStepListener);
+            stepBuilder.listener(projectAccessionMappingStepListener);
+        }
+        return stepBuilder.listener(importDbsnpVariantsProgressListener)
+                          .listener(stepMetricsListener)
+                          .build();
+    }
+
+    /**
+     * Splits the dbSNP table in ranges of load order, and imports them in parallel with one thread per partition.
+     */
+    @Bean(IMPORT_DBSNP_VARIANTS_PARTITIONED_STEP)
+    public Step importDbsnpVariantsPartitionedStep(StepBuilderFactory stepBuilderFactory,
+                                                   InputParameters parameters,
+                                                   @Qualifier(IMPORT_DBSNP_VARIANTS_STEP) Step importStep) {
+        int partitions = Math.max(1, parameters.getPartitions());
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor(IMPORT_DBSNP_VARIANTS_STEP + "-");
+        taskExecutor.setConcurrencyLimit(partitions);
+        return stepBuilderFactory.get(IMPORT_DBSNP_VARIANTS_PARTITIONED_STEP)
+                                 .partitioner(IMPORT_DBSNP_VARIANTS_STEP, variantPartitioner)
+                                 .step(importStep)
+                                 .gridSize(partitions)
+                                 .taskExecutor(taskExecutor)
+                                 .aggregator(new ImportCountsAggregator())
+                                 .listener(assemblyCheckStepListener)
+                                 .listener(projectAccessionMappingStepListener)
+                                 .build();
+    }
+
+    /**
+     * Shared by all the partitions, so the number of processing threads doesn't grow with the number of partitions.
+     * Only created if the variants are processed asynchronously, see {@link #isProcessedAsynchronously}.
+     */
+    @Bean(name = DBSNP_VARIANT_PROCESSING_EXECUTOR, destroyMethod = "shutdown")
+    @ConditionalOnExpression("${parameters.processingThreads:1} > 1")
+    public ExecutorService dbsnpVariantProcessingExecutor(InputParameters parameters) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("dbsnp-variant-processing-");
+        threadFactory.setDaemon(true);
+        return Executors.newFixedThreadPool(parameters.getProcessingThreads(), threadFactory);
+    }
+
+    static boolean isPartitioned(InputParameters parameters) {
+        return parameters.getPartitions() > 1;
+    }
+
+    static boolean isProcessedAsynchronously(InputParameters parameters) {
+        return parameters.getProcessingThreads() > 1;
     }
 }
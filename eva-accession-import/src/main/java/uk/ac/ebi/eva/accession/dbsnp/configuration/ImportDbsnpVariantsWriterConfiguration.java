@@ -18,10 +18,13 @@ package uk.ac.ebi.eva.accession.dbsnp.configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 import uk.ac.ebi.eva.accession.core.configuration.MongoConfiguration;
 import uk.ac.ebi.eva.accession.core.persistence.DbsnpClusteredVariantAccessioningRepository;
@@ -32,7 +35,14 @@ import uk.ac.ebi.eva.accession.dbsnp.io.DbsnpVariantsWriter;
 import uk.ac.ebi.eva.accession.dbsnp.listeners.ImportCounts;
 import uk.ac.ebi.eva.accession.dbsnp.parameters.InputParameters;
 
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.DBSNP_VARIANT_WRITER;
+import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.DBSNP_VARIANT_WRITING_EXECUTOR;
 
 @Configuration
 @Import({MongoConfiguration.class})
@@ -40,6 +50,11 @@ public class ImportDbsnpVariantsWriterConfiguration {
 
     private static final Logger logger = LoggerFactory.getLogger(ImportDbsnpVariantsWriterConfiguration.class);
 
+    /**
+     * Shared by the writers of all the partitions of the import step
+     */
+    private final Set<String> mergesInProgress = ConcurrentHashMap.newKeySet();
+
     @Bean(name = DBSNP_VARIANT_WRITER)
     @StepScope
     DbsnpVariantsWriter dbsnpVariantWriter(InputParameters parameters, MongoTemplate mongoTemplate,
@@ -47,10 +62,26 @@ public class ImportDbsnpVariantsWriterConfiguration {
                                            DbsnpSubmittedVariantOperationRepository operationRepository,
                                            DbsnpSubmittedVariantAccessioningRepository submittedVariantRepository,
                                            DbsnpClusteredVariantOperationRepository clusteredOperationRepository,
-                                           DbsnpClusteredVariantAccessioningRepository clusteredVariantRepository)
+                                           DbsnpClusteredVariantAccessioningRepository clusteredVariantRepository,
+                                           @Qualifier(DBSNP_VARIANT_WRITING_EXECUTOR)
+                                                   ExecutorService dbsnpVariantWritingExecutor)
             throws Exception {
         logger.info("Injecting dbsnpVariantWriter with parameters: {}", parameters);
+        Executor writeExecutor = parameters.getWriteThreads() > 1 ? dbsnpVariantWritingExecutor
+                                                                  : new SyncTaskExecutor();
         return new DbsnpVariantsWriter(mongoTemplate, operationRepository, submittedVariantRepository,
-                                       clusteredOperationRepository, clusteredVariantRepository, importCounts);
+                                       clusteredOperationRepository, clusteredVariantRepository, importCounts,
+                                       mergesInProgress, writeExecutor, parameters.isUpsertVariants());
+    }
+
+    /**
+     * Shared by the writers of all the partitions, so the number of writing threads doesn't grow with the number of
+     * partitions. The writing tasks never wait for each other inside the pool, so a small pool can't deadlock.
+     */
+    @Bean(name = DBSNP_VARIANT_WRITING_EXECUTOR, destroyMethod = "shutdown")
+    public ExecutorService dbsnpVariantWritingExecutor(InputParameters parameters) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("dbsnp-variant-writing-");
+        threadFactory.setDaemon(true);
+        return Executors.newFixedThreadPool(Math.max(parameters.getWriteThreads(), 1), threadFactory);
     }
 }
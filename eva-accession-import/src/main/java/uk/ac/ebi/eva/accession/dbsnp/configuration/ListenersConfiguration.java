@@ -21,24 +21,43 @@ import org.springframework.batch.core.ExitStatus;
 import org.springframework.batch.core.StepExecution;
 import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.listener.StepListenerSupport;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import uk.ac.ebi.eva.accession.core.io.FastaSequenceReader;
+import uk.ac.ebi.eva.accession.core.listeners.StepMetricsListener;
 import uk.ac.ebi.eva.accession.dbsnp.listeners.ImportCounts;
 import uk.ac.ebi.eva.accession.dbsnp.listeners.ImportDbsnpVariantsStepProgressListener;
 import uk.ac.ebi.eva.accession.dbsnp.model.SubSnpNoHgvs;
 import uk.ac.ebi.eva.accession.dbsnp.parameters.InputParameters;
 import uk.ac.ebi.eva.accession.dbsnp.persistence.DbsnpVariantsWrapper;
+import uk.ac.ebi.eva.accession.dbsnp.persistence.ProjectAccessionMapping;
+import uk.ac.ebi.eva.accession.dbsnp.persistence.ProjectAccessionMappingRegistry;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 
 import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.ASSEMBLY_CHECK_STEP_LISTENER;
 import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.IMPORT_DBSNP_VARIANTS_PROGRESS_LISTENER;
+import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.PROJECT_ACCESSION_MAPPING_STEP_LISTENER;
+import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.STEP_METRICS_LISTENER;
 
 @Configuration
 public class ListenersConfiguration {
 
     private static final Logger logger = LoggerFactory.getLogger(ListenersConfiguration.class);
 
+    @Value("${accessioning.metrics.prometheusFile:}")
+    private String metricsPrometheusFile;
+
+    @Value("${accessioning.metrics.jmx:false}")
+    private boolean metricsJmx;
+
+    @Value("${accessioning.metrics.exportIntervalSeconds:60}")
+    private long metricsExportIntervalSeconds;
+
     @Bean(ASSEMBLY_CHECK_STEP_LISTENER)
     StepListenerSupport assemblyCheckStepListener(FastaSequenceReader fastaSequenceReader) {
         return new StepListenerSupport() {
@@ -55,16 +74,47 @@ public class ListenersConfiguration {
         };
     }
 
+    /**
+     * Reports the project accession mappings that no variant used, once the whole table has been imported
+     */
+    @Bean(PROJECT_ACCESSION_MAPPING_STEP_LISTENER)
+    StepListenerSupport projectAccessionMappingStepListener(ProjectAccessionMappingRegistry registry) {
+        return new StepListenerSupport() {
+            @Override
+            public ExitStatus afterStep(StepExecution stepExecution) {
+                List<ProjectAccessionMapping> unusedMappings = registry.getUnusedMappings();
+                logger.info("{} of {} project accession mappings were used, {} batches had no mapping",
+                            registry.size() - unusedMappings.size(), registry.size(), registry.getUnmappedBatches());
+                for (ProjectAccessionMapping mapping : unusedMappings) {
+                    logger.info("Unused project accession mapping: {} -> handle {}, batch {}, taxonomy {}",
+                                mapping.getEvaStudyId(), mapping.getDbsnpBatchHandle(), mapping.getDbsnpBatchName(),
+                                mapping.getTaxonomyAccession());
+                }
+                return stepExecution.getExitStatus();
+            }
+        };
+    }
+
     @Bean
     @StepScope
     public ImportCounts importCounts() {
         return new ImportCounts();
     }
 
+    /**
+     * Step scoped so every partition of a partitioned import has its own progress and import counts
+     */
     @Bean(IMPORT_DBSNP_VARIANTS_PROGRESS_LISTENER)
+    @StepScope
     public StepListenerSupport<SubSnpNoHgvs, DbsnpVariantsWrapper> importDbsnpVariantsProgressListener(
             InputParameters parameters, ImportCounts importCounts) {
         return new ImportDbsnpVariantsStepProgressListener(parameters.getChunkSize(), importCounts);
     }
 
+    @Bean(STEP_METRICS_LISTENER)
+    public StepListenerSupport<SubSnpNoHgvs, DbsnpVariantsWrapper> stepMetricsListener() {
+        Path prometheusFile = metricsPrometheusFile.isEmpty() ? null : Paths.get(metricsPrometheusFile);
+        return new StepMetricsListener<>(prometheusFile, metricsJmx, metricsExportIntervalSeconds);
+    }
+
 }
@@ -34,8 +34,12 @@ public class DbsnpClusteredVariantDeclusteredWriter implements ItemWriter<DbsnpC
 
     private MongoTemplate mongoTemplate;
 
+    private SetOnInsertUpserter upserter;
+
     public DbsnpClusteredVariantDeclusteredWriter(MongoTemplate mongoTemplate) {
         this.mongoTemplate = mongoTemplate;
+        this.upserter = new SetOnInsertUpserter(mongoTemplate, DbsnpClusteredVariantEntity.class,
+                                                DBSNP_CLUSTERED_VARIANT_DECLUSTERED_COLLECTION_NAME);
     }
 
     @Override
@@ -49,4 +53,13 @@ public class DbsnpClusteredVariantDeclusteredWriter implements ItemWriter<DbsnpC
         bulkOperations.execute();
 
     }
+
+    /**
+     * Inserts the variants whose hash is not stored yet, and leaves the stored ones untouched.
+     *
+     * @return The hashes of the variants that were already stored
+     */
+    public List<String> upsert(List<? extends DbsnpClusteredVariantEntity> importedClusteredVariants) {
+        return upserter.upsert(importedClusteredVariants);
+    }
 }
@@ -30,11 +30,14 @@ public class DbsnpClusteredVariantWriter implements ItemWriter<DbsnpClusteredVar
 
     private MongoTemplate mongoTemplate;
 
+    private SetOnInsertUpserter upserter;
+
     private ImportCounts importCounts;
 
     public DbsnpClusteredVariantWriter(MongoTemplate mongoTemplate, ImportCounts importCounts) {
         this.mongoTemplate = mongoTemplate;
         this.importCounts = importCounts;
+        this.upserter = new SetOnInsertUpserter(mongoTemplate, DbsnpClusteredVariantEntity.class);
     }
 
     @Override
@@ -52,4 +55,14 @@ public class DbsnpClusteredVariantWriter implements ItemWriter<DbsnpClusteredVar
         }
     }
 
+    /**
+     * Inserts the variants whose hash is not stored yet, and leaves the stored ones untouched.
+     *
+     * @return The hashes of the variants that were already stored
+     */
+    public List<String> upsert(List<? extends DbsnpClusteredVariantEntity> importedClusteredVariants) {
+        List<String> storedHashes = upserter.upsert(importedClusteredVariants);
+        importCounts.addClusteredVariantsWritten(importedClusteredVariants.size() - storedHashes.size());
+        return storedHashes;
+    }
 }
@@ -30,11 +30,14 @@ public class DbsnpSubmittedVariantWriter implements ItemWriter<DbsnpSubmittedVar
 
     private MongoTemplate mongoTemplate;
 
+    private SetOnInsertUpserter upserter;
+
     private ImportCounts importCounts;
 
     public DbsnpSubmittedVariantWriter(MongoTemplate mongoTemplate, ImportCounts importCounts) {
         this.mongoTemplate = mongoTemplate;
         this.importCounts = importCounts;
+        this.upserter = new SetOnInsertUpserter(mongoTemplate, DbsnpSubmittedVariantEntity.class);
     }
 
     @Override
@@ -52,4 +55,14 @@ public class DbsnpSubmittedVariantWriter implements ItemWriter<DbsnpSubmittedVar
         }
     }
 
+    /**
+     * Inserts the variants whose hash is not stored yet, and leaves the stored ones untouched.
+     *
+     * @return The hashes of the variants that were already stored
+     */
+    public List<String> upsert(List<? extends DbsnpSubmittedVariantEntity> importedSubmittedVariants) {
+        List<String> storedHashes = upserter.upsert(importedSubmittedVariants);
+        importCounts.addSubmittedVariantsWritten(importedSubmittedVariants.size() - storedHashes.size());
+        return storedHashes;
+    }
 }
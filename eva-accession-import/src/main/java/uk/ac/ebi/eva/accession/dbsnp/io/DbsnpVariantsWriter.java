@@ -20,14 +20,13 @@ import com.mongodb.ErrorCategory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.item.ItemWriter;
+import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.data.mongodb.BulkOperationException;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.util.Pair;
 import uk.ac.ebi.ampt2d.commons.accession.core.models.EventType;
 import uk.ac.ebi.ampt2d.commons.accession.persistence.mongodb.document.AccessionedDocument;
 import uk.ac.ebi.ampt2d.commons.accession.persistence.mongodb.document.EventDocument;
-import uk.ac.ebi.ampt2d.commons.accession.persistence.repositories.IAccessionedObjectRepository;
-import uk.ac.ebi.ampt2d.commons.accession.persistence.repositories.IHistoryRepository;
 
 import uk.ac.ebi.eva.accession.core.persistence.DbsnpClusteredVariantAccessioningRepository;
 import uk.ac.ebi.eva.accession.core.persistence.DbsnpClusteredVariantEntity;
@@ -47,21 +46,40 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
 import static uk.ac.ebi.eva.accession.dbsnp.io.DbsnpClusteredVariantDeclusteredWriter.DBSNP_CLUSTERED_VARIANT_DECLUSTERED_COLLECTION_NAME;
 
+/**
+ * Writes the submitted and clustered variants, and the merge and update operations that their duplicates require.
+ *
+ * Several writers can run at the same time, like the partitions of a partitioned import, as long as they share the
+ * set of merges in progress. A merge is claimed in that set before checking whether it was already written, so
+ * two writers that find the same duplicate don't both write a merge operation for it. Which of the duplicates stays
+ * active may differ from a serial import, but every other one is merged into it.
+ */
 public class DbsnpVariantsWriter implements ItemWriter<DbsnpVariantsWrapper> {
 
     private static final Logger logger = LoggerFactory.getLogger(DbsnpVariantsWriter.class);
 
+    private static final String ID_FIELD = "_id";
+
     private final MongoTemplate mongoTemplate;
 
     private DbsnpSubmittedVariantWriter dbsnpSubmittedVariantWriter;
@@ -83,13 +101,75 @@ public class DbsnpVariantsWriter implements ItemWriter<DbsnpVariantsWrapper> {
     private MergeOperationBuilder<DbsnpClusteredVariantEntity, DbsnpClusteredVariantOperationEntity>
             declusteredOperationBuilder;
 
+    private final Set<String> mergesInProgress;
+
+    private final List<String> claimedMerges;
+
+    private final Executor writeExecutor;
+
+    private final boolean upsert;
+
+    private final DbsnpSubmittedVariantOperationRepository submittedOperationRepository;
+
     public DbsnpVariantsWriter(MongoTemplate mongoTemplate,
                                DbsnpSubmittedVariantOperationRepository submittedOperationRepository,
                                DbsnpSubmittedVariantAccessioningRepository submittedVariantRepository,
                                DbsnpClusteredVariantOperationRepository clusteredOperationRepository,
                                DbsnpClusteredVariantAccessioningRepository clusteredVariantRepository,
                                ImportCounts importCounts) {
+        this(mongoTemplate, submittedOperationRepository, submittedVariantRepository, clusteredOperationRepository,
+             clusteredVariantRepository, importCounts, ConcurrentHashMap.newKeySet());
+    }
+
+    /**
+     * @param mergesInProgress Merges being written, shared by all the writers that run at the same time
+     */
+    public DbsnpVariantsWriter(MongoTemplate mongoTemplate,
+                               DbsnpSubmittedVariantOperationRepository submittedOperationRepository,
+                               DbsnpSubmittedVariantAccessioningRepository submittedVariantRepository,
+                               DbsnpClusteredVariantOperationRepository clusteredOperationRepository,
+                               DbsnpClusteredVariantAccessioningRepository clusteredVariantRepository,
+                               ImportCounts importCounts, Set<String> mergesInProgress) {
+        this(mongoTemplate, submittedOperationRepository, submittedVariantRepository, clusteredOperationRepository,
+             clusteredVariantRepository, importCounts, mergesInProgress, new SyncTaskExecutor());
+    }
+
+    /**
+     * @param mergesInProgress Merges being written, shared by all the writers that run at the same time
+     * @param writeExecutor Executor of the tasks that write every collection, which can run at the same time if the
+     * data they depend on was already written. A synchronous executor writes the collections one after another
+     */
+    public DbsnpVariantsWriter(MongoTemplate mongoTemplate,
+                               DbsnpSubmittedVariantOperationRepository submittedOperationRepository,
+                               DbsnpSubmittedVariantAccessioningRepository submittedVariantRepository,
+                               DbsnpClusteredVariantOperationRepository clusteredOperationRepository,
+                               DbsnpClusteredVariantAccessioningRepository clusteredVariantRepository,
+                               ImportCounts importCounts, Set<String> mergesInProgress, Executor writeExecutor) {
+        this(mongoTemplate, submittedOperationRepository, submittedVariantRepository, clusteredOperationRepository,
+             clusteredVariantRepository, importCounts, mergesInProgress, writeExecutor, false);
+    }
+
+    /**
+     * @param mergesInProgress Merges being written, shared by all the writers that run at the same time
+     * @param writeExecutor Executor of the tasks that write every collection, which can run at the same time if the
+     * data they depend on was already written. A synchronous executor writes the collections one after another
+     * @param upsert Whether to write the variants with upserts that leave the variants already stored untouched,
+     * instead of inserting them and handling the duplicate key errors. The decluster operations already written are not
+     * written again either, so importing the same variants again doesn't change the database
+     */
+    public DbsnpVariantsWriter(MongoTemplate mongoTemplate,
+                               DbsnpSubmittedVariantOperationRepository submittedOperationRepository,
+                               DbsnpSubmittedVariantAccessioningRepository submittedVariantRepository,
+                               DbsnpClusteredVariantOperationRepository clusteredOperationRepository,
+                               DbsnpClusteredVariantAccessioningRepository clusteredVariantRepository,
+                               ImportCounts importCounts, Set<String> mergesInProgress, Executor writeExecutor,
+                               boolean upsert) {
         this.mongoTemplate = mongoTemplate;
+        this.mergesInProgress = mergesInProgress;
+        this.claimedMerges = Collections.synchronizedList(new ArrayList<>());
+        this.writeExecutor = writeExecutor;
+        this.upsert = upsert;
+        this.submittedOperationRepository = submittedOperationRepository;
         this.dbsnpSubmittedVariantWriter = new DbsnpSubmittedVariantWriter(mongoTemplate, importCounts);
         this.dbsnpClusteredVariantWriter = new DbsnpClusteredVariantWriter(mongoTemplate, importCounts);
         this.dbsnpSubmittedVariantOperationWriter = new DbsnpSubmittedVariantOperationWriter(mongoTemplate,
@@ -99,14 +179,16 @@ public class DbsnpVariantsWriter implements ItemWriter<DbsnpVariantsWrapper> {
         this.dbsnpClusteredVariantDeclusteredWriter = new DbsnpClusteredVariantDeclusteredWriter(mongoTemplate);
 
         this.submittedOperationBuilder = new MergeOperationBuilder<>(
-                submittedOperationRepository, submittedVariantRepository, this::buildSubmittedMergeOperation);
+                submittedOperationRepository::findAllByAccessionIn, submittedVariantRepository::findAll,
+                this::buildSubmittedMergeOperation);
         this.clusteredOperationBuilder = new MergeOperationBuilder<>(
-                clusteredOperationRepository, clusteredVariantRepository, this::buildClusteredMergeOperation);
+                clusteredOperationRepository::findAllByAccessionIn, clusteredVariantRepository::findAll,
+                this::buildClusteredMergeOperation);
         this.declusteredOperationBuilder = new MergeOperationBuilder<>(
-                clusteredOperationRepository,
-                id -> mongoTemplate.findById(id,
-                                             DbsnpClusteredVariantEntity.class,
-                                             DBSNP_CLUSTERED_VARIANT_DECLUSTERED_COLLECTION_NAME),
+                clusteredOperationRepository::findAllByAccessionIn,
+                ids -> mongoTemplate.find(query(where(ID_FIELD).in(ids)),
+                                          DbsnpClusteredVariantEntity.class,
+                                          DBSNP_CLUSTERED_VARIANT_DECLUSTERED_COLLECTION_NAME),
                 this::buildClusteredMergeOperation);
     }
 
@@ -136,6 +218,28 @@ public class DbsnpVariantsWriter implements ItemWriter<DbsnpVariantsWrapper> {
 
     @Override
     public void write(List<? extends DbsnpVariantsWrapper> wrappers) throws Exception {
+        try {
+            writeVariantsAndOperations(wrappers);
+        } finally {
+            synchronized (claimedMerges) {
+                mergesInProgress.removeAll(claimedMerges);
+                claimedMerges.clear();
+            }
+        }
+    }
+
+    /**
+     * Every collection is written in a different task of the write executor as soon as the data it depends on is ready:
+     * <ol>
+     *     <li>The declustered clustered variants, the clustered variants and the decluster operations.</li>
+     *     <li>Once both clustered variant collections are written, their merge operations. At the same time, the
+     *     submitted variants of the merged clustered variants are updated to point to the accession they were merged
+     *     into, and then the update operations and the submitted variants are written.</li>
+     *     <li>Once the submitted variants are written, their merge operations.</li>
+     * </ol>
+     * With a synchronous executor the collections are written one after another in that same order.
+     */
+    private void writeVariantsAndOperations(List<? extends DbsnpVariantsWrapper> wrappers) throws Exception {
         List<DbsnpClusteredVariantEntity> declusteredClusteredVariants = new ArrayList<>();
         List<DbsnpSubmittedVariantOperationEntity> declusterOperations = new ArrayList<>();
 
@@ -147,51 +251,94 @@ public class DbsnpVariantsWriter implements ItemWriter<DbsnpVariantsWrapper> {
             }
         }
 
-        List<DbsnpClusteredVariantOperationEntity> clusteredVariantsMergeOperations =
-                writeClusteredVariantsAndOperations(wrappers, declusteredClusteredVariants);
+        CompletableFuture<List<DbsnpClusteredVariantOperationEntity>> declusteredMergeOperations =
+                CompletableFuture.supplyAsync(() -> writeDeclusteredClusteredVariants(declusteredClusteredVariants),
+                                              writeExecutor);
+        CompletableFuture<List<DbsnpClusteredVariantOperationEntity>> clusteredMergeOperations =
+                CompletableFuture.supplyAsync(() -> writeClusteredVariants(wrappers), writeExecutor);
+        CompletableFuture<List<DbsnpClusteredVariantOperationEntity>> mergeClusteredOperations =
+                declusteredMergeOperations.thenCombine(clusteredMergeOperations, this::concatenate);
+
+        CompletableFuture<Void> clusteredOperationsWritten = mergeClusteredOperations.thenAcceptAsync(
+                operations -> writeOperations(dbsnpClusteredVariantOperationWriter, operations), writeExecutor);
+
+        CompletableFuture<List<DbsnpSubmittedVariantOperationEntity>> updateOperations =
+                mergeClusteredOperations.thenApply(
+                        operations -> updateClusteredVariantAccessionsInSubmittedVariants(wrappers, operations));
+        CompletableFuture<Void> updateOperationsWritten = updateOperations.thenAcceptAsync(
+                operations -> writeOperations(dbsnpSubmittedVariantOperationWriter, operations), writeExecutor);
+        CompletableFuture<Void> declusterOperationsWritten = CompletableFuture.runAsync(
+                () -> writeOperations(dbsnpSubmittedVariantOperationWriter, upsert
+                        ? removeOperationsAlreadyWritten(declusterOperations)
+                        : declusterOperations), writeExecutor);
+        CompletableFuture<Void> submittedVariantsWritten = updateOperations
+                .thenApplyAsync(operations -> writeSubmittedVariants(wrappers), writeExecutor)
+                .thenAccept(operations -> writeOperations(dbsnpSubmittedVariantOperationWriter, operations));
 
-        writeSubmittedVariantsAndOperations(wrappers, declusterOperations, clusteredVariantsMergeOperations);
+        try {
+            CompletableFuture.allOf(clusteredOperationsWritten, updateOperationsWritten, declusterOperationsWritten,
+                                    submittedVariantsWritten).join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof Exception) {
+                throw (Exception) exception.getCause();
+            }
+            throw exception;
+        }
     }
 
-    private List<DbsnpClusteredVariantOperationEntity> writeClusteredVariantsAndOperations(
-            List<? extends DbsnpVariantsWrapper> wrappers,
-            List<DbsnpClusteredVariantEntity> declusteredClusteredVariants) throws Exception {
-        List<DbsnpClusteredVariantOperationEntity> mergeClusteredOperations = new ArrayList<>();
-
-        mergeClusteredOperations.addAll(writeDeclusteredClusteredVariants(declusteredClusteredVariants));
-        mergeClusteredOperations.addAll(writeClusteredVariants(wrappers));
+    private <T> void writeOperations(ItemWriter<T> operationWriter, List<T> operations) {
+        if (operations.isEmpty()) {
+            return;
+        }
+        try {
+            operationWriter.write(operations);
+        } catch (RuntimeException exception) {
+            throw exception;
+        } catch (Exception exception) {
+            throw new CompletionException(exception);
+        }
+    }
 
-        if (!mergeClusteredOperations.isEmpty()) {
-            dbsnpClusteredVariantOperationWriter.write(mergeClusteredOperations);
+    private List<DbsnpSubmittedVariantOperationEntity> removeOperationsAlreadyWritten(
+            List<DbsnpSubmittedVariantOperationEntity> operations) {
+        if (operations.isEmpty()) {
+            return operations;
         }
-        return mergeClusteredOperations;
+        Set<Long> accessions = operations.stream().map(EventDocument::getAccession).collect(Collectors.toSet());
+        Set<String> operationsWritten = submittedOperationRepository.findAllByAccessionIn(accessions)
+                                                                    .stream()
+                                                                    .map(this::getOperationKey)
+                                                                    .collect(Collectors.toSet());
+        return operations.stream()
+                         .filter(operation -> !operationsWritten.contains(getOperationKey(operation)))
+                         .collect(Collectors.toList());
+    }
+
+    private String getOperationKey(DbsnpSubmittedVariantOperationEntity operation) {
+        return operation.getAccession() + "_" + operation.getEventType() + "_" + operation.getReason() + "_"
+                + operation.getInactiveObjects().get(0).getHashedMessage();
+    }
+
+    private <T> List<T> concatenate(List<T> first, List<T> second) {
+        List<T> concatenation = new ArrayList<>(first);
+        concatenation.addAll(second);
+        return concatenation;
     }
 
     private List<DbsnpClusteredVariantOperationEntity> writeDeclusteredClusteredVariants(
             List<DbsnpClusteredVariantEntity> declusteredClusteredVariants) {
         List<DbsnpClusteredVariantEntity> clusteredVariantsDeclustered = new ArrayList<>(declusteredClusteredVariants);
-        try {
-            if (!clusteredVariantsDeclustered.isEmpty()) {
-                dbsnpClusteredVariantDeclusteredWriter.write(clusteredVariantsDeclustered);
-            }
-            return Collections.emptyList();
-        } catch (BulkOperationException exception) {
-            return declusteredOperationBuilder.buildMergeOperationsFromException(clusteredVariantsDeclustered,
-                                                                                 exception);
-        }
+        return declusteredOperationBuilder.writeAndBuildMergeOperations(clusteredVariantsDeclustered,
+                                                                        dbsnpClusteredVariantDeclusteredWriter::write,
+                                                                        dbsnpClusteredVariantDeclusteredWriter::upsert);
     }
 
     private List<DbsnpClusteredVariantOperationEntity> writeClusteredVariants(
             List<? extends DbsnpVariantsWrapper> wrappers) {
         List<DbsnpClusteredVariantEntity> clusteredVariants = getNonDeclusteredClusteredVariants(wrappers);
-        try {
-            if (!clusteredVariants.isEmpty()) {
-                dbsnpClusteredVariantWriter.write(clusteredVariants);
-            }
-            return Collections.emptyList();
-        } catch (BulkOperationException exception) {
-            return clusteredOperationBuilder.buildMergeOperationsFromException(clusteredVariants, exception);
-        }
+        return clusteredOperationBuilder.writeAndBuildMergeOperations(clusteredVariants,
+                                                                      dbsnpClusteredVariantWriter::write,
+                                                                      dbsnpClusteredVariantWriter::upsert);
     }
 
     private List<DbsnpClusteredVariantEntity> getNonDeclusteredClusteredVariants(
@@ -204,27 +351,6 @@ public class DbsnpVariantsWriter implements ItemWriter<DbsnpVariantsWrapper> {
                        .collect(Collectors.toList());
     }
 
-    private void writeSubmittedVariantsAndOperations(List<? extends DbsnpVariantsWrapper> wrappers,
-                                                     List<DbsnpSubmittedVariantOperationEntity> declusterOperations,
-                                                     List<DbsnpClusteredVariantOperationEntity> mergeClusteredOperations)
-            throws Exception {
-        List<DbsnpSubmittedVariantOperationEntity> updatedClusteredVariantOperation =
-                updateClusteredVariantAccessionsInSubmittedVariants(wrappers, mergeClusteredOperations);
-
-        if (!updatedClusteredVariantOperation.isEmpty()) {
-            dbsnpSubmittedVariantOperationWriter.write(updatedClusteredVariantOperation);
-        }
-
-        if (!declusterOperations.isEmpty()) {
-            dbsnpSubmittedVariantOperationWriter.write(declusterOperations);
-        }
-
-        List<DbsnpSubmittedVariantOperationEntity> mergeSubmittedOperations = writeSubmittedVariants(wrappers);
-        if (!mergeSubmittedOperations.isEmpty()) {
-            dbsnpSubmittedVariantOperationWriter.write(mergeSubmittedOperations);
-        }
-    }
-
     private List<DbsnpSubmittedVariantOperationEntity> updateClusteredVariantAccessionsInSubmittedVariants(
             List<? extends DbsnpVariantsWrapper> wrappers,
             List<DbsnpClusteredVariantOperationEntity> mergeClusteredOperations) {
@@ -339,14 +465,21 @@ public class DbsnpVariantsWriter implements ItemWriter<DbsnpVariantsWrapper> {
         List<DbsnpSubmittedVariantEntity> submittedVariants = wrappers.stream()
                                                                       .flatMap(w -> w.getSubmittedVariants().stream())
                                                                       .collect(Collectors.toList());
-        try {
-            dbsnpSubmittedVariantWriter.write(submittedVariants);
-            return Collections.emptyList();
-        } catch (BulkOperationException exception) {
-            return submittedOperationBuilder.buildMergeOperationsFromException(submittedVariants, exception);
-        }
+        return submittedOperationBuilder.writeAndBuildMergeOperations(submittedVariants,
+                                                                      dbsnpSubmittedVariantWriter::write,
+                                                                      dbsnpSubmittedVariantWriter::upsert);
     }
 
+    /**
+     * Writes a chunk of variants and builds the merge operations of the variants that have the same hash as another
+     * one, either in the same chunk or already stored.
+     *
+     * Only the first variant of every hash in the chunk is inserted, so the duplicates within the chunk are merged into
+     * it without waiting for the database to reject them. Only the hashes already stored make the insert fail, and
+     * those are parsed from the {@link BulkOperationException}. When upserting, the hashes already stored are those
+     * that their upsert didn't insert, so no exception is needed. The stored variants and the previous operations of
+     * the variants to merge are retrieved with one query each for the whole chunk, instead of one query per duplicate.
+     */
     private class MergeOperationBuilder<ENTITY extends AccessionedDocument<?, Long>,
             OPERATION_ENTITY extends EventDocument<?, Long, ?>> {
 
@@ -357,45 +490,89 @@ public class DbsnpVariantsWriter implements ItemWriter<DbsnpVariantsWrapper> {
 
         private final Pattern DUPLICATE_KEY_PATTERN = Pattern.compile(DUPLICATE_KEY_ERROR_MESSAGE_REGEX);
 
-        IHistoryRepository<Long, OPERATION_ENTITY, String> operationRepository;
-
-        IAccessionedObjectRepository<ENTITY, Long> variantRepository;
+        Function<Collection<Long>, List<OPERATION_ENTITY>> findAllOperationsByAccessions;
 
-        Function<String, ENTITY> findOneVariantEntityById;
+        Function<Collection<String>, Iterable<ENTITY>> findAllVariantEntitiesByIds;
 
         BiFunction<ENTITY, ENTITY, OPERATION_ENTITY> mergeOperationFactory;
 
-        MergeOperationBuilder(IHistoryRepository<Long, OPERATION_ENTITY, String> operationRepository,
-                              IAccessionedObjectRepository<ENTITY, Long> variantRepository,
-                              BiFunction<ENTITY, ENTITY, OPERATION_ENTITY> mergeOperationFactory) {
-            this(operationRepository, variantRepository::findOne, mergeOperationFactory);
-        }
-
-        MergeOperationBuilder(IHistoryRepository<Long, OPERATION_ENTITY, String> operationRepository,
-                              Function<String, ENTITY> findOneVariantEntityById,
+        MergeOperationBuilder(Function<Collection<Long>, List<OPERATION_ENTITY>> findAllOperationsByAccessions,
+                              Function<Collection<String>, Iterable<ENTITY>> findAllVariantEntitiesByIds,
                               BiFunction<ENTITY, ENTITY, OPERATION_ENTITY> mergeOperationFactory) {
-            this.operationRepository = operationRepository;
-            this.findOneVariantEntityById = findOneVariantEntityById;
+            this.findAllOperationsByAccessions = findAllOperationsByAccessions;
+            this.findAllVariantEntitiesByIds = findAllVariantEntitiesByIds;
             this.mergeOperationFactory = mergeOperationFactory;
         }
 
-        List<OPERATION_ENTITY> buildMergeOperationsFromException(List<ENTITY> variants,
-                                                                 BulkOperationException exception) {
-            List<OPERATION_ENTITY> operations = new ArrayList<>();
+        /**
+         * The merges are claimed before retrieving the previous operations, so that a merge written by another writer
+         * is either claimed by it or found in the operations.
+         */
+        List<OPERATION_ENTITY> writeAndBuildMergeOperations(List<ENTITY> variants, Consumer<List<ENTITY>> inserter,
+                                                            Function<List<ENTITY>, List<String>> upserter) {
             checkForNulls(variants);
-            extractUniqueHashes(exception)
-                    .forEach(hash -> {
-                        ENTITY mergedInto = findOneVariantEntityById.apply(hash);
-                        if (mergedInto == null) {
-                            throwMongoConsistencyException(variants, hash);
-                        }
-                        List<OPERATION_ENTITY> merges = buildMergeOperations(variants,
-                                                                             hash,
-                                                                             mergedInto);
-
-                        operations.addAll(merges);
-                    });
-            return operations;
+            Map<String, ENTITY> mergedIntoByHash = new LinkedHashMap<>();
+            for (ENTITY variant : variants) {
+                mergedIntoByHash.putIfAbsent(variant.getHashedMessage(), variant);
+            }
+            List<String> storedHashes = Collections.emptyList();
+            if (!mergedIntoByHash.isEmpty()) {
+                List<ENTITY> representatives = new ArrayList<>(mergedIntoByHash.values());
+                storedHashes = upsert ? upserter.apply(representatives) : insert(representatives, inserter);
+            }
+
+            Map<String, ENTITY> storedVariantsByHash = findVariantEntitiesByHash(storedHashes);
+            for (String hash : storedHashes) {
+                ENTITY storedVariant = storedVariantsByHash.get(hash);
+                if (storedVariant == null) {
+                    throwMongoConsistencyException(variants, hash);
+                }
+                mergedIntoByHash.put(hash, storedVariant);
+            }
+
+            List<Pair<ENTITY, ENTITY>> merges = claimMerges(variants, mergedIntoByHash);
+
+            Map<Long, List<OPERATION_ENTITY>> operationsByAccession = findOperationsByAccession(merges);
+            return merges.stream()
+                         .filter(merge -> !isAlreadyMergedInto(merge.getFirst(), merge.getSecond(),
+                                                               operationsByAccession))
+                         .map(merge -> mergeOperationFactory.apply(merge.getFirst(), merge.getSecond()))
+                         .collect(Collectors.toList());
+        }
+
+        /**
+         * @return The hashes of the variants that failed to be inserted because they were already stored
+         */
+        private List<String> insert(List<ENTITY> variants, Consumer<List<ENTITY>> inserter) {
+            try {
+                inserter.accept(variants);
+                return Collections.emptyList();
+            } catch (BulkOperationException exception) {
+                return extractUniqueHashes(exception).collect(Collectors.toList());
+            }
+        }
+
+        private Map<String, ENTITY> findVariantEntitiesByHash(List<String> hashes) {
+            Map<String, ENTITY> variantEntitiesByHash = new HashMap<>();
+            if (!hashes.isEmpty()) {
+                for (ENTITY variantEntity : findAllVariantEntitiesByIds.apply(hashes)) {
+                    variantEntitiesByHash.put(variantEntity.getHashedMessage(), variantEntity);
+                }
+            }
+            return variantEntitiesByHash;
+        }
+
+        private Map<Long, List<OPERATION_ENTITY>> findOperationsByAccession(List<Pair<ENTITY, ENTITY>> merges) {
+            if (merges.isEmpty()) {
+                return Collections.emptyMap();
+            }
+            Set<Long> accessions = merges.stream().map(merge -> merge.getFirst().getAccession())
+                                         .collect(Collectors.toSet());
+            Map<Long, List<OPERATION_ENTITY>> operationsByAccession = new HashMap<>();
+            for (OPERATION_ENTITY operation : findAllOperationsByAccessions.apply(accessions)) {
+                operationsByAccession.computeIfAbsent(operation.getAccession(), k -> new ArrayList<>()).add(operation);
+            }
+            return operationsByAccession;
         }
 
         private void throwMongoConsistencyException(List<ENTITY> variants, String hash) {
@@ -444,16 +621,20 @@ public class DbsnpVariantsWriter implements ItemWriter<DbsnpVariantsWrapper> {
             return errorCategory.equals(ErrorCategory.DUPLICATE_KEY);
         }
 
-        private List<OPERATION_ENTITY> buildMergeOperations(List<ENTITY> variants, String hash, ENTITY mergedInto) {
+        /**
+         * @return The variants that have to be merged into the active variant with the same hash, paired with it,
+         * except those whose merge is claimed by another writer
+         */
+        private List<Pair<ENTITY, ENTITY>> claimMerges(List<ENTITY> variants, Map<String, ENTITY> mergedIntoByHash) {
             Collection<ENTITY> entities = removeDuplicatesWithSameHashAndAccession(variants.stream());
-            checkForNulls(entities);
-            return entities
-                    .stream()
-                    .filter(v -> v.getHashedMessage().equals(hash)
-                            && !v.getAccession().equals(mergedInto.getAccession())
-                            && !isAlreadyMergedInto(v, mergedInto))
-                    .map(origin -> mergeOperationFactory.apply(origin, mergedInto))
-                    .collect(Collectors.toList());
+            List<Pair<ENTITY, ENTITY>> merges = new ArrayList<>();
+            for (ENTITY variant : entities) {
+                ENTITY mergedInto = mergedIntoByHash.get(variant.getHashedMessage());
+                if (!variant.getAccession().equals(mergedInto.getAccession()) && claimMerge(variant, mergedInto)) {
+                    merges.add(Pair.of(variant, mergedInto));
+                }
+            }
+            return merges;
         }
 
         private void checkForNulls(Collection<ENTITY> entities) {
@@ -474,12 +655,28 @@ public class DbsnpVariantsWriter implements ItemWriter<DbsnpVariantsWrapper> {
                 Stream<T> accessionedEntities) {
             return accessionedEntities.collect(Collectors.toMap(v -> v.getHashedMessage() + v.getAccession().toString(),
                                                                 v -> v,
-                                                                (a, b) -> a))
+                                                                (a, b) -> a,
+                                                                LinkedHashMap::new))
                                       .values();
         }
 
-        private boolean isAlreadyMergedInto(ENTITY original, ENTITY mergedInto) {
-            List<OPERATION_ENTITY> merges = operationRepository.findAllByAccession(original.getAccession());
+        /**
+         * A merge claimed by another writer is being written by it, so it is skipped as already merged. The claims are
+         * released after the whole chunk is written, when the merge operations can be found in the repository.
+         */
+        private boolean claimMerge(ENTITY original, ENTITY mergedInto) {
+            String mergeKey = original.getHashedMessage() + original.getAccession() + "_" + mergedInto.getAccession();
+            if (!mergesInProgress.add(mergeKey)) {
+                return false;
+            }
+            claimedMerges.add(mergeKey);
+            return true;
+        }
+
+        private boolean isAlreadyMergedInto(ENTITY original, ENTITY mergedInto,
+                                            Map<Long, List<OPERATION_ENTITY>> operationsByAccession) {
+            List<OPERATION_ENTITY> merges = operationsByAccession.getOrDefault(original.getAccession(),
+                                                                               Collections.emptyList());
             return merges.stream().anyMatch(
                     operation ->
                             operation.getEventType().equals(EventType.MERGED)
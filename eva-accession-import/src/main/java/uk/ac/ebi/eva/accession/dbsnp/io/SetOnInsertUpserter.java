@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.dbsnp.io;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteError;
+import com.mongodb.BulkWriteResult;
+import com.mongodb.BulkWriteUpsert;
+import com.mongodb.DBObject;
+import com.mongodb.ErrorCategory;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import uk.ac.ebi.ampt2d.commons.accession.persistence.mongodb.document.AccessionedDocument;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Writes variants with upserts that only set their fields if there is no document with the same hash yet
+ * ($setOnInsert), so the variants already stored are left untouched instead of making the bulk operation fail. This
+ * way a chunk whose variants were already imported is written without any duplicate key exception.
+ */
+class SetOnInsertUpserter {
+
+    private static final String ID_FIELD = "_id";
+
+    private final MongoTemplate mongoTemplate;
+
+    private final Class<?> entityClass;
+
+    private final String collectionName;
+
+    SetOnInsertUpserter(MongoTemplate mongoTemplate, Class<?> entityClass) {
+        this(mongoTemplate, entityClass, mongoTemplate.getCollectionName(entityClass));
+    }
+
+    SetOnInsertUpserter(MongoTemplate mongoTemplate, Class<?> entityClass, String collectionName) {
+        this.mongoTemplate = mongoTemplate;
+        this.entityClass = entityClass;
+        this.collectionName = collectionName;
+    }
+
+    /**
+     * @return The hashes of the variants that were not inserted because a variant with the same hash was already
+     * stored, maybe with a different accession
+     */
+    List<String> upsert(List<? extends AccessionedDocument<?, Long>> variants) {
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, entityClass,
+                                                              collectionName);
+        for (AccessionedDocument<?, Long> variant : variants) {
+            bulkOperations.upsert(query(where(ID_FIELD).is(variant.getHashedMessage())), buildSetOnInsert(variant));
+        }
+
+        BulkWriteResult bulkWriteResult;
+        try {
+            bulkWriteResult = bulkOperations.execute();
+        } catch (BulkOperationException exception) {
+            // Two writers can upsert the same hash at the same time, and then one of them gets a duplicate key error
+            for (BulkWriteError error : exception.getErrors()) {
+                if (!ErrorCategory.fromErrorCode(error.getCode()).equals(ErrorCategory.DUPLICATE_KEY)) {
+                    throw exception;
+                }
+            }
+            bulkWriteResult = exception.getResult();
+        }
+        return getHashesNotInserted(variants, bulkWriteResult);
+    }
+
+    private Update buildSetOnInsert(AccessionedDocument<?, Long> variant) {
+        DBObject document = new BasicDBObject();
+        mongoTemplate.getConverter().write(variant, document);
+        Update update = new Update();
+        for (String field : document.keySet()) {
+            if (!field.equals(ID_FIELD)) {
+                update.setOnInsert(field, document.get(field));
+            }
+        }
+        return update;
+    }
+
+    private List<String> getHashesNotInserted(List<? extends AccessionedDocument<?, Long>> variants,
+                                              BulkWriteResult bulkWriteResult) {
+        Set<Integer> insertedIndexes = new HashSet<>();
+        for (BulkWriteUpsert upsert : bulkWriteResult.getUpserts()) {
+            insertedIndexes.add(upsert.getIndex());
+        }
+        List<String> hashesNotInserted = new ArrayList<>();
+        for (int i = 0; i < variants.size(); i++) {
+            if (!insertedIndexes.contains(i)) {
+                hashesNotInserted.add(variants.get(i).getHashedMessage());
+            }
+        }
+        return hashesNotInserted;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.dbsnp.io;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static uk.ac.ebi.eva.accession.dbsnp.io.SubSnpNoHgvsRowMapper.LOAD_ORDER_COLUMN;
+
+/**
+ * Splits the dbSNP table read by {@link SubSnpNoHgvsReader} into ranges of load order of the same size, so every
+ * partition can be read by a different reader. The ranges are stored in the execution context of every partition
+ * under {@link #MIN_LOAD_ORDER_KEY} and {@link #MAX_LOAD_ORDER_KEY}, both inclusive.
+ *
+ * The load order is a serial column, so equal ranges contain a similar number of rows.
+ */
+public class SubSnpNoHgvsPartitioner implements Partitioner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubSnpNoHgvsPartitioner.class);
+
+    public static final String MIN_LOAD_ORDER_KEY = "minLoadOrder";
+
+    public static final String MAX_LOAD_ORDER_KEY = "maxLoadOrder";
+
+    private static final String PARTITION_NAME_PREFIX = "partition";
+
+    private final String tableName;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SubSnpNoHgvsPartitioner(String assembly, Long buildNumber, DataSource dataSource) {
+        this.tableName = SubSnpNoHgvsReader.getTableName(assembly, buildNumber);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        long[] loadOrderRange = jdbcTemplate.queryForObject(
+                "SELECT MIN(" + LOAD_ORDER_COLUMN + "), MAX(" + LOAD_ORDER_COLUMN + ") FROM " + tableName,
+                (resultSet, rowNumber) -> {
+                    long min = resultSet.getLong(1);
+                    return resultSet.wasNull() ? null : new long[]{min, resultSet.getLong(2)};
+                });
+
+        Map<String, ExecutionContext> partitions = new LinkedHashMap<>();
+        if (loadOrderRange == null) {
+            logger.info("Table {} is empty, it will be read in a single partition", tableName);
+            partitions.put(PARTITION_NAME_PREFIX + 0, new ExecutionContext());
+            return partitions;
+        }
+
+        long minLoadOrder = loadOrderRange[0];
+        long maxLoadOrder = loadOrderRange[1];
+        int numPartitions = Math.max(1, gridSize);
+        long loadOrders = maxLoadOrder - minLoadOrder + 1;
+        long partitionSize = (loadOrders + numPartitions - 1) / numPartitions;
+        for (long start = minLoadOrder; start <= maxLoadOrder; start += partitionSize) {
+            ExecutionContext context = new ExecutionContext();
+            context.putLong(MIN_LOAD_ORDER_KEY, start);
+            context.putLong(MAX_LOAD_ORDER_KEY, Math.min(maxLoadOrder, start + partitionSize - 1));
+            partitions.put(PARTITION_NAME_PREFIX + partitions.size(), context);
+        }
+        logger.info("Table {} split into {} partitions of {} load orders, from {} to {}", tableName,
+                    partitions.size(), partitionSize, minLoadOrder, maxLoadOrder);
+        return partitions;
+    }
+}
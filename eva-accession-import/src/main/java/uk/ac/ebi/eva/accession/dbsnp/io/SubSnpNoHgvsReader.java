@@ -18,14 +18,17 @@ package uk.ac.ebi.eva.accession.dbsnp.io;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.batch.item.database.JdbcCursorItemReader;
+import org.springframework.batch.item.database.JdbcPagingItemReader;
+import org.springframework.batch.item.database.Order;
+import org.springframework.batch.item.database.PagingQueryProvider;
+import org.springframework.batch.item.database.support.SqlPagingQueryProviderFactoryBean;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.util.DigestUtils;
 
 import uk.ac.ebi.eva.accession.dbsnp.model.SubSnpNoHgvs;
 
 import javax.sql.DataSource;
-import java.sql.Connection;
-import java.sql.SQLException;
+import java.util.Collections;
 
 import static uk.ac.ebi.eva.accession.dbsnp.io.SubSnpNoHgvsRowMapper.ALLELES_COLUMN;
 import static uk.ac.ebi.eva.accession.dbsnp.io.SubSnpNoHgvsRowMapper.BATCH_HANDLE_COLUMN;
@@ -50,30 +53,90 @@ import static uk.ac.ebi.eva.accession.dbsnp.io.SubSnpNoHgvsRowMapper.SUBSNP_ORIE
 import static uk.ac.ebi.eva.accession.dbsnp.io.SubSnpNoHgvsRowMapper.SUBSNP_VALIDATED_COLUMN;
 import static uk.ac.ebi.eva.accession.dbsnp.io.SubSnpNoHgvsRowMapper.TAXONOMY_ID_COLUMN;
 
-public class SubSnpNoHgvsReader extends JdbcCursorItemReader<SubSnpNoHgvs> {
+/**
+ * Reads the dbSNP table in pages sorted by load order. Every page is requested with a short query that starts after
+ * the last load order of the previous page ("WHERE load_order > ?"), instead of keeping a cursor open during the whole
+ * import, so there is no long-running transaction in the dbSNP mirror and only one page is kept in memory.
+ *
+ * The last load order read is saved in the execution context, so a restarted import continues from the last
+ * committed chunk without reading again the rows before it.
+ *
+ * The load order must be unique in the table: if several rows had the same load order and a page ended in the first
+ * of them, the rest would be skipped by the next page. This is checked when the reader is opened.
+ */
+public class SubSnpNoHgvsReader extends JdbcPagingItemReader<SubSnpNoHgvs> {
 
     private static final Logger logger = LoggerFactory.getLogger(SubSnpNoHgvsReader.class);
 
+    private final String tableName;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String loadOrderCondition;
+
     public SubSnpNoHgvsReader(String assembly, Long buildNumber, DataSource dataSource, int pageSize) throws Exception {
+        this(assembly, buildNumber, dataSource, pageSize, null, null);
+    }
+
+    /**
+     * Reads only the rows whose load order is in the given range, so that several readers can read different parts of
+     * the table at the same time.
+     *
+     * @param minLoadOrder First load order to read (inclusive), or null to read from the beginning of the table
+     * @param maxLoadOrder Last load order to read (inclusive), or null to read until the end of the table
+     */
+    public SubSnpNoHgvsReader(String assembly, Long buildNumber, DataSource dataSource, int pageSize,
+                              Long minLoadOrder, Long maxLoadOrder) throws Exception {
+        tableName = getTableName(assembly, buildNumber);
+        logger.debug("querying table {} for assembly {}", tableName, assembly);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        loadOrderCondition = buildLoadOrderCondition(minLoadOrder, maxLoadOrder);
         setDataSource(dataSource);
-        setSql(buildSql(assembly, buildNumber));
+        setQueryProvider(buildQueryProvider(dataSource));
         setRowMapper(new SubSnpNoHgvsRowMapper(assembly));
+        setPageSize(pageSize);
         setFetchSize(pageSize);
     }
 
+    /**
+     * Pages are only requested on the first read, so the table is checked here to fail as soon as the reader is opened
+     * if it doesn't exist, or if the load orders in the range to read are not unique.
+     */
     @Override
-    protected void openCursor(Connection connection) {
-        try {
-            connection.setAutoCommit(false);
-        } catch (SQLException e) {
-            throw new RuntimeException("Failed to set autocommit=false", e);
+    protected void doOpen() throws Exception {
+        jdbcTemplate.queryForList("SELECT 1 FROM " + tableName + " WHERE 1 = 0");
+        checkLoadOrderIsUnique();
+        super.doOpen();
+    }
+
+    private void checkLoadOrderIsUnique() {
+        String sql = "SELECT COUNT(*) - COUNT(DISTINCT " + LOAD_ORDER_COLUMN + ") FROM " + tableName;
+        if (loadOrderCondition != null) {
+            sql += " WHERE " + loadOrderCondition;
+        }
+        Long repeatedLoadOrders = jdbcTemplate.queryForObject(sql, Long.class);
+        if (repeatedLoadOrders != null && repeatedLoadOrders > 0) {
+            throw new IllegalStateException(
+                    "Table " + tableName + " has " + repeatedLoadOrders + " rows whose " + LOAD_ORDER_COLUMN +
+                            " is also used by another row, but it must be unique to read the table in pages");
         }
-        super.openCursor(connection);
     }
 
-    private String buildSql(String assembly, Long buildNumber) {
-        String tableName = getTableName(assembly, buildNumber);
-        logger.debug("querying table {} for assembly {}", tableName, assembly);
+    private PagingQueryProvider buildQueryProvider(DataSource dataSource) throws Exception {
+        SqlPagingQueryProviderFactoryBean queryProviderFactory = new SqlPagingQueryProviderFactoryBean();
+        queryProviderFactory.setDataSource(dataSource);
+        queryProviderFactory.setSelectClause(buildSelectClause());
+        queryProviderFactory.setFromClause(tableName);
+        queryProviderFactory.setWhereClause(loadOrderCondition);
+        queryProviderFactory.setSortKeys(Collections.singletonMap(LOAD_ORDER_COLUMN, Order.ASCENDING));
+        return queryProviderFactory.getObject();
+    }
+
+    /**
+     * The load order is not used by {@link SubSnpNoHgvsRowMapper}, but it must be selected because it's the sort key
+     * of the pages.
+     */
+    private String buildSelectClause() {
         String sql =
                 "SELECT " +
                         SS_ID_COLUMN +
@@ -97,13 +160,24 @@ public class SubSnpNoHgvsReader extends JdbcCursorItemReader<SubSnpNoHgvs> {
                         "," + SS_CREATE_TIME_COLUMN +
                         "," + RS_CREATE_TIME_COLUMN +
                         "," + TAXONOMY_ID_COLUMN +
-                        " FROM " + tableName +
-                        " ORDER BY " + LOAD_ORDER_COLUMN;
+                        "," + LOAD_ORDER_COLUMN;
 
         return sql;
     }
 
-    private String getTableName(String assembly, Long buildNumber) {
+    private String buildLoadOrderCondition(Long minLoadOrder, Long maxLoadOrder) {
+        if (minLoadOrder == null && maxLoadOrder == null) {
+            return null;
+        } else if (maxLoadOrder == null) {
+            return LOAD_ORDER_COLUMN + " >= " + minLoadOrder;
+        } else if (minLoadOrder == null) {
+            return LOAD_ORDER_COLUMN + " <= " + maxLoadOrder;
+        } else {
+            return LOAD_ORDER_COLUMN + " BETWEEN " + minLoadOrder + " AND " + maxLoadOrder;
+        }
+    }
+
+    static String getTableName(String assembly, Long buildNumber) {
         if (buildNumber == null) {
             return "dbsnp_variant_load_nohgvslink_" + hash(assembly);
         } else {
@@ -111,7 +185,7 @@ public class SubSnpNoHgvsReader extends JdbcCursorItemReader<SubSnpNoHgvs> {
         }
     }
 
-    private String hash(String string) {
+    private static String hash(String string) {
         return DigestUtils.md5DigestAsHex(string.getBytes());
     }
 
@@ -15,6 +15,10 @@
  */
 package uk.ac.ebi.eva.accession.dbsnp.listeners;
 
+/**
+ * Documents written by the import step. The methods are synchronized because the collections of a chunk can be
+ * written by several threads at the same time.
+ */
 public class ImportCounts {
 
     public static final String SUBMITTED_VARIANTS_WRITTEN = "submittedVariantsWritten";
@@ -35,39 +39,39 @@ public class ImportCounts {
         this.operationsWritten = 0;
     }
 
-    public void addClusteredVariantsWritten(long clusteredVariantsWritten) {
+    public synchronized void addClusteredVariantsWritten(long clusteredVariantsWritten) {
         this.clusteredVariantsWritten += clusteredVariantsWritten;
     }
 
-    public void addOperationsWritten(long operationsWritten) {
+    public synchronized void addOperationsWritten(long operationsWritten) {
         this.operationsWritten += operationsWritten;
     }
 
-    public void addSubmittedVariantsWritten(long submittedVariantsWritten) {
+    public synchronized void addSubmittedVariantsWritten(long submittedVariantsWritten) {
         this.submittedVariantsWritten += submittedVariantsWritten;
     }
 
-    public long getClusteredVariantsWritten() {
+    public synchronized long getClusteredVariantsWritten() {
         return clusteredVariantsWritten;
     }
 
-    public void setClusteredVariantsWritten(long clusteredVariantsWritten) {
+    public synchronized void setClusteredVariantsWritten(long clusteredVariantsWritten) {
         this.clusteredVariantsWritten = clusteredVariantsWritten;
     }
 
-    public long getOperationsWritten() {
+    public synchronized long getOperationsWritten() {
         return operationsWritten;
     }
 
-    public void setOperationsWritten(long operationsWritten) {
+    public synchronized void setOperationsWritten(long operationsWritten) {
         this.operationsWritten = operationsWritten;
     }
 
-    public long getSubmittedVariantsWritten() {
+    public synchronized long getSubmittedVariantsWritten() {
         return submittedVariantsWritten;
     }
 
-    public void setSubmittedVariantsWritten(long submittedVariantsWritten) {
+    public synchronized void setSubmittedVariantsWritten(long submittedVariantsWritten) {
         this.submittedVariantsWritten = submittedVariantsWritten;
     }
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.dbsnp.listeners;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.partition.support.DefaultStepExecutionAggregator;
+import org.springframework.batch.core.partition.support.StepExecutionAggregator;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Adds up the {@link ImportCounts} of every partition of the import step into the execution context of the
+ * partitioned step, besides the read and write counts added up by {@link DefaultStepExecutionAggregator}.
+ *
+ * Every partition has its own ImportCounts, stored in its execution context by
+ * {@link ImportDbsnpVariantsStepProgressListener}. The counts of each partition are also kept in the context of the
+ * partitioned step, because when a job is restarted only the partitions that didn't complete are run again, and the
+ * totals must still include the ones that completed before.
+ */
+public class ImportCountsAggregator implements StepExecutionAggregator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportCountsAggregator.class);
+
+    private static final List<String> COUNTS = Arrays.asList(ImportCounts.SUBMITTED_VARIANTS_WRITTEN,
+                                                             ImportCounts.CLUSTERED_VARIANTS_WRITTEN,
+                                                             ImportCounts.OPERATIONS_WRITTEN);
+
+    private final StepExecutionAggregator delegate;
+
+    public ImportCountsAggregator() {
+        this.delegate = new DefaultStepExecutionAggregator();
+    }
+
+    @Override
+    public void aggregate(StepExecution result, Collection<StepExecution> executions) {
+        delegate.aggregate(result, executions);
+
+        ExecutionContext executionContext = result.getExecutionContext();
+        for (StepExecution partitionExecution : executions) {
+            ExecutionContext partitionContext = partitionExecution.getExecutionContext();
+            for (String count : COUNTS) {
+                if (partitionContext.containsKey(count)) {
+                    executionContext.putLong(getPartitionKey(partitionExecution.getStepName(), count),
+                                             partitionContext.getLong(count));
+                }
+            }
+        }
+
+        for (String count : COUNTS) {
+            long total = 0;
+            for (Map.Entry<String, Object> entry : executionContext.entrySet()) {
+                if (entry.getKey().endsWith(getPartitionKey("", count))) {
+                    total += (Long) entry.getValue();
+                }
+            }
+            executionContext.putLong(count, total);
+        }
+        logger.info("Step {} finished: ss written = {}, rs written = {}, operations written = {}",
+                    result.getStepName(), executionContext.getLong(ImportCounts.SUBMITTED_VARIANTS_WRITTEN),
+                    executionContext.getLong(ImportCounts.CLUSTERED_VARIANTS_WRITTEN),
+                    executionContext.getLong(ImportCounts.OPERATIONS_WRITTEN));
+    }
+
+    private String getPartitionKey(String partitionStepName, String count) {
+        return partitionStepName + "." + count;
+    }
+}
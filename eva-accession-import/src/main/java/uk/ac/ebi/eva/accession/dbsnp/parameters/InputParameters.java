@@ -38,6 +38,14 @@ public class InputParameters {
 
     private int pageSize;
 
+    private int partitions;
+
+    private int processingThreads;
+
+    private int writeThreads;
+
+    private boolean upsertVariants;
+
     public JobParameters toJobParameters() {
         return new JobParametersBuilder()
                 .addString("fasta", fasta)
@@ -48,6 +56,10 @@ public class InputParameters {
                 .addLong("buildNumber", buildNumber)
                 .addLong("chunkSize", (long) chunkSize, false)
                 .addLong("pageSize", (long) pageSize, false)
+                .addLong("partitions", (long) partitions, false)
+                .addLong("processingThreads", (long) processingThreads, false)
+                .addLong("writeThreads", (long) writeThreads, false)
+                .addString("upsertVariants", Boolean.toString(upsertVariants), false)
                 .toJobParameters();
     }
 
@@ -107,6 +119,38 @@ public class InputParameters {
         this.pageSize = pageSize;
     }
 
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public void setPartitions(int partitions) {
+        this.partitions = partitions;
+    }
+
+    public int getProcessingThreads() {
+        return processingThreads;
+    }
+
+    public void setProcessingThreads(int processingThreads) {
+        this.processingThreads = processingThreads;
+    }
+
+    public int getWriteThreads() {
+        return writeThreads;
+    }
+
+    public void setWriteThreads(int writeThreads) {
+        this.writeThreads = writeThreads;
+    }
+
+    public boolean isUpsertVariants() {
+        return upsertVariants;
+    }
+
+    public void setUpsertVariants(boolean upsertVariants) {
+        this.upsertVariants = upsertVariants;
+    }
+
     public String getAssemblyName() {
         return assemblyName;
     }
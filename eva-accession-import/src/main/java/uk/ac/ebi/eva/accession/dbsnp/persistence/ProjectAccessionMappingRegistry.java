@@ -0,0 +1,136 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.dbsnp.persistence;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Index of the {@link ProjectAccessionMapping}s by dbSNP batch handle, batch name and taxonomy, so the project of every
+ * submitted variant is found without scanning all the mappings. The index is not modified after it's built, so it
+ * can be shared by several threads.
+ *
+ * The project accessions are shared by all the variants of the same batch: those of the mappings are kept from the
+ * list, and those of the batches without a mapping are built once. The mappings that are never used are reported,
+ * because they probably refer to batches that are not in dbSNP anymore or were written with a different name.
+ */
+public class ProjectAccessionMappingRegistry {
+
+    private final Map<BatchKey, MappingUsage> mappings;
+
+    private final ConcurrentMap<BatchKey, String> unmappedProjectAccessions;
+
+    public ProjectAccessionMappingRegistry(List<ProjectAccessionMapping> projectAccessionMappings) {
+        mappings = new HashMap<>();
+        for (ProjectAccessionMapping mapping : projectAccessionMappings) {
+            BatchKey key = new BatchKey(mapping.getDbsnpBatchHandle(), mapping.getDbsnpBatchName(),
+                                        mapping.getTaxonomyAccession());
+            // the first mapping of a batch is used, like when the list is scanned
+            mappings.putIfAbsent(key, new MappingUsage(mapping));
+        }
+        unmappedProjectAccessions = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * @return The EVA study mapped to the batch, or "batchHandle_batchName" if there is no mapping for it
+     */
+    public String getProjectAccession(String batchHandle, String batchName, int taxonomyAccession) {
+        BatchKey key = new BatchKey(batchHandle, batchName, taxonomyAccession);
+        MappingUsage usage = mappings.get(key);
+        if (usage != null) {
+            usage.used = true;
+            return usage.mapping.getEvaStudyId();
+        }
+        return unmappedProjectAccessions.computeIfAbsent(key, k -> batchHandle + "_" + batchName);
+    }
+
+    public int size() {
+        return mappings.size();
+    }
+
+    /**
+     * @return The mappings that were not returned by {@link #getProjectAccession} since the registry was built
+     */
+    public List<ProjectAccessionMapping> getUnusedMappings() {
+        List<ProjectAccessionMapping> unusedMappings = new ArrayList<>();
+        for (MappingUsage usage : mappings.values()) {
+            if (!usage.used) {
+                unusedMappings.add(usage.mapping);
+            }
+        }
+        return unusedMappings;
+    }
+
+    /**
+     * @return Number of batches that were found without a mapping
+     */
+    public int getUnmappedBatches() {
+        return unmappedProjectAccessions.size();
+    }
+
+    private static class MappingUsage {
+
+        private final ProjectAccessionMapping mapping;
+
+        // only ever set to true, so concurrent updates don't need synchronization
+        private volatile boolean used;
+
+        MappingUsage(ProjectAccessionMapping mapping) {
+            this.mapping = mapping;
+        }
+    }
+
+    private static class BatchKey {
+
+        private final String batchHandle;
+
+        private final String batchName;
+
+        private final int taxonomyAccession;
+
+        BatchKey(String batchHandle, String batchName, int taxonomyAccession) {
+            this.batchHandle = batchHandle;
+            this.batchName = batchName;
+            this.taxonomyAccession = taxonomyAccession;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof BatchKey)) {
+                return false;
+            }
+            BatchKey that = (BatchKey) o;
+            return taxonomyAccession == that.taxonomyAccession && Objects.equals(batchHandle, that.batchHandle)
+                    && Objects.equals(batchName, that.batchName);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = batchHandle != null ? batchHandle.hashCode() : 0;
+            result = 31 * result + (batchName != null ? batchName.hashCode() : 0);
+            result = 31 * result + taxonomyAccession;
+            return result;
+        }
+    }
+}
@@ -70,7 +70,8 @@ public class ContigReplacerProcessor implements ItemProcessor<SubSnpNoHgvs, SubS
             subSnpNoHgvs.setContigName(contigSynonyms.getGenBank());
         } else {
             // genbank is not identical to refseq and the assembly is not genbank, so
-            // we must keep the original refseq
+            // we must keep the original refseq, using the instance shared with the assembly report
+            subSnpNoHgvs.setContigName(contigMapping.getCanonicalName(subSnpNoHgvs.getContigName()));
         }
     }
 
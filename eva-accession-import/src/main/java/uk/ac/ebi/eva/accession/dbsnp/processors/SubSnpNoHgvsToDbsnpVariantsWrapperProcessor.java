@@ -16,23 +16,22 @@
 package uk.ac.ebi.eva.accession.dbsnp.processors;
 
 import org.springframework.batch.item.ItemProcessor;
-import uk.ac.ebi.ampt2d.commons.accession.hashing.SHA1HashingFunction;
 
 import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
 import uk.ac.ebi.eva.accession.core.SubmittedVariant;
 import uk.ac.ebi.eva.accession.core.persistence.DbsnpSubmittedVariantEntity;
-import uk.ac.ebi.eva.accession.core.summary.SubmittedVariantSummaryFunction;
+import uk.ac.ebi.eva.accession.core.summary.SubmittedVariantHashingFunction;
 import uk.ac.ebi.eva.accession.core.io.FastaSynonymSequenceReader;
 import uk.ac.ebi.eva.accession.dbsnp.model.SubSnpNoHgvs;
 import uk.ac.ebi.eva.accession.core.persistence.DbsnpClusteredVariantEntity;
 import uk.ac.ebi.eva.accession.dbsnp.persistence.DbsnpVariantsWrapper;
 import uk.ac.ebi.eva.accession.dbsnp.persistence.ProjectAccessionMapping;
+import uk.ac.ebi.eva.accession.dbsnp.persistence.ProjectAccessionMappingRegistry;
 import uk.ac.ebi.eva.commons.core.models.Region;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 import java.util.function.Function;
 
 public class SubSnpNoHgvsToDbsnpVariantsWrapperProcessor implements ItemProcessor<SubSnpNoHgvs, DbsnpVariantsWrapper> {
@@ -45,15 +44,21 @@ public class SubSnpNoHgvsToDbsnpVariantsWrapperProcessor implements ItemProcesso
 
     private String assemblyAccession;
 
-    private List<ProjectAccessionMapping> projectAccessionMappings;
+    private ProjectAccessionMappingRegistry projectAccessionMappings;
 
     public SubSnpNoHgvsToDbsnpVariantsWrapperProcessor(String assemblyAccession,
                                                        FastaSynonymSequenceReader fastaSequenceReader,
                                                        List<ProjectAccessionMapping> projectAccessionMappings) {
+        this(assemblyAccession, fastaSequenceReader, new ProjectAccessionMappingRegistry(projectAccessionMappings));
+    }
+
+    public SubSnpNoHgvsToDbsnpVariantsWrapperProcessor(String assemblyAccession,
+                                                       FastaSynonymSequenceReader fastaSequenceReader,
+                                                       ProjectAccessionMappingRegistry projectAccessionMappings) {
         this.assemblyAccession = assemblyAccession;
         this.renormalizationProcessor = new SubmittedVariantRenormalizationProcessor(fastaSequenceReader);
         this.subSnpNoHgvsToClusteredVariantProcessor = new SubSnpNoHgvsToClusteredVariantProcessor(assemblyAccession);
-        this.hashingFunction = new SubmittedVariantSummaryFunction().andThen(new SHA1HashingFunction());
+        this.hashingFunction = new SubmittedVariantHashingFunction();
         this.projectAccessionMappings = projectAccessionMappings;
     }
 
@@ -101,17 +106,8 @@ public class SubSnpNoHgvsToDbsnpVariantsWrapperProcessor implements ItemProcesso
     }
 
     private String getProjectAccession(SubSnpNoHgvs subSnpNoHgvs) {
-        Optional<String> studyId = projectAccessionMappings.stream()
-                                                           .filter(sm -> sm.getDbsnpBatchHandle()
-                                                                           .equals(subSnpNoHgvs.getBatchHandle()))
-                                                           .filter(sm -> sm.getDbsnpBatchName()
-                                                                           .equals(subSnpNoHgvs.getBatchName()))
-                                                           .filter(sm -> sm.getTaxonomyAccession()
-                                                                           == subSnpNoHgvs.getTaxonomyId())
-                                                           .map(ProjectAccessionMapping::getEvaStudyId)
-                                                           .findFirst();
-
-        return studyId.orElse(subSnpNoHgvs.getBatchHandle() + "_" + subSnpNoHgvs.getBatchName());
+        return projectAccessionMappings.getProjectAccession(subSnpNoHgvs.getBatchHandle(), subSnpNoHgvs.getBatchName(),
+                                                            subSnpNoHgvs.getTaxonomyId());
     }
 
     private LocalDateTime getCreatedDate(SubSnpNoHgvs subSnpNoHgvs) {
@@ -18,12 +18,11 @@ package uk.ac.ebi.eva.accession.dbsnp.processors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.item.ItemProcessor;
-import uk.ac.ebi.ampt2d.commons.accession.hashing.SHA1HashingFunction;
 
 import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
 import uk.ac.ebi.eva.accession.core.SubmittedVariant;
 import uk.ac.ebi.eva.accession.core.persistence.DbsnpSubmittedVariantEntity;
-import uk.ac.ebi.eva.accession.core.summary.SubmittedVariantSummaryFunction;
+import uk.ac.ebi.eva.accession.core.summary.SubmittedVariantHashingFunction;
 import uk.ac.ebi.eva.accession.core.io.FastaSynonymSequenceReader;
 
 import java.util.List;
@@ -41,7 +40,7 @@ public class SubmittedVariantRenormalizationProcessor implements
 
     public SubmittedVariantRenormalizationProcessor(FastaSynonymSequenceReader fastaSequenceReader) {
         this.fastaSequenceReader = fastaSequenceReader;
-        hashingFunction = new SubmittedVariantSummaryFunction().andThen(new SHA1HashingFunction());
+        hashingFunction = new SubmittedVariantHashingFunction();
     }
 
     @Override
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.dbsnp.tasklets;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+
+import uk.ac.ebi.eva.accession.core.bloomfilter.DbsnpSubmittedVariantBloomFilterBuilder;
+import uk.ac.ebi.eva.accession.core.bloomfilter.HashBloomFilter;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Rebuilds the bloom filter of the dbSNP submitted variant hashes of an assembly and writes it to the directory the
+ * accessioning service loads the filters from. It must be run after every import into that assembly, otherwise the
+ * variants imported afterwards would not be found in dbSNP when accessioning.
+ */
+public class BuildDbsnpBloomFilterTasklet implements Tasklet {
+
+    private static final Logger logger = LoggerFactory.getLogger(BuildDbsnpBloomFilterTasklet.class);
+
+    private DbsnpSubmittedVariantBloomFilterBuilder builder;
+
+    private String assemblyAccession;
+
+    private Path directory;
+
+    private double falsePositiveRate;
+
+    /**
+     * @param directory Directory to write the filter to. If null, the tasklet fails without reading any variant,
+     *                  instead of writing the filter where the accessioning service won't look for it
+     */
+    public BuildDbsnpBloomFilterTasklet(DbsnpSubmittedVariantBloomFilterBuilder builder, String assemblyAccession,
+                                        Path directory, double falsePositiveRate) {
+        this.builder = builder;
+        this.assemblyAccession = assemblyAccession;
+        this.directory = directory;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        if (directory == null) {
+            throw new IllegalStateException(
+                    "Property accessioning.submitted.dbsnpBloomFilterDirectory must be set to build the bloom filter");
+        }
+        HashBloomFilter filter = builder.build(assemblyAccession, falsePositiveRate);
+        Files.createDirectories(directory);
+        Path filterPath = HashBloomFilter.getFilePath(directory, assemblyAccession);
+        filter.writeTo(filterPath);
+        logger.info("Bloom filter of assembly {} written to {}", assemblyAccession, filterPath);
+        return RepeatStatus.FINISHED;
+    }
+}
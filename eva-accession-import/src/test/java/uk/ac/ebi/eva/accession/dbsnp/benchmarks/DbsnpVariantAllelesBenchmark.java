@@ -0,0 +1,136 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.dbsnp.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.ac.ebi.eva.accession.dbsnp.model.DbsnpVariantAlleles;
+import uk.ac.ebi.eva.accession.dbsnp.model.DbsnpVariantType;
+import uk.ac.ebi.eva.accession.dbsnp.model.Orientation;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the computation of the reference and alleles in the forward strand of dbSNP variants, including the
+ * parsing of the allele string done by the {@link DbsnpVariantAlleles} constructor, which is what the import does for
+ * every row. About a third of the variants are in the reverse strand, and the "mixed" variant types are distributed
+ * like in a typical dbSNP build: mostly SNVs, then indels and a few microsatellites in the compressed syntax.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DbsnpVariantAllelesBenchmark {
+
+    private static final int NUM_VARIANTS = 1000;
+
+    private static final char[] BASES = {'A', 'C', 'G', 'T'};
+
+    @Param({"SNV", "DIV", "MICROSATELLITE", "mixed"})
+    private String variantType;
+
+    private String[] referenceAlleles;
+
+    private String[] alleles;
+
+    private Orientation[] orientations;
+
+    private DbsnpVariantType[] types;
+
+    @Setup
+    public void setUp() {
+        referenceAlleles = new String[NUM_VARIANTS];
+        alleles = new String[NUM_VARIANTS];
+        orientations = new Orientation[NUM_VARIANTS];
+        types = new DbsnpVariantType[NUM_VARIANTS];
+        Random random = new Random(42);
+        for (int i = 0; i < NUM_VARIANTS; i++) {
+            types[i] = getType(random);
+            orientations[i] = random.nextInt(3) == 0 ? Orientation.REVERSE : Orientation.FORWARD;
+            switch (types[i]) {
+                case SNV:
+                    referenceAlleles[i] = randomSequence(random, 1);
+                    alleles[i] = referenceAlleles[i] + "/" + randomSequence(random, 1);
+                    break;
+                case DIV:
+                    referenceAlleles[i] = "-";
+                    alleles[i] = "-/" + randomSequence(random, 1 + random.nextInt(10));
+                    break;
+                case MICROSATELLITE:
+                    String motif = randomSequence(random, 1 + random.nextInt(4));
+                    int repetitions = 2 + random.nextInt(10);
+                    referenceAlleles[i] = repeat(motif, repetitions);
+                    alleles[i] = "(" + motif + ")" + repetitions + "/" + (repetitions + 1) + "/" + (repetitions + 3);
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected variant type " + types[i]);
+            }
+        }
+    }
+
+    private DbsnpVariantType getType(Random random) {
+        if (variantType.equals("mixed")) {
+            int type = random.nextInt(100);
+            if (type < 85) {
+                return DbsnpVariantType.SNV;
+            }
+            return type < 98 ? DbsnpVariantType.DIV : DbsnpVariantType.MICROSATELLITE;
+        }
+        return DbsnpVariantType.valueOf(variantType);
+    }
+
+    private static String randomSequence(Random random, int length) {
+        StringBuilder sequence = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sequence.append(BASES[random.nextInt(BASES.length)]);
+        }
+        return sequence.toString();
+    }
+
+    private static String repeat(String motif, int repetitions) {
+        StringBuilder sequence = new StringBuilder(motif.length() * repetitions);
+        for (int i = 0; i < repetitions; i++) {
+            sequence.append(motif);
+        }
+        return sequence.toString();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_VARIANTS)
+    public void getAllelesInForwardStrand(Blackhole blackhole) {
+        for (int i = 0; i < NUM_VARIANTS; i++) {
+            DbsnpVariantAlleles variantAlleles = new DbsnpVariantAlleles(referenceAlleles[i], alleles[i],
+                                                                         orientations[i], orientations[i], types[i]);
+            blackhole.consume(variantAlleles.getReferenceInForwardStrand());
+            blackhole.consume(variantAlleles.getAllelesInForwardStrand());
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.dbsnp.benchmarks;
+
+import com.mongodb.MongoClient;
+import com.mongodb.MongoClientURI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import uk.ac.ebi.ampt2d.commons.accession.hashing.SHA1HashingFunction;
+
+import uk.ac.ebi.eva.accession.core.ClusteredVariant;
+import uk.ac.ebi.eva.accession.core.IClusteredVariant;
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariant;
+import uk.ac.ebi.eva.accession.core.persistence.DbsnpClusteredVariantAccessioningRepository;
+import uk.ac.ebi.eva.accession.core.persistence.DbsnpClusteredVariantEntity;
+import uk.ac.ebi.eva.accession.core.persistence.DbsnpClusteredVariantOperationEntity;
+import uk.ac.ebi.eva.accession.core.persistence.DbsnpClusteredVariantOperationRepository;
+import uk.ac.ebi.eva.accession.core.persistence.DbsnpSubmittedVariantAccessioningRepository;
+import uk.ac.ebi.eva.accession.core.persistence.DbsnpSubmittedVariantAccessioningRepositoryImpl;
+import uk.ac.ebi.eva.accession.core.persistence.DbsnpSubmittedVariantEntity;
+import uk.ac.ebi.eva.accession.core.persistence.DbsnpSubmittedVariantOperationEntity;
+import uk.ac.ebi.eva.accession.core.persistence.DbsnpSubmittedVariantOperationRepository;
+import uk.ac.ebi.eva.accession.core.summary.ClusteredVariantSummaryFunction;
+import uk.ac.ebi.eva.accession.core.summary.SubmittedVariantSummaryFunction;
+import uk.ac.ebi.eva.accession.dbsnp.io.DbsnpClusteredVariantWriter;
+import uk.ac.ebi.eva.accession.dbsnp.io.DbsnpSubmittedVariantOperationWriter;
+import uk.ac.ebi.eva.accession.dbsnp.io.DbsnpSubmittedVariantWriter;
+import uk.ac.ebi.eva.accession.dbsnp.io.DbsnpVariantsWriter;
+import uk.ac.ebi.eva.accession.dbsnp.listeners.ImportCounts;
+import uk.ac.ebi.eva.accession.dbsnp.persistence.DbsnpVariantsWrapper;
+import uk.ac.ebi.eva.accession.dbsnp.processors.SubmittedVariantDeclusterProcessor;
+import uk.ac.ebi.eva.commons.core.models.VariantType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static uk.ac.ebi.eva.accession.dbsnp.io.DbsnpClusteredVariantDeclusteredWriter.DBSNP_CLUSTERED_VARIANT_DECLUSTERED_COLLECTION_NAME;
+
+/**
+ * Measures how long it takes to write a chunk of dbSNP variants to a local MongoDB, both as a whole with
+ * {@link DbsnpVariantsWriter} and as the bulk inserts of the collections it writes, so the time of every phase can be
+ * compared with the time of the whole chunk when the collections are written one after another or at the same time.
+ *
+ * The collections are dropped before every invocation. The server is "mongodb://localhost:27017" unless the
+ * "benchmarks.mongodb.uri" system property says otherwise, e.g.:
+ *
+ * mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test -Dexec.args="-cp %classpath
+ *     -Dbenchmarks.mongodb.uri=mongodb://host:27017 org.openjdk.jmh.Main DbsnpVariantsWriterBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DbsnpVariantsWriterBenchmark {
+
+    private static final String MONGODB_URI_PROPERTY = "benchmarks.mongodb.uri";
+
+    private static final String DEFAULT_MONGODB_URI = "mongodb://localhost:27017";
+
+    private static final String DATABASE = "eva_accession_benchmarks";
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private static final String ASSEMBLY = "GCA_000001405.27";
+
+    private static final int TAXONOMY = 9606;
+
+    private static final long FIRST_CLUSTERED_VARIANT_ACCESSION = 1000000L;
+
+    private static final long FIRST_SUBMITTED_VARIANT_ACCESSION = 5000000L;
+
+    private static final double DECLUSTERED_FRACTION = 0.05;
+
+    @Param({"1", "3"})
+    private int writeThreads;
+
+    @Param({"0.0", "0.1"})
+    private double duplicateFraction;
+
+    private MongoClient mongoClient;
+
+    private MongoTemplate mongoTemplate;
+
+    private ExecutorService writeExecutor;
+
+    private DbsnpSubmittedVariantOperationRepository submittedOperationRepository;
+
+    private DbsnpSubmittedVariantAccessioningRepository submittedVariantRepository;
+
+    private DbsnpClusteredVariantOperationRepository clusteredOperationRepository;
+
+    private DbsnpClusteredVariantAccessioningRepository clusteredVariantRepository;
+
+    private Function<IClusteredVariant, String> clusteredHashingFunction;
+
+    private Function<ISubmittedVariant, String> submittedHashingFunction;
+
+    private SubmittedVariantDeclusterProcessor declusterProcessor;
+
+    private List<DbsnpVariantsWrapper> wrappers;
+
+    private List<DbsnpClusteredVariantEntity> clusteredVariants;
+
+    private List<DbsnpSubmittedVariantEntity> submittedVariants;
+
+    private List<DbsnpSubmittedVariantOperationEntity> declusterOperations;
+
+    @Setup
+    public void setUp() {
+        mongoClient = new MongoClient(new MongoClientURI(System.getProperty(MONGODB_URI_PROPERTY,
+                                                                            DEFAULT_MONGODB_URI)));
+        mongoTemplate = new MongoTemplate(mongoClient, DATABASE);
+        MongoRepositoryFactory repositoryFactory = new MongoRepositoryFactory(mongoTemplate);
+        submittedOperationRepository = repositoryFactory.getRepository(DbsnpSubmittedVariantOperationRepository.class);
+        submittedVariantRepository = repositoryFactory.getRepository(
+                DbsnpSubmittedVariantAccessioningRepository.class,
+                new DbsnpSubmittedVariantAccessioningRepositoryImpl(mongoTemplate));
+        clusteredOperationRepository = repositoryFactory.getRepository(DbsnpClusteredVariantOperationRepository.class);
+        clusteredVariantRepository = repositoryFactory.getRepository(DbsnpClusteredVariantAccessioningRepository.class);
+        writeExecutor = Executors.newFixedThreadPool(writeThreads);
+
+        clusteredHashingFunction = new ClusteredVariantSummaryFunction().andThen(new SHA1HashingFunction());
+        submittedHashingFunction = new SubmittedVariantSummaryFunction().andThen(new SHA1HashingFunction());
+        declusterProcessor = new SubmittedVariantDeclusterProcessor();
+    }
+
+    /**
+     * The writer updates the submitted variants of merged clustered variants, so the chunk is built again every time
+     */
+    @Setup(Level.Invocation)
+    public void setUpChunk() {
+        mongoTemplate.dropCollection(DbsnpClusteredVariantEntity.class);
+        mongoTemplate.dropCollection(DbsnpSubmittedVariantEntity.class);
+        mongoTemplate.dropCollection(DbsnpClusteredVariantOperationEntity.class);
+        mongoTemplate.dropCollection(DbsnpSubmittedVariantOperationEntity.class);
+        mongoTemplate.dropCollection(DBSNP_CLUSTERED_VARIANT_DECLUSTERED_COLLECTION_NAME);
+
+        wrappers = new ArrayList<>(CHUNK_SIZE);
+        Map<String, DbsnpClusteredVariantEntity> clusteredVariantsByHash = new LinkedHashMap<>();
+        submittedVariants = new ArrayList<>(CHUNK_SIZE);
+        declusterOperations = new ArrayList<>();
+        Random random = new Random(42);
+        long start = 1000;
+        for (int i = 0; i < CHUNK_SIZE; i++) {
+            if (i == 0 || random.nextDouble() >= duplicateFraction) {
+                start += 1 + random.nextInt(100);
+            }
+            long clusteredVariantAccession = FIRST_CLUSTERED_VARIANT_ACCESSION + i;
+            ClusteredVariant clusteredVariant = new ClusteredVariant(ASSEMBLY, TAXONOMY, "chr1", start, VariantType.SNV,
+                                                                     false, null);
+            DbsnpClusteredVariantEntity clusteredVariantEntity = new DbsnpClusteredVariantEntity(
+                    clusteredVariantAccession, clusteredHashingFunction.apply(clusteredVariant), clusteredVariant);
+            SubmittedVariant submittedVariant = new SubmittedVariant(ASSEMBLY, TAXONOMY, "PRJEB" + (i % 50), "chr1",
+                                                                     start, "A", "T", clusteredVariantAccession);
+            DbsnpSubmittedVariantEntity submittedVariantEntity = new DbsnpSubmittedVariantEntity(
+                    FIRST_SUBMITTED_VARIANT_ACCESSION + i, submittedHashingFunction.apply(submittedVariant),
+                    submittedVariant, 1);
+
+            DbsnpVariantsWrapper wrapper = new DbsnpVariantsWrapper();
+            wrapper.setClusteredVariant(clusteredVariantEntity);
+            wrapper.setSubmittedVariants(Collections.singletonList(submittedVariantEntity));
+            if (random.nextDouble() < DECLUSTERED_FRACTION) {
+                DbsnpSubmittedVariantOperationEntity operation = declusterProcessor.createOperation(
+                        submittedVariantEntity, Collections.singletonList("Declustered"));
+                submittedVariantEntity.setClusteredVariantAccession(null);
+                wrapper.setOperations(Collections.singletonList(operation));
+                declusterOperations.add(operation);
+            } else {
+                clusteredVariantsByHash.putIfAbsent(clusteredVariantEntity.getHashedMessage(), clusteredVariantEntity);
+            }
+            wrappers.add(wrapper);
+            submittedVariants.add(submittedVariantEntity);
+        }
+        clusteredVariants = new ArrayList<>(clusteredVariantsByHash.values());
+    }
+
+    @TearDown
+    public void tearDown() {
+        writeExecutor.shutdown();
+        mongoClient.close();
+    }
+
+    @Benchmark
+    public void writeChunk() throws Exception {
+        DbsnpVariantsWriter writer = new DbsnpVariantsWriter(
+                mongoTemplate, submittedOperationRepository, submittedVariantRepository, clusteredOperationRepository,
+                clusteredVariantRepository, new ImportCounts(), ConcurrentHashMap.newKeySet(),
+                writeThreads > 1 ? writeExecutor : new SyncTaskExecutor());
+        writer.write(wrappers);
+    }
+
+    @Benchmark
+    public void writeClusteredVariants() {
+        new DbsnpClusteredVariantWriter(mongoTemplate, new ImportCounts()).write(clusteredVariants);
+    }
+
+    @Benchmark
+    public void writeSubmittedVariants() {
+        new DbsnpSubmittedVariantWriter(mongoTemplate, new ImportCounts()).write(submittedVariants);
+    }
+
+    @Benchmark
+    public void writeSubmittedVariantOperations() throws Exception {
+        new DbsnpSubmittedVariantOperationWriter(mongoTemplate, new ImportCounts()).write(declusterOperations);
+    }
+}
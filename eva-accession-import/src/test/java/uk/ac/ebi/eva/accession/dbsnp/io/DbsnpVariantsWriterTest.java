@@ -15,11 +15,14 @@
  */
 package uk.ac.ebi.eva.accession.dbsnp.io;
 
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.test.context.ContextConfiguration;
@@ -49,7 +52,12 @@ import uk.ac.ebi.eva.accession.dbsnp.test.VariantAssertions;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Function;
 
 import static org.junit.Assert.assertEquals;
@@ -89,6 +97,8 @@ import static uk.ac.ebi.eva.accession.dbsnp.test.VariantBuilders.defaultSubmitte
 @ContextConfiguration(classes = {MongoConfiguration.class, SubmittedVariantAccessioningConfiguration.class})
 public class DbsnpVariantsWriterTest {
 
+    private static final int WRITE_THREADS = 3;
+
     private DbsnpVariantsWriter dbsnpVariantsWriter;
 
     private Function<IClusteredVariant, String> hashingFunctionClustered;
@@ -486,7 +496,25 @@ public class DbsnpVariantsWriterTest {
         assertions.assertSubmittedVariantsStored(1, submittedVariantEntity);
         assertions.assertSubmittedVariantMergeOperationStored(2, 2, submittedVariantEntity);
     }
-    
+
+    @Test
+    public void mergeDuplicateSubmittedVariantsInTheSameChunk() throws Exception {
+        SubmittedVariant submittedVariant = defaultSubmittedVariant();
+        DbsnpSubmittedVariantEntity submittedVariantEntity = buildSubmittedVariantEntity(SUBMITTED_VARIANT_ACCESSION_1,
+                                                                                         submittedVariant);
+        DbsnpVariantsWrapper wrapper = buildSimpleWrapper(Collections.singletonList(submittedVariantEntity));
+        DbsnpSubmittedVariantEntity submittedVariantEntity2 = buildSubmittedVariantEntity(SUBMITTED_VARIANT_ACCESSION_2,
+                                                                                          submittedVariant);
+        DbsnpVariantsWrapper wrapper2 = buildSimpleWrapper(Collections.singletonList(submittedVariantEntity2));
+
+        // none of the variants is stored yet, so the first one of the chunk is kept and the second is merged into it
+        dbsnpVariantsWriter.write(Arrays.asList(wrapper, wrapper2));
+
+        assertions.assertClusteredVariantStored(1, wrapper);
+        assertions.assertSubmittedVariantsStored(1, submittedVariantEntity);
+        assertions.assertSubmittedVariantMergeOperationStored(1, 1, submittedVariantEntity);
+    }
+
     @Test
     public void mergeDuplicateClusteredVariantsInTheSameChunk() throws Exception {
         SubmittedVariant submittedVariant = defaultSubmittedVariant();
@@ -778,6 +806,92 @@ public class DbsnpVariantsWriterTest {
         assertRs136611820(wrapper1, wrapper2, wrapper3, wrapper4);
     }
 
+    @Test
+    public void rs136611820WithConcurrentWrites() throws Exception {
+        // given
+        DbsnpVariantsWrapper wrapper1 = new DbsnpVariantsWrapper();
+        DbsnpVariantsWrapper wrapper2 = new DbsnpVariantsWrapper();
+        DbsnpVariantsWrapper wrapper3 = new DbsnpVariantsWrapper();
+        DbsnpVariantsWrapper wrapper4 = new DbsnpVariantsWrapper();
+
+        setupRs136611820(wrapper1, wrapper2, wrapper3, wrapper4);
+
+        // when
+        ExecutorService writeExecutor = Executors.newFixedThreadPool(WRITE_THREADS);
+        try {
+            buildConcurrentWriter(writeExecutor).write(Arrays.asList(wrapper1, wrapper2, wrapper3, wrapper4));
+        } finally {
+            writeExecutor.shutdown();
+        }
+
+        // then
+        assertRs136611820(wrapper1, wrapper2, wrapper3, wrapper4);
+    }
+
+    @Test
+    public void rs136611820UpsertedTwice() throws Exception {
+        // given
+        DbsnpVariantsWrapper wrapper1 = new DbsnpVariantsWrapper();
+        DbsnpVariantsWrapper wrapper2 = new DbsnpVariantsWrapper();
+        DbsnpVariantsWrapper wrapper3 = new DbsnpVariantsWrapper();
+        DbsnpVariantsWrapper wrapper4 = new DbsnpVariantsWrapper();
+
+        setupRs136611820(wrapper1, wrapper2, wrapper3, wrapper4);
+
+        DbsnpVariantsWriter upsertWriter = buildUpsertWriter();
+        upsertWriter.write(Arrays.asList(wrapper1, wrapper2, wrapper3, wrapper4));
+        Map<String, List<DBObject>> storedDocuments = getStoredDocuments();
+        List<Long> counts = getImportCounts();
+
+        // the first write changes the wrappers, so the same variants are read again
+        DbsnpVariantsWrapper reimportedWrapper1 = new DbsnpVariantsWrapper();
+        DbsnpVariantsWrapper reimportedWrapper2 = new DbsnpVariantsWrapper();
+        DbsnpVariantsWrapper reimportedWrapper3 = new DbsnpVariantsWrapper();
+        DbsnpVariantsWrapper reimportedWrapper4 = new DbsnpVariantsWrapper();
+
+        setupRs136611820(reimportedWrapper1, reimportedWrapper2, reimportedWrapper3, reimportedWrapper4);
+
+        // when
+        upsertWriter.write(Arrays.asList(reimportedWrapper1, reimportedWrapper2, reimportedWrapper3,
+                                         reimportedWrapper4));
+
+        // then the second write didn't change anything, not even the import counts
+        assertEquals(storedDocuments, getStoredDocuments());
+        assertEquals(counts, getImportCounts());
+        assertRs136611820(wrapper1, wrapper2, wrapper3, wrapper4);
+    }
+
+    private Map<String, List<DBObject>> getStoredDocuments() {
+        Map<String, List<DBObject>> storedDocuments = new HashMap<>();
+        for (String collectionName : Arrays.asList(
+                mongoTemplate.getCollectionName(DbsnpSubmittedVariantEntity.class),
+                mongoTemplate.getCollectionName(DbsnpClusteredVariantEntity.class),
+                mongoTemplate.getCollectionName(DbsnpSubmittedVariantOperationEntity.class),
+                mongoTemplate.getCollectionName(DbsnpClusteredVariantOperationEntity.class),
+                DBSNP_CLUSTERED_VARIANT_DECLUSTERED_COLLECTION_NAME)) {
+            storedDocuments.put(collectionName, mongoTemplate.getCollection(collectionName).find()
+                                                             .sort(new BasicDBObject("_id", 1)).toArray());
+        }
+        return storedDocuments;
+    }
+
+    private List<Long> getImportCounts() {
+        return Arrays.asList(importCounts.getSubmittedVariantsWritten(), importCounts.getClusteredVariantsWritten(),
+                             importCounts.getOperationsWritten());
+    }
+
+    private DbsnpVariantsWriter buildUpsertWriter() {
+        return new DbsnpVariantsWriter(mongoTemplate, operationRepository, submittedVariantRepository,
+                                       clusteredOperationRepository, clusteredVariantRepository, importCounts,
+                                       ConcurrentHashMap.newKeySet(), new SyncTaskExecutor(), true);
+    }
+
+    private DbsnpVariantsWriter buildConcurrentWriter(ExecutorService writeExecutor) {
+        return new DbsnpVariantsWriter(mongoTemplate, operationRepository, submittedVariantRepository,
+                                       clusteredOperationRepository, clusteredVariantRepository, importCounts,
+                                       ConcurrentHashMap.newKeySet(), writeExecutor);
+    }
+
     @Test
     public void rs136611820MultiChunk() throws Exception {
         // given
@@ -1073,6 +1187,71 @@ public class DbsnpVariantsWriterTest {
                                                                             wrapper5);
     }
 
+    @Test
+    public void clusteredVariantMergedIntoSeveralDeclusteredClusteredVariantsWithConcurrentWrites() throws Exception {
+        // given
+        DbsnpVariantsWrapper wrapper1 = new DbsnpVariantsWrapper();
+        DbsnpVariantsWrapper wrapper2 = new DbsnpVariantsWrapper();
+        DbsnpVariantsWrapper wrapper3 = new DbsnpVariantsWrapper();
+        DbsnpVariantsWrapper wrapper4 = new DbsnpVariantsWrapper();
+        DbsnpVariantsWrapper wrapper5 = new DbsnpVariantsWrapper();
+
+        setupclusteredVariantMergedIntoSeveralDeclusteredClusteredVariants(wrapper1, wrapper2, wrapper3, wrapper4,
+                                                                           wrapper5);
+
+        // when
+        ExecutorService writeExecutor = Executors.newFixedThreadPool(WRITE_THREADS);
+        try {
+            buildConcurrentWriter(writeExecutor).write(Arrays.asList(wrapper1, wrapper2, wrapper3, wrapper4,
+                                                                     wrapper5));
+        } finally {
+            writeExecutor.shutdown();
+        }
+
+        // then
+        assertclusteredVariantMergedIntoSeveralDeclusteredClusteredVariants(wrapper1, wrapper2, wrapper3, wrapper4,
+                                                                            wrapper5);
+    }
+
+    @Test
+    public void clusteredVariantMergedIntoSeveralDeclusteredClusteredVariantsUpsertedTwice() throws Exception {
+        // given
+        DbsnpVariantsWrapper wrapper1 = new DbsnpVariantsWrapper();
+        DbsnpVariantsWrapper wrapper2 = new DbsnpVariantsWrapper();
+        DbsnpVariantsWrapper wrapper3 = new DbsnpVariantsWrapper();
+        DbsnpVariantsWrapper wrapper4 = new DbsnpVariantsWrapper();
+        DbsnpVariantsWrapper wrapper5 = new DbsnpVariantsWrapper();
+
+        setupclusteredVariantMergedIntoSeveralDeclusteredClusteredVariants(wrapper1, wrapper2, wrapper3, wrapper4,
+                                                                           wrapper5);
+
+        DbsnpVariantsWriter upsertWriter = buildUpsertWriter();
+        upsertWriter.write(Arrays.asList(wrapper1, wrapper2, wrapper3, wrapper4, wrapper5));
+        Map<String, List<DBObject>> storedDocuments = getStoredDocuments();
+        List<Long> counts = getImportCounts();
+
+        // the first write changes the wrappers, so the same variants are read again
+        DbsnpVariantsWrapper reimportedWrapper1 = new DbsnpVariantsWrapper();
+        DbsnpVariantsWrapper reimportedWrapper2 = new DbsnpVariantsWrapper();
+        DbsnpVariantsWrapper reimportedWrapper3 = new DbsnpVariantsWrapper();
+        DbsnpVariantsWrapper reimportedWrapper4 = new DbsnpVariantsWrapper();
+        DbsnpVariantsWrapper reimportedWrapper5 = new DbsnpVariantsWrapper();
+
+        setupclusteredVariantMergedIntoSeveralDeclusteredClusteredVariants(reimportedWrapper1, reimportedWrapper2,
+                                                                           reimportedWrapper3, reimportedWrapper4,
+                                                                           reimportedWrapper5);
+
+        // when
+        upsertWriter.write(Arrays.asList(reimportedWrapper1, reimportedWrapper2, reimportedWrapper3,
+                                         reimportedWrapper4, reimportedWrapper5));
+
+        // then the second write didn't change anything, not even the import counts
+        assertEquals(storedDocuments, getStoredDocuments());
+        assertEquals(counts, getImportCounts());
+        assertclusteredVariantMergedIntoSeveralDeclusteredClusteredVariants(wrapper1, wrapper2, wrapper3, wrapper4,
+                                                                            wrapper5);
+    }
+
     @Test
     public void clusteredVariantMergedIntoSeveralDeclusteredClusteredVariantsMultiChunk() throws Exception {
         // given
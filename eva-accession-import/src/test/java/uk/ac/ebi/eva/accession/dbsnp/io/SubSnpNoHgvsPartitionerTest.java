@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.dbsnp.io;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import uk.ac.ebi.eva.accession.dbsnp.configuration.DbsnpDataSource;
+import uk.ac.ebi.eva.accession.dbsnp.test.TestConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static uk.ac.ebi.eva.accession.dbsnp.io.SubSnpNoHgvsPartitioner.MAX_LOAD_ORDER_KEY;
+import static uk.ac.ebi.eva.accession.dbsnp.io.SubSnpNoHgvsPartitioner.MIN_LOAD_ORDER_KEY;
+
+@RunWith(SpringRunner.class)
+@TestPropertySource({"classpath:application.properties"})
+@ContextConfiguration(classes = {TestConfiguration.class})
+public class SubSnpNoHgvsPartitionerTest {
+
+    private static final String CHICKEN_ASSEMBLY_5 = "Gallus_gallus-5.0";
+
+    private static final long CHICKEN_MIN_LOAD_ORDER = 4545970L;
+
+    private static final long CHICKEN_MAX_LOAD_ORDER = 88888888L;
+
+    @Autowired
+    private DbsnpDataSource dbsnpDataSource;
+
+    @Test
+    public void partitionsCoverTheWholeTable() {
+        SubSnpNoHgvsPartitioner partitioner = new SubSnpNoHgvsPartitioner(CHICKEN_ASSEMBLY_5, null,
+                                                                          dbsnpDataSource.getDatasource());
+        Map<String, ExecutionContext> partitions = partitioner.partition(3);
+        assertEquals(3, partitions.size());
+
+        List<ExecutionContext> contexts = new ArrayList<>(partitions.values());
+        assertEquals(CHICKEN_MIN_LOAD_ORDER, contexts.get(0).getLong(MIN_LOAD_ORDER_KEY));
+        for (int i = 1; i < contexts.size(); i++) {
+            assertEquals(contexts.get(i - 1).getLong(MAX_LOAD_ORDER_KEY) + 1,
+                         contexts.get(i).getLong(MIN_LOAD_ORDER_KEY));
+        }
+        assertEquals(CHICKEN_MAX_LOAD_ORDER, contexts.get(contexts.size() - 1).getLong(MAX_LOAD_ORDER_KEY));
+    }
+
+    @Test
+    public void singlePartition() {
+        SubSnpNoHgvsPartitioner partitioner = new SubSnpNoHgvsPartitioner(CHICKEN_ASSEMBLY_5, null,
+                                                                          dbsnpDataSource.getDatasource());
+        Map<String, ExecutionContext> partitions = partitioner.partition(1);
+        assertEquals(1, partitions.size());
+
+        ExecutionContext context = partitions.values().iterator().next();
+        assertEquals(CHICKEN_MIN_LOAD_ORDER, context.getLong(MIN_LOAD_ORDER_KEY));
+        assertEquals(CHICKEN_MAX_LOAD_ORDER, context.getLong(MAX_LOAD_ORDER_KEY));
+    }
+}
@@ -23,6 +23,7 @@ import org.junit.runner.RunWith;
 import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.item.ItemStreamException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
@@ -34,6 +35,7 @@ import uk.ac.ebi.eva.accession.dbsnp.test.TestConfiguration;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.junit.Assert.assertEquals;
 
 @RunWith(SpringRunner.class)
@@ -49,6 +51,8 @@ public class SubSnpNoHgvsReaderTest {
 
     private static final String CHICKEN_ASSEMBLY_4 = "Gallus_gallus-4.0";
 
+    private static final String REPEATED_LOAD_ORDER_ASSEMBLY = "REPEATED_LOAD_ORDER_ASSEMBLY";
+
     @Rule
     public ExpectedException thrown = ExpectedException.none();
 
@@ -76,20 +80,89 @@ public class SubSnpNoHgvsReaderTest {
         assertEquals(3, variants.size());
     }
 
+    @Test
+    public void readChickenVariantsInLoadOrderRanges() throws Exception {
+        reader = buildReader(CHICKEN_ASSEMBLY_5, null, PAGE_SIZE, null, 9999999L);
+        List<SubSnpNoHgvs> variants = readAll(reader);
+        reader.close();
+        assertEquals(4, variants.size());
+
+        reader = buildReader(CHICKEN_ASSEMBLY_5, null, PAGE_SIZE, 10000000L, 54215963L);
+        variants = readAll(reader);
+        reader.close();
+        assertEquals(2, variants.size());
+
+        reader = buildReader(CHICKEN_ASSEMBLY_5, null, PAGE_SIZE, 54215964L, null);
+        variants = readAll(reader);
+        assertEquals(1, variants.size());
+    }
+
+    @Test
+    public void restartFromLastReadLoadOrder() throws Exception {
+        int pageSize = 2;
+        ExecutionContext executionContext = new ExecutionContext();
+        reader = buildReader(CHICKEN_ASSEMBLY_5, null, pageSize, executionContext);
+        List<SubSnpNoHgvs> variants = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            variants.add(reader.read());
+        }
+        reader.update(executionContext);
+        reader.close();
+
+        reader = buildReader(CHICKEN_ASSEMBLY_5, null, pageSize, executionContext);
+        variants.addAll(readAll(reader));
+        assertEquals(7, variants.size());
+        assertEquals(7, variants.stream().map(SubSnpNoHgvs::getSsId).distinct().count());
+    }
+
     @Test
     public void readWrongAssembly() throws Exception {
         thrown.expect(ItemStreamException.class);
         reader = buildReader("UNKNOWN_ASSEMBLY", PAGE_SIZE);
     }
 
+    @Test
+    public void repeatedLoadOrdersAreNotAllowed() throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dbsnpDataSource.getDatasource());
+        String tableName = SubSnpNoHgvsReader.getTableName(REPEATED_LOAD_ORDER_ASSEMBLY, null);
+        jdbcTemplate.execute("CREATE TABLE " + tableName + " AS (SELECT * FROM " +
+                                     SubSnpNoHgvsReader.getTableName(CHICKEN_ASSEMBLY_5, null) + ") WITH DATA");
+        jdbcTemplate.update("UPDATE " + tableName + " SET load_order = 1");
+        try {
+            thrown.expect(ItemStreamException.class);
+            thrown.expectCause(instanceOf(IllegalStateException.class));
+            reader = buildReader(REPEATED_LOAD_ORDER_ASSEMBLY, PAGE_SIZE);
+        } finally {
+            jdbcTemplate.execute("DROP TABLE " + tableName);
+        }
+    }
+
     private SubSnpNoHgvsReader buildReader(String assembly, int pageSize) throws Exception {
         return buildReader(assembly, null, pageSize);
     }
 
     private SubSnpNoHgvsReader buildReader(String assembly, Long buildNumber, int pageSize) throws Exception {
-        SubSnpNoHgvsReader fieldsReader = new SubSnpNoHgvsReader(assembly, buildNumber, dbsnpDataSource.getDatasource(), pageSize);
+        return buildReader(assembly, buildNumber, pageSize, null, null);
+    }
+
+    private SubSnpNoHgvsReader buildReader(String assembly, Long buildNumber, int pageSize, Long minLoadOrder,
+                                           Long maxLoadOrder) throws Exception {
+        SubSnpNoHgvsReader fieldsReader = new SubSnpNoHgvsReader(assembly, buildNumber,
+                                                                 dbsnpDataSource.getDatasource(), pageSize,
+                                                                 minLoadOrder, maxLoadOrder);
+        return open(fieldsReader, new ExecutionContext());
+    }
+
+    private SubSnpNoHgvsReader buildReader(String assembly, Long buildNumber, int pageSize,
+                                           ExecutionContext executionContext) throws Exception {
+        SubSnpNoHgvsReader fieldsReader = new SubSnpNoHgvsReader(assembly, buildNumber,
+                                                                 dbsnpDataSource.getDatasource(), pageSize);
+        return open(fieldsReader, executionContext);
+    }
+
+    private SubSnpNoHgvsReader open(SubSnpNoHgvsReader fieldsReader, ExecutionContext executionContext)
+            throws Exception {
         fieldsReader.afterPropertiesSet();
-        ExecutionContext executionContext = new ExecutionContext();
         fieldsReader.open(executionContext);
         return fieldsReader;
     }
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.dbsnp.persistence;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ProjectAccessionMappingRegistryTest {
+
+    private static final ProjectAccessionMapping MAPPING_1 = new ProjectAccessionMapping("PRJEB23", "handle_1",
+                                                                                         "batch_name_1", 42);
+
+    private static final ProjectAccessionMapping MAPPING_2 = new ProjectAccessionMapping("PRJEB34", "handle_2",
+                                                                                         "batch_name_2", 7);
+
+    private static final ProjectAccessionMapping DUPLICATED_MAPPING_1 = new ProjectAccessionMapping(
+            "PRJEB45", "handle_1", "batch_name_1", 42);
+
+    private ProjectAccessionMappingRegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = new ProjectAccessionMappingRegistry(Arrays.asList(MAPPING_1, MAPPING_2, DUPLICATED_MAPPING_1));
+    }
+
+    @Test
+    public void getMappedProjectAccession() {
+        assertEquals("PRJEB23", registry.getProjectAccession("handle_1", "batch_name_1", 42));
+        assertEquals("PRJEB34", registry.getProjectAccession("handle_2", "batch_name_2", 7));
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    public void allFieldsMustMatch() {
+        assertEquals("handle_1_batch_name_1", registry.getProjectAccession("handle_1", "batch_name_1", 7));
+        assertEquals("handle_1_batch_name_2", registry.getProjectAccession("handle_1", "batch_name_2", 42));
+        assertEquals("handle_2_batch_name_1", registry.getProjectAccession("handle_2", "batch_name_1", 42));
+    }
+
+    @Test
+    public void unmappedProjectAccessionIsBuiltOncePerBatch() {
+        String projectAccession = registry.getProjectAccession("handle_3", "batch_name_3", 42);
+        assertSame(projectAccession, registry.getProjectAccession("handle_3", "batch_name_3", 42));
+        registry.getProjectAccession("handle_3", "batch_name_4", 42);
+        assertEquals(2, registry.getUnmappedBatches());
+    }
+
+    @Test
+    public void reportUnusedMappings() {
+        assertEquals(2, registry.getUnusedMappings().size());
+
+        registry.getProjectAccession("handle_1", "batch_name_1", 42);
+        assertEquals(Collections.singletonList(MAPPING_2), registry.getUnusedMappings());
+
+        registry.getProjectAccession("handle_2", "batch_name_2", 7);
+        assertEquals(Collections.emptyList(), registry.getUnusedMappings());
+    }
+}
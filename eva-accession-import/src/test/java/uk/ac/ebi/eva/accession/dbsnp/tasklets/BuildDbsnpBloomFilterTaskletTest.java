@@ -0,0 +1,31 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.dbsnp.tasklets;
+
+import org.junit.Test;
+
+import uk.ac.ebi.eva.accession.core.bloomfilter.DbsnpSubmittedVariantBloomFilterBuilder;
+
+public class BuildDbsnpBloomFilterTaskletTest {
+
+    private static final String ASSEMBLY_ACCESSION = "GCA_000001215.4";
+
+    @Test(expected = IllegalStateException.class)
+    public void failsWithoutDirectory() throws Exception {
+        DbsnpSubmittedVariantBloomFilterBuilder builder = new DbsnpSubmittedVariantBloomFilterBuilder(null);
+        new BuildDbsnpBloomFilterTasklet(builder, ASSEMBLY_ACCESSION, null, 0.01).execute(null, null);
+    }
+}
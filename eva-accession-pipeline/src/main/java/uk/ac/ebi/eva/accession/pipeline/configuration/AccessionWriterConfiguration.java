@@ -15,6 +15,7 @@
  */
 package uk.ac.ebi.eva.accession.pipeline.configuration;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -40,6 +41,15 @@ import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.ACCESSION
 @Import({SubmittedVariantAccessioningConfiguration.class, InputParametersConfiguration.class})
 public class AccessionWriterConfiguration {
 
+    @Value("${accessioning.fasta.memoryMapped:false}")
+    private boolean fastaMemoryMapped;
+
+    @Value("${accessioning.fasta.windowSize:0}")
+    private int fastaWindowSize;
+
+    @Value("${accessioning.fasta.bgzipBlockCacheSize:32}")
+    private int fastaBgzipBlockCacheSize;
+
     @Bean(ACCESSION_WRITER)
     public AccessionWriter accessionWriter(SubmittedVariantAccessioningService service,
                                            AccessionReportWriter accessionReportWriter) throws IOException {
@@ -49,7 +59,9 @@ public class AccessionWriterConfiguration {
     @Bean
     AccessionReportWriter accessionReportWriter(InputParameters inputParameters) throws IOException {
         return new AccessionReportWriter(new File(inputParameters.getOutputVcf()),
-                                         new FastaSequenceReader(Paths.get(inputParameters.getFasta())));
+                                         new FastaSequenceReader(Paths.get(inputParameters.getFasta()),
+                                                                 fastaMemoryMapped, fastaWindowSize,
+                                                                 fastaBgzipBlockCacheSize));
     }
 
 }
@@ -31,4 +31,6 @@ public class BeanNames {
     public static final String CHECK_SUBSNP_ACCESSION_STEP = "CHECK_SUBSNP_ACCESSION_STEP";
 
     public static final String CREATE_SUBSNP_ACCESSION_JOB = "CREATE_SUBSNP_ACCESSION_JOB";
+
+    public static final String STEP_METRICS_LISTENER = "STEP_METRICS_LISTENER";
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.configuration;
+
+import org.springframework.batch.core.listener.StepListenerSupport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.listeners.StepMetricsListener;
+import uk.ac.ebi.eva.commons.core.models.IVariant;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.STEP_METRICS_LISTENER;
+
+@Configuration
+public class ListenersConfiguration {
+
+    @Value("${accessioning.metrics.prometheusFile:}")
+    private String metricsPrometheusFile;
+
+    @Value("${accessioning.metrics.jmx:false}")
+    private boolean metricsJmx;
+
+    @Value("${accessioning.metrics.exportIntervalSeconds:60}")
+    private long metricsExportIntervalSeconds;
+
+    @Bean(STEP_METRICS_LISTENER)
+    public StepListenerSupport<IVariant, ISubmittedVariant> stepMetricsListener() {
+        Path prometheusFile = metricsPrometheusFile.isEmpty() ? null : Paths.get(metricsPrometheusFile);
+        return new StepMetricsListener<>(prometheusFile, metricsJmx, metricsExportIntervalSeconds);
+    }
+}
@@ -17,6 +17,7 @@
 package uk.ac.ebi.eva.accession.pipeline.configuration.jobs.steps;
 
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
 import org.springframework.batch.core.step.tasklet.TaskletStep;
@@ -37,6 +38,7 @@ import uk.ac.ebi.eva.commons.core.models.pipeline.Variant;
 import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.ACCESSION_WRITER;
 import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.CREATE_SUBSNP_ACCESSION_STEP;
 import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.COMPOSITE_VARIANT_PROCESSOR;
+import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.STEP_METRICS_LISTENER;
 import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.VARIANT_READER;
 
 @Configuration
@@ -58,6 +60,10 @@ public class CreateSubsnpAccessionsStepConfiguration {
     @Autowired
     private InvalidVariantSkipPolicy invalidVariantSkipPolicy;
 
+    @Autowired
+    @Qualifier(STEP_METRICS_LISTENER)
+    private StepExecutionListener stepMetricsListener;
+
     @Bean(CREATE_SUBSNP_ACCESSION_STEP)
     public Step createSubsnpAccessionStep(StepBuilderFactory stepBuilderFactory,
                                           SimpleCompletionPolicy chunkSizeCompletionPolicy) {
@@ -68,6 +74,7 @@ public class CreateSubsnpAccessionsStepConfiguration {
                 .writer(accessionWriter)
                 .faultTolerant()
                 .skipPolicy(invalidVariantSkipPolicy)
+                .listener(stepMetricsListener)
                 .build();
         return step;
     }
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariant;
+import uk.ac.ebi.eva.accession.pipeline.io.AccessionReportWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the conversion of accessioned variants into lines of the accession report VCF, without writing them to a
+ * file. The variants are already denormalized (no empty alleles), like they are when the line is built.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AccessionReportWriterBenchmark {
+
+    private static final int NUM_VARIANTS = 1000;
+
+    private static final long FIRST_ACCESSION = 5000000000L;
+
+    private static final String[] ALLELES = {"A", "C", "G", "T", "AC", "GTT", "CAGCAG"};
+
+    private ISubmittedVariant[] variants;
+
+    private Long[] accessions;
+
+    private VcfLineWriter writer;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        variants = new ISubmittedVariant[NUM_VARIANTS];
+        accessions = new Long[NUM_VARIANTS];
+        for (int i = 0; i < NUM_VARIANTS; i++) {
+            variants[i] = new SubmittedVariant("GCA_000001405.27", 9606, "PRJEB" + (i % 50),
+                                               "chr" + (1 + random.nextInt(22)), 1 + random.nextInt(100_000_000),
+                                               ALLELES[random.nextInt(4)], ALLELES[random.nextInt(ALLELES.length)],
+                                               null);
+            accessions[i] = FIRST_ACCESSION + i;
+        }
+        writer = new VcfLineWriter();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_VARIANTS)
+    public void variantToVcfLine(Blackhole blackhole) {
+        for (int i = 0; i < NUM_VARIANTS; i++) {
+            blackhole.consume(writer.variantToVcfLine(accessions[i], variants[i]));
+        }
+    }
+
+    /**
+     * Gives access to the conversion to VCF lines, which is not public. No file is opened, so no reference sequence
+     * is needed either.
+     */
+    private static class VcfLineWriter extends AccessionReportWriter {
+
+        VcfLineWriter() throws IOException {
+            super(new File("accession-report.vcf"), null);
+        }
+
+        @Override
+        protected String variantToVcfLine(Long id, ISubmittedVariant variant) {
+            return super.variantToVcfLine(id, variant);
+        }
+    }
+}
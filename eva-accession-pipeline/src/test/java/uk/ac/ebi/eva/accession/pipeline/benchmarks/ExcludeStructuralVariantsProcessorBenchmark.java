@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.ac.ebi.eva.accession.pipeline.steps.processors.ExcludeStructuralVariantsProcessor;
+import uk.ac.ebi.eva.commons.core.models.IVariant;
+import uk.ac.ebi.eva.commons.core.models.pipeline.Variant;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long {@link ExcludeStructuralVariantsProcessor} takes to match the alternate allele of every variant
+ * against the VCF grammar of structural variants, depending on the length of the alleles.
+ *
+ * Only non-structural variants are used: the processor logs every structural variant it excludes, and that would be
+ * measured instead of the regular expression.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExcludeStructuralVariantsProcessorBenchmark {
+
+    private static final int NUM_VARIANTS = 1000;
+
+    private static final char[] BASES = {'A', 'C', 'G', 'T'};
+
+    @Param({"1", "10", "100"})
+    private int maxAlleleLength;
+
+    private IVariant[] variants;
+
+    private ExcludeStructuralVariantsProcessor processor;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        variants = new IVariant[NUM_VARIANTS];
+        for (int i = 0; i < NUM_VARIANTS; i++) {
+            long start = 1 + random.nextInt(100_000_000);
+            String reference = randomSequence(random, random.nextInt(maxAlleleLength + 1));
+            String alternate = randomSequence(random, (reference.isEmpty() ? 1 : 0) + random.nextInt(
+                    maxAlleleLength + 1));
+            long end = start + Math.max(reference.length(), alternate.length()) - 1;
+            variants[i] = new Variant("chr" + (1 + random.nextInt(22)), start, end, reference, alternate);
+        }
+        processor = new ExcludeStructuralVariantsProcessor();
+    }
+
+    private static String randomSequence(Random random, int length) {
+        StringBuilder sequence = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sequence.append(BASES[random.nextInt(BASES.length)]);
+        }
+        return sequence.toString();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_VARIANTS)
+    public void process(Blackhole blackhole) {
+        for (IVariant variant : variants) {
+            blackhole.consume(processor.process(variant));
+        }
+    }
+}
@@ -28,6 +28,7 @@ import org.springframework.transaction.PlatformTransactionManager;
 import uk.ac.ebi.eva.accession.pipeline.configuration.AccessionWriterConfiguration;
 import uk.ac.ebi.eva.accession.pipeline.configuration.ChunkSizeCompletionPolicyConfiguration;
 import uk.ac.ebi.eva.accession.pipeline.configuration.InvalidVariantSkipPolicyConfiguration;
+import uk.ac.ebi.eva.accession.pipeline.configuration.ListenersConfiguration;
 import uk.ac.ebi.eva.accession.pipeline.configuration.VariantProcessorConfiguration;
 import uk.ac.ebi.eva.accession.pipeline.configuration.VcfReaderConfiguration;
 import uk.ac.ebi.eva.accession.pipeline.configuration.jobs.CreateSubsnpAccessionsJobConfiguration;
@@ -40,7 +41,8 @@ import javax.sql.DataSource;
 @Import({CreateSubsnpAccessionsJobConfiguration.class,
         CreateSubsnpAccessionsStepConfiguration.class, CheckSubsnpAccessionsStepConfiguration.class,
         VcfReaderConfiguration.class, VariantProcessorConfiguration.class, AccessionWriterConfiguration.class,
-        ChunkSizeCompletionPolicyConfiguration.class, InvalidVariantSkipPolicyConfiguration.class})
+        ChunkSizeCompletionPolicyConfiguration.class, InvalidVariantSkipPolicyConfiguration.class,
+        ListenersConfiguration.class})
 public class BatchTestConfiguration {
 
     @Autowired
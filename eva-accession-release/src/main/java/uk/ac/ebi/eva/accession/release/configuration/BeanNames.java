@@ -31,4 +31,6 @@ public class BeanNames {
     public static final String EXCLUDE_VARIANTS_LISTENER = "EXCLUDE_VARIANTS_LISTENER";
 
     public static final String PROGRESS_LISTENER = "PROGRESS_LISTENER";
+
+    public static final String STEP_METRICS_LISTENER = "STEP_METRICS_LISTENER";
 }
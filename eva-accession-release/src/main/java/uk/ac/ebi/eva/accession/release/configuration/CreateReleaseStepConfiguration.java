@@ -37,6 +37,7 @@ import static uk.ac.ebi.eva.accession.release.configuration.BeanNames.EXCLUDE_VA
 import static uk.ac.ebi.eva.accession.release.configuration.BeanNames.PROGRESS_LISTENER;
 import static uk.ac.ebi.eva.accession.release.configuration.BeanNames.RELEASE_PROCESSOR;
 import static uk.ac.ebi.eva.accession.release.configuration.BeanNames.RELEASE_WRITER;
+import static uk.ac.ebi.eva.accession.release.configuration.BeanNames.STEP_METRICS_LISTENER;
 
 @Configuration
 public class CreateReleaseStepConfiguration {
@@ -61,6 +62,10 @@ public class CreateReleaseStepConfiguration {
     @Qualifier(EXCLUDE_VARIANTS_LISTENER)
     private StepExecutionListener excludeVariantsListener;
 
+    @Autowired
+    @Qualifier(STEP_METRICS_LISTENER)
+    private StepExecutionListener stepMetricsListener;
+
     @Bean(RELEASE_MAPPED_ACTIVE_VARIANTS_STEP)
     public Step createSubsnpAccessionStep(StepBuilderFactory stepBuilderFactory,
                                           SimpleCompletionPolicy chunkSizeCompletionPolicy) {
@@ -71,6 +76,7 @@ public class CreateReleaseStepConfiguration {
                 .writer(accessionWriter)
                 .listener(excludeVariantsListener)
                 .listener(progressListener)
+                .listener(stepMetricsListener)
                 .build();
         return step;
     }
@@ -18,20 +18,35 @@ package uk.ac.ebi.eva.accession.release.configuration;
 
 import htsjdk.variant.variantcontext.VariantContext;
 import org.springframework.batch.core.listener.StepListenerSupport;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import uk.ac.ebi.eva.accession.release.listeners.ExcludeVariantsListener;
 import uk.ac.ebi.eva.accession.core.listeners.GenericProgressListener;
+import uk.ac.ebi.eva.accession.core.listeners.StepMetricsListener;
 import uk.ac.ebi.eva.accession.release.parameters.InputParameters;
 import uk.ac.ebi.eva.commons.core.models.pipeline.Variant;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 import static uk.ac.ebi.eva.accession.release.configuration.BeanNames.EXCLUDE_VARIANTS_LISTENER;
 import static uk.ac.ebi.eva.accession.release.configuration.BeanNames.PROGRESS_LISTENER;
+import static uk.ac.ebi.eva.accession.release.configuration.BeanNames.STEP_METRICS_LISTENER;
 
 @Configuration
 public class ListenersConfiguration {
 
+    @Value("${accessioning.metrics.prometheusFile:}")
+    private String metricsPrometheusFile;
+
+    @Value("${accessioning.metrics.jmx:false}")
+    private boolean metricsJmx;
+
+    @Value("${accessioning.metrics.exportIntervalSeconds:60}")
+    private long metricsExportIntervalSeconds;
+
     @Bean(EXCLUDE_VARIANTS_LISTENER)
     public StepListenerSupport excludeVariantsListener() {
         return new ExcludeVariantsListener();
@@ -42,4 +57,10 @@ public class ListenersConfiguration {
             InputParameters parameters) {
         return new GenericProgressListener<>(parameters.getChunkSize());
     }
+
+    @Bean(STEP_METRICS_LISTENER)
+    public StepListenerSupport<Variant, VariantContext> stepMetricsListener() {
+        Path prometheusFile = metricsPrometheusFile.isEmpty() ? null : Paths.get(metricsPrometheusFile);
+        return new StepMetricsListener<>(prometheusFile, metricsJmx, metricsExportIntervalSeconds);
+    }
 }
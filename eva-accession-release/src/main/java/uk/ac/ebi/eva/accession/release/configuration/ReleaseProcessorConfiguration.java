@@ -19,9 +19,11 @@ package uk.ac.ebi.eva.accession.release.configuration;
 import htsjdk.variant.variantcontext.VariantContext;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.support.CompositeItemProcessor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import uk.ac.ebi.eva.accession.core.contig.AssemblyReportCache;
 import uk.ac.ebi.eva.accession.core.contig.ContigMapping;
 import uk.ac.ebi.eva.accession.core.io.FastaSynonymSequenceReader;
 import uk.ac.ebi.eva.accession.release.parameters.InputParameters;
@@ -40,6 +42,21 @@ import static uk.ac.ebi.eva.accession.release.configuration.BeanNames.RELEASE_PR
 @Configuration
 public class ReleaseProcessorConfiguration {
 
+    @Value("${accessioning.fasta.memoryMapped:false}")
+    private boolean fastaMemoryMapped;
+
+    @Value("${accessioning.fasta.windowSize:0}")
+    private int fastaWindowSize;
+
+    @Value("${accessioning.fasta.bgzipBlockCacheSize:32}")
+    private int fastaBgzipBlockCacheSize;
+
+    @Value("${accessioning.assemblyReport.cacheDirectory:}")
+    private String assemblyReportCacheDirectory;
+
+    @Value("${accessioning.assemblyReport.offline:false}")
+    private boolean assemblyReportOffline;
+
     @Bean(RELEASE_PROCESSOR)
     public ItemProcessor<Variant, VariantContext> releaseProcessor(FastaSynonymSequenceReader fastaReader) {
         CompositeItemProcessor<Variant, VariantContext> compositeItemProcessor = new CompositeItemProcessor<>();
@@ -53,12 +70,17 @@ public class ReleaseProcessorConfiguration {
     FastaSynonymSequenceReader fastaSynonymSequenceReader(ContigMapping contigMapping, InputParameters parameters)
             throws IOException {
         Path referenceFastaFile = Paths.get(parameters.getFasta());
-        return new FastaSynonymSequenceReader(contigMapping, referenceFastaFile);
+        return new FastaSynonymSequenceReader(contigMapping, referenceFastaFile, fastaMemoryMapped,
+                                              fastaWindowSize, fastaBgzipBlockCacheSize);
     }
 
     @Bean
     ContigMapping contigMapping(InputParameters parameters) throws Exception {
-        return new ContigMapping(parameters.getAssemblyReportUrl());
+        if (assemblyReportCacheDirectory.isEmpty()) {
+            return new ContigMapping(parameters.getAssemblyReportUrl());
+        }
+        return new AssemblyReportCache(Paths.get(assemblyReportCacheDirectory), assemblyReportOffline)
+                .getContigMapping(parameters.getAssemblyReportUrl());
     }
 
 }
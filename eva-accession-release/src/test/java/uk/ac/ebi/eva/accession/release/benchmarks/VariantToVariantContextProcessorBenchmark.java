@@ -0,0 +1,108 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.release.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.ac.ebi.eva.accession.release.steps.processors.VariantToVariantContextProcessor;
+import uk.ac.ebi.eva.commons.core.models.IVariant;
+import uk.ac.ebi.eva.commons.core.models.pipeline.Variant;
+import uk.ac.ebi.eva.commons.core.models.pipeline.VariantSourceEntry;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static uk.ac.ebi.eva.accession.release.io.AccessionedVariantMongoReader.ALLELES_MATCH_KEY;
+import static uk.ac.ebi.eva.accession.release.io.AccessionedVariantMongoReader.ASSEMBLY_MATCH_KEY;
+import static uk.ac.ebi.eva.accession.release.io.AccessionedVariantMongoReader.CLUSTERED_VARIANT_VALIDATED_KEY;
+import static uk.ac.ebi.eva.accession.release.io.AccessionedVariantMongoReader.STUDY_ID_KEY;
+import static uk.ac.ebi.eva.accession.release.io.AccessionedVariantMongoReader.SUBMITTED_VARIANT_VALIDATED_KEY;
+import static uk.ac.ebi.eva.accession.release.io.AccessionedVariantMongoReader.SUPPORTED_BY_EVIDENCE_KEY;
+import static uk.ac.ebi.eva.accession.release.io.AccessionedVariantMongoReader.VARIANT_CLASS_KEY;
+
+/**
+ * Measures the conversion of released variants into htsjdk VariantContexts, with the same attributes that
+ * AccessionedVariantMongoReader sets in every source entry. Each variant has between 1 and a maximum number of
+ * submitted variants (source entries), because merging their attributes is most of the work.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VariantToVariantContextProcessorBenchmark {
+
+    private static final int NUM_VARIANTS = 1000;
+
+    private static final String SNV_SEQUENCE_ONTOLOGY = "SO:0001483";
+
+    private static final String[] BASES = {"A", "C", "G", "T"};
+
+    @Param({"1", "5", "20"})
+    private int maxSourceEntries;
+
+    private IVariant[] variants;
+
+    private VariantToVariantContextProcessor processor;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        variants = new IVariant[NUM_VARIANTS];
+        for (int i = 0; i < NUM_VARIANTS; i++) {
+            long start = 1 + random.nextInt(100_000_000);
+            Variant variant = new Variant("chr" + (1 + random.nextInt(22)), start, start, BASES[random.nextInt(4)],
+                                          BASES[random.nextInt(4)]);
+            variant.setMainId("rs" + (1000000 + i));
+            int sourceEntries = 1 + random.nextInt(maxSourceEntries);
+            for (int j = 0; j < sourceEntries; j++) {
+                String study = "PRJEB" + random.nextInt(100);
+                VariantSourceEntry sourceEntry = new VariantSourceEntry(study, study);
+                sourceEntry.addAttribute(VARIANT_CLASS_KEY, SNV_SEQUENCE_ONTOLOGY);
+                sourceEntry.addAttribute(STUDY_ID_KEY, study);
+                sourceEntry.addAttribute(CLUSTERED_VARIANT_VALIDATED_KEY, Boolean.toString(random.nextInt(10) == 0));
+                sourceEntry.addAttribute(SUBMITTED_VARIANT_VALIDATED_KEY, Boolean.toString(random.nextInt(10) == 0));
+                sourceEntry.addAttribute(ALLELES_MATCH_KEY, Boolean.toString(random.nextInt(100) != 0));
+                sourceEntry.addAttribute(ASSEMBLY_MATCH_KEY, Boolean.toString(random.nextInt(100) != 0));
+                sourceEntry.addAttribute(SUPPORTED_BY_EVIDENCE_KEY, Boolean.toString(random.nextInt(5) != 0));
+                variant.addSourceEntry(sourceEntry);
+            }
+            variants[i] = variant;
+        }
+        processor = new VariantToVariantContextProcessor();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_VARIANTS)
+    public void process(Blackhole blackhole) {
+        for (IVariant variant : variants) {
+            blackhole.consume(processor.process(variant));
+        }
+    }
+}